@@ -0,0 +1,220 @@
+/*
+ * Copyright © 2025 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.fsbind.benchmarks;
+
+import com.io7m.fsbind.core.FBFilesystem;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Functions shared between benchmarks.
+ */
+
+final class FBBenchmarks
+{
+  private FBBenchmarks()
+  {
+
+  }
+
+  /**
+   * Create a new fsbind filesystem with a unique name.
+   *
+   * @param environment The filesystem environment
+   *
+   * @return A new filesystem
+   *
+   * @throws IOException On errors
+   */
+
+  static FBFilesystem createFilesystem(
+    final Map<String, ?> environment)
+    throws IOException
+  {
+    final var uri =
+      URI.create("fsbind:%s:/".formatted(UUID.randomUUID()));
+
+    return (FBFilesystem) FileSystems.newFileSystem(uri, environment);
+  }
+
+  /**
+   * Create a chain of {@code depth} nested directories starting at
+   * {@code base}, with {@code fanOut - 1} sibling directories created
+   * alongside each directory in the chain.
+   *
+   * @param base   The base directory
+   * @param depth  The depth of the chain
+   * @param fanOut The number of directories at each level
+   *
+   * @return The deepest directory in the chain
+   *
+   * @throws IOException On errors
+   */
+
+  static Path createChain(
+    final Path base,
+    final int depth,
+    final int fanOut)
+    throws IOException
+  {
+    var current = base;
+    for (int level = 0; level < depth; ++level) {
+      for (int sibling = 1; sibling < fanOut; ++sibling) {
+        Files.createDirectories(current.resolve("s" + sibling));
+      }
+      current = current.resolve("d" + level);
+      Files.createDirectories(current);
+    }
+    return current;
+  }
+
+  /**
+   * Create {@code count} files of {@code size} bytes in {@code directory}.
+   *
+   * @param directory The directory
+   * @param count     The number of files
+   * @param size      The size of each file
+   *
+   * @throws IOException On errors
+   */
+
+  static void createFiles(
+    final Path directory,
+    final int count,
+    final int size)
+    throws IOException
+  {
+    Files.createDirectories(directory);
+
+    final var data = new byte[size];
+    for (int index = 0; index < size; ++index) {
+      data[index] = (byte) index;
+    }
+
+    for (int index = 0; index < count; ++index) {
+      try (OutputStream output =
+             Files.newOutputStream(directory.resolve("f" + index))) {
+        output.write(data);
+      }
+    }
+  }
+
+  /**
+   * Create a zip file containing a copy of the given directory.
+   *
+   * @param zipFile   The output zip file
+   * @param directory The directory to copy
+   *
+   * @throws IOException On errors
+   */
+
+  static void createZip(
+    final Path zipFile,
+    final Path directory)
+    throws IOException
+  {
+    try (var zipfs = openZip(zipFile, true)) {
+      final var zipRoot = zipfs.getPath("/");
+      try (var stream = Files.walk(directory)) {
+        final var paths = stream.toList();
+        for (final var path : paths) {
+          final var target =
+            zipRoot.resolve(directory.relativize(path).toString());
+          if (Files.isDirectory(path)) {
+            Files.createDirectories(target);
+          } else {
+            Files.copy(path, target);
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Open a zip file as a filesystem.
+   *
+   * @param zipFile The zip file
+   * @param create  {@code true} if the zip file should be created
+   *
+   * @return The zip filesystem
+   *
+   * @throws IOException On errors
+   */
+
+  static FileSystem openZip(
+    final Path zipFile,
+    final boolean create)
+    throws IOException
+  {
+    return FileSystems.newFileSystem(
+      zipFile,
+      Map.of("create", Boolean.toString(create))
+    );
+  }
+
+  /**
+   * Delete a directory and all of its contents.
+   *
+   * @param directory The directory
+   *
+   * @throws IOException On errors
+   */
+
+  static void deleteRecursively(
+    final Path directory)
+    throws IOException
+  {
+    if (!Files.exists(directory)) {
+      return;
+    }
+
+    Files.walkFileTree(directory, new SimpleFileVisitor<>()
+    {
+      @Override
+      public FileVisitResult visitFile(
+        final Path file,
+        final BasicFileAttributes attrs)
+        throws IOException
+      {
+        Files.delete(file);
+        return FileVisitResult.CONTINUE;
+      }
+
+      @Override
+      public FileVisitResult postVisitDirectory(
+        final Path dir,
+        final IOException exc)
+        throws IOException
+      {
+        Files.delete(dir);
+        return FileVisitResult.CONTINUE;
+      }
+    });
+  }
+}
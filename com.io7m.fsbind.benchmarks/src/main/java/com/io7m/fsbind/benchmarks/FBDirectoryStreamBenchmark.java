@@ -0,0 +1,299 @@
+/*
+ * Copyright © 2025 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.fsbind.benchmarks;
+
+import com.io7m.fsbind.core.FBFilesystem;
+import com.io7m.fsbind.core.FBFilesystemProvider;
+import com.io7m.fsbind.core.FBMountRequest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.file.FileSystem;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for listing virtual and mounted directories.
+ */
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@State(Scope.Benchmark)
+public class FBDirectoryStreamBenchmark
+{
+  /**
+   * The number of entries in each listed directory.
+   */
+
+  @Param({"10", "1000"})
+  public int entries;
+
+  /**
+   * Whether the filesystem is frozen before the benchmark runs.
+   */
+
+  @Param({"false", "true"})
+  public boolean frozen;
+
+  /**
+   * Whether virtual directory listings are sorted.
+   */
+
+  @Param({"true", "false"})
+  public boolean sorted;
+
+  private Path directory;
+  private FileSystem zipFilesystem;
+  private FBFilesystem filesystem;
+  private Path virtualDirectory;
+  private Path mountedDirectory;
+  private Path mountedZipDirectory;
+  private Path baselineDirectory;
+  private Path baselineZipDirectory;
+
+  /**
+   * Construct a benchmark.
+   */
+
+  public FBDirectoryStreamBenchmark()
+  {
+
+  }
+
+  /**
+   * Set up the benchmark.
+   *
+   * @throws IOException On errors
+   */
+
+  @Setup
+  public void setup()
+    throws IOException
+  {
+    this.directory =
+      Files.createTempDirectory("fsbind-benchmarks");
+    this.filesystem =
+      FBBenchmarks.createFilesystem(
+        Map.of(
+          FBFilesystemProvider.environmentDirectoryListingSortedKey(),
+          Boolean.valueOf(this.sorted)
+        )
+      );
+
+    this.virtualDirectory =
+      this.filesystem.getPath("/", "virtual");
+    for (int index = 0; index < this.entries; ++index) {
+      Files.createDirectories(this.virtualDirectory.resolve("d" + index));
+    }
+
+    this.baselineDirectory =
+      this.directory.resolve("base");
+    FBBenchmarks.createFiles(this.baselineDirectory, this.entries, 16);
+
+    final var zipFile = this.directory.resolve("base.zip");
+    FBBenchmarks.createZip(zipFile, this.baselineDirectory);
+    this.zipFilesystem =
+      FBBenchmarks.openZip(zipFile, false);
+    this.baselineZipDirectory =
+      this.zipFilesystem.getPath("/");
+
+    this.mountedDirectory =
+      this.filesystem.getPath("/", "mounted");
+    Files.createDirectories(this.mountedDirectory);
+    this.filesystem.mount(
+      new FBMountRequest(this.baselineDirectory, this.mountedDirectory)
+    );
+
+    this.mountedZipDirectory =
+      this.filesystem.getPath("/", "zip");
+    Files.createDirectories(this.mountedZipDirectory);
+    this.filesystem.mount(
+      new FBMountRequest(this.baselineZipDirectory, this.mountedZipDirectory)
+    );
+
+    if (this.frozen) {
+      this.filesystem.freeze();
+    }
+  }
+
+  /**
+   * Tear down the benchmark.
+   *
+   * @throws IOException On errors
+   */
+
+  @TearDown
+  public void tearDown()
+    throws IOException
+  {
+    this.filesystem.close();
+    this.zipFilesystem.close();
+    FBBenchmarks.deleteRecursively(this.directory);
+  }
+
+  private static void list(
+    final Path directory,
+    final Blackhole blackhole)
+    throws IOException
+  {
+    try (var stream = Files.newDirectoryStream(directory)) {
+      for (final var path : stream) {
+        blackhole.consume(path);
+      }
+    }
+  }
+
+  /**
+   * List a virtual directory.
+   *
+   * @param blackhole The blackhole
+   *
+   * @throws IOException On errors
+   */
+
+  @Benchmark
+  public void listVirtual(
+    final Blackhole blackhole)
+    throws IOException
+  {
+    list(this.virtualDirectory, blackhole);
+  }
+
+  /**
+   * Open a virtual directory stream and read only its first entry.
+   *
+   * @param blackhole The blackhole
+   *
+   * @throws IOException On errors
+   */
+
+  @Benchmark
+  public void listVirtualFirst(
+    final Blackhole blackhole)
+    throws IOException
+  {
+    try (var stream = Files.newDirectoryStream(this.virtualDirectory)) {
+      blackhole.consume(stream.iterator().next());
+    }
+  }
+
+  /**
+   * List a page of at most 100 entries from the middle of a virtual
+   * directory.
+   *
+   * @param blackhole The blackhole
+   *
+   * @throws IOException On errors
+   */
+
+  @Benchmark
+  public void listVirtualPage(
+    final Blackhole blackhole)
+    throws IOException
+  {
+    blackhole.consume(
+      this.filesystem.listPage(
+        this.virtualDirectory,
+        Optional.of("d" + (this.entries / 2)),
+        100
+      )
+    );
+  }
+
+  /**
+   * List a mounted default filesystem directory.
+   *
+   * @param blackhole The blackhole
+   *
+   * @throws IOException On errors
+   */
+
+  @Benchmark
+  public void listMounted(
+    final Blackhole blackhole)
+    throws IOException
+  {
+    list(this.mountedDirectory, blackhole);
+  }
+
+  /**
+   * List a directory on the default filesystem directly.
+   *
+   * @param blackhole The blackhole
+   *
+   * @throws IOException On errors
+   */
+
+  @Benchmark
+  public void listMountedBaseline(
+    final Blackhole blackhole)
+    throws IOException
+  {
+    list(this.baselineDirectory, blackhole);
+  }
+
+  /**
+   * List a mounted zip directory.
+   *
+   * @param blackhole The blackhole
+   *
+   * @throws IOException On errors
+   */
+
+  @Benchmark
+  public void listMountedZip(
+    final Blackhole blackhole)
+    throws IOException
+  {
+    list(this.mountedZipDirectory, blackhole);
+  }
+
+  /**
+   * List a zip directory directly.
+   *
+   * @param blackhole The blackhole
+   *
+   * @throws IOException On errors
+   */
+
+  @Benchmark
+  public void listMountedZipBaseline(
+    final Blackhole blackhole)
+    throws IOException
+  {
+    list(this.baselineZipDirectory, blackhole);
+  }
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright © 2025 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.fsbind.benchmarks;
+
+import com.io7m.fsbind.core.FBFilesystem;
+import com.io7m.fsbind.core.FBFilesystemProvider;
+import com.io7m.fsbind.core.FBMountRequest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for path lookups at various depths and fan-outs. Each lookup
+ * is performed with {@link Files#exists(Path, java.nio.file.LinkOption...)},
+ * which performs a full lookup of the path including the existence checks
+ * for mounted filesystems.
+ */
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@State(Scope.Benchmark)
+public class FBLookupBenchmark
+{
+  /**
+   * The number of directories in the looked-up path.
+   */
+
+  @Param({"2", "8", "32"})
+  public int depth;
+
+  /**
+   * The number of directories at each level of the looked-up path.
+   */
+
+  @Param({"1", "100", "1000"})
+  public int fanOut;
+
+  /**
+   * The size of the lookup cache (0 disables the cache).
+   */
+
+  @Param({"0", "8192"})
+  public int lookupCacheSize;
+
+  /**
+   * Whether the filesystem is frozen before the benchmark runs.
+   */
+
+  @Param({"false", "true"})
+  public boolean frozen;
+
+  private Path directory;
+  private FBFilesystem filesystem;
+  private Path virtualLeaf;
+  private Path mountedLeaf;
+  private Path baselineLeaf;
+
+  /**
+   * Construct a benchmark.
+   */
+
+  public FBLookupBenchmark()
+  {
+
+  }
+
+  /**
+   * Set up the benchmark.
+   *
+   * @throws IOException On errors
+   */
+
+  @Setup
+  public void setup()
+    throws IOException
+  {
+    this.directory =
+      Files.createTempDirectory("fsbind-benchmarks");
+    this.filesystem =
+      FBBenchmarks.createFilesystem(Map.of(
+        FBFilesystemProvider.environmentLookupCacheSizeKey(),
+        Integer.valueOf(this.lookupCacheSize)
+      ));
+
+    this.virtualLeaf =
+      FBBenchmarks.createChain(
+        this.filesystem.getPath("/", "virtual"),
+        this.depth,
+        this.fanOut
+      );
+
+    final var baselineBase =
+      this.directory.resolve("base");
+    this.baselineLeaf =
+      FBBenchmarks.createChain(baselineBase, this.depth, this.fanOut);
+
+    final var mountAt =
+      this.filesystem.getPath("/", "mounted");
+    Files.createDirectories(mountAt);
+    this.filesystem.mount(new FBMountRequest(baselineBase, mountAt));
+
+    var leaf = mountAt;
+    for (final var name : baselineBase.relativize(this.baselineLeaf)) {
+      leaf = leaf.resolve(name.toString());
+    }
+    this.mountedLeaf = leaf;
+
+    if (this.frozen) {
+      this.filesystem.freeze();
+    }
+  }
+
+  /**
+   * Tear down the benchmark.
+   *
+   * @throws IOException On errors
+   */
+
+  @TearDown
+  public void tearDown()
+    throws IOException
+  {
+    this.filesystem.close();
+    FBBenchmarks.deleteRecursively(this.directory);
+  }
+
+  /**
+   * @return {@code true} if the virtual directory exists
+   */
+
+  @Benchmark
+  public boolean lookupVirtual()
+  {
+    return Files.exists(this.virtualLeaf);
+  }
+
+  /**
+   * @return {@code true} if the mounted directory exists
+   */
+
+  @Benchmark
+  public boolean lookupMounted()
+  {
+    return Files.exists(this.mountedLeaf);
+  }
+
+  /**
+   * @return {@code true} if the directory exists on the default filesystem
+   */
+
+  @Benchmark
+  public boolean lookupBaseline()
+  {
+    return Files.exists(this.baselineLeaf);
+  }
+}
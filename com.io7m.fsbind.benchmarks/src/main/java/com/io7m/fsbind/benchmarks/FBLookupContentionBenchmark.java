@@ -0,0 +1,192 @@
+/*
+ * Copyright © 2025 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.fsbind.benchmarks;
+
+import com.io7m.fsbind.core.FBFilesystem;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for lookups performed by many threads at once, with and
+ * without a concurrent writer modifying the tree.
+ */
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@State(Scope.Benchmark)
+public class FBLookupContentionBenchmark
+{
+  private Path directory;
+  private FBFilesystem filesystem;
+  private Path virtualLeaf;
+  private Path virtualScratch;
+  private Path baselineLeaf;
+  private Path baselineScratch;
+
+  /**
+   * Construct a benchmark.
+   */
+
+  public FBLookupContentionBenchmark()
+  {
+
+  }
+
+  /**
+   * Set up the benchmark.
+   *
+   * @throws IOException On errors
+   */
+
+  @Setup
+  public void setup()
+    throws IOException
+  {
+    this.directory =
+      Files.createTempDirectory("fsbind-benchmarks");
+    this.filesystem =
+      FBBenchmarks.createFilesystem(Map.of());
+
+    final var virtualBase =
+      this.filesystem.getPath("/", "virtual");
+    this.virtualLeaf =
+      FBBenchmarks.createChain(virtualBase, 8, 10);
+    this.virtualScratch =
+      virtualBase.resolve("scratch");
+
+    final var baselineBase =
+      this.directory.resolve("base");
+    this.baselineLeaf =
+      FBBenchmarks.createChain(baselineBase, 8, 10);
+    this.baselineScratch =
+      baselineBase.resolve("scratch");
+  }
+
+  /**
+   * Tear down the benchmark.
+   *
+   * @throws IOException On errors
+   */
+
+  @TearDown
+  public void tearDown()
+    throws IOException
+  {
+    this.filesystem.close();
+    FBBenchmarks.deleteRecursively(this.directory);
+  }
+
+  /**
+   * @return {@code true} if the virtual directory exists
+   */
+
+  @Benchmark
+  @Threads(8)
+  public boolean readOnlyFsbind()
+  {
+    return Files.exists(this.virtualLeaf);
+  }
+
+  /**
+   * @return {@code true} if the directory exists on the default filesystem
+   */
+
+  @Benchmark
+  @Threads(8)
+  public boolean readOnlyBaseline()
+  {
+    return Files.exists(this.baselineLeaf);
+  }
+
+  /**
+   * @return {@code true} if the virtual directory exists
+   */
+
+  @Benchmark
+  @Group("readWriteFsbind")
+  @GroupThreads(7)
+  public boolean readWriteFsbindReader()
+  {
+    return Files.exists(this.virtualLeaf);
+  }
+
+  /**
+   * Create and delete a virtual directory.
+   *
+   * @throws IOException On errors
+   */
+
+  @Benchmark
+  @Group("readWriteFsbind")
+  @GroupThreads(1)
+  public void readWriteFsbindWriter()
+    throws IOException
+  {
+    Files.createDirectory(this.virtualScratch);
+    Files.delete(this.virtualScratch);
+  }
+
+  /**
+   * @return {@code true} if the directory exists on the default filesystem
+   */
+
+  @Benchmark
+  @Group("readWriteBaseline")
+  @GroupThreads(7)
+  public boolean readWriteBaselineReader()
+  {
+    return Files.exists(this.baselineLeaf);
+  }
+
+  /**
+   * Create and delete a directory on the default filesystem.
+   *
+   * @throws IOException On errors
+   */
+
+  @Benchmark
+  @Group("readWriteBaseline")
+  @GroupThreads(1)
+  public void readWriteBaselineWriter()
+    throws IOException
+  {
+    Files.createDirectory(this.baselineScratch);
+    Files.delete(this.baselineScratch);
+  }
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright © 2025 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.fsbind.benchmarks;
+
+import com.io7m.fsbind.core.FBFilesystem;
+import com.io7m.fsbind.core.FBMountRequest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.FileSystem;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for repeatedly mounting and unmounting filesystems. The
+ * baseline opens and closes the zip filesystem directly, which is the
+ * closest equivalent operation available without fsbind.
+ */
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@State(Scope.Benchmark)
+public class FBMountBenchmark
+{
+  /**
+   * The number of other filesystems mounted alongside the churned mount.
+   */
+
+  @Param({"0", "100"})
+  public int otherMounts;
+
+  private Path directory;
+  private Path baselineDirectory;
+  private Path zipFile;
+  private FileSystem zipFilesystem;
+  private FBFilesystem filesystem;
+  private Path mountAt;
+
+  /**
+   * Construct a benchmark.
+   */
+
+  public FBMountBenchmark()
+  {
+
+  }
+
+  /**
+   * Set up the benchmark.
+   *
+   * @throws IOException On errors
+   */
+
+  @Setup
+  public void setup()
+    throws IOException
+  {
+    this.directory =
+      Files.createTempDirectory("fsbind-benchmarks");
+    this.filesystem =
+      FBBenchmarks.createFilesystem(Map.of());
+
+    this.baselineDirectory =
+      this.directory.resolve("base");
+    FBBenchmarks.createFiles(this.baselineDirectory, 10, 16);
+
+    this.zipFile = this.directory.resolve("base.zip");
+    FBBenchmarks.createZip(this.zipFile, this.baselineDirectory);
+    this.zipFilesystem =
+      FBBenchmarks.openZip(this.zipFile, false);
+
+    for (int index = 0; index < this.otherMounts; ++index) {
+      final var otherAt = this.filesystem.getPath("/", "other" + index);
+      Files.createDirectories(otherAt);
+      this.filesystem.mount(
+        new FBMountRequest(this.baselineDirectory, otherAt)
+      );
+    }
+
+    this.mountAt =
+      this.filesystem.getPath("/", "churn");
+    Files.createDirectories(this.mountAt);
+  }
+
+  /**
+   * Tear down the benchmark.
+   *
+   * @throws IOException On errors
+   */
+
+  @TearDown
+  public void tearDown()
+    throws IOException
+  {
+    this.filesystem.close();
+    this.zipFilesystem.close();
+    FBBenchmarks.deleteRecursively(this.directory);
+  }
+
+  /**
+   * Mount and unmount a default filesystem directory.
+   *
+   * @throws IOException On errors
+   */
+
+  @Benchmark
+  public void mountUnmountDefault()
+    throws IOException
+  {
+    this.filesystem.mount(
+      new FBMountRequest(this.baselineDirectory, this.mountAt)
+    );
+    this.filesystem.unmount(this.mountAt);
+  }
+
+  /**
+   * Mount and unmount an open zip filesystem.
+   *
+   * @throws IOException On errors
+   */
+
+  @Benchmark
+  public void mountUnmountZip()
+    throws IOException
+  {
+    this.filesystem.mount(
+      new FBMountRequest(this.zipFilesystem.getPath("/"), this.mountAt)
+    );
+    this.filesystem.unmount(this.mountAt);
+  }
+
+  /**
+   * Open and close a zip filesystem directly.
+   *
+   * @throws IOException On errors
+   */
+
+  @Benchmark
+  public void mountUnmountZipBaseline()
+    throws IOException
+  {
+    FBBenchmarks.openZip(this.zipFile, false).close();
+  }
+}
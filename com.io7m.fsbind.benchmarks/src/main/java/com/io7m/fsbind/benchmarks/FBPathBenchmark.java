@@ -0,0 +1,331 @@
+/*
+ * Copyright © 2025 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.fsbind.benchmarks;
+
+import com.io7m.fsbind.core.FBFilesystem;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for path construction and resolution.
+ */
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@State(Scope.Benchmark)
+public class FBPathBenchmark
+{
+  private FBFilesystem filesystem;
+  private FileSystem baseline;
+  private Path filesystemBase;
+  private Path baselineBase;
+  private Path filesystemOther;
+  private Path baselineOther;
+  private URI filesystemURI;
+  private URI baselineURI;
+
+  /**
+   * Construct a benchmark.
+   */
+
+  public FBPathBenchmark()
+  {
+
+  }
+
+  /**
+   * Set up the benchmark.
+   *
+   * @throws IOException On errors
+   */
+
+  @Setup
+  public void setup()
+    throws IOException
+  {
+    this.filesystem =
+      FBBenchmarks.createFilesystem(Map.of());
+    this.baseline =
+      FileSystems.getDefault();
+    this.filesystemBase =
+      this.filesystem.getPath("/", "a", "b", "c");
+    this.baselineBase =
+      this.baseline.getPath("/", "a", "b", "c");
+    this.filesystemOther =
+      this.filesystem.getPath("/", "a", "b", "C");
+    this.baselineOther =
+      this.baseline.getPath("/", "a", "b", "d");
+    this.filesystemURI =
+      this.filesystemBase.toUri();
+    this.baselineURI =
+      this.baselineBase.toUri();
+  }
+
+  /**
+   * Tear down the benchmark.
+   *
+   * @throws IOException On errors
+   */
+
+  @TearDown
+  public void tearDown()
+    throws IOException
+  {
+    this.filesystem.close();
+  }
+
+  /**
+   * @return An fsbind path
+   */
+
+  @Benchmark
+  public Path getPathFsbind()
+  {
+    return this.filesystem.getPath("/", "a", "b", "c", "d");
+  }
+
+  /**
+   * @return A path on the default filesystem
+   */
+
+  @Benchmark
+  public Path getPathBaseline()
+  {
+    return this.baseline.getPath("/", "a", "b", "c", "d");
+  }
+
+  /**
+   * @return An fsbind path parsed from a single string
+   */
+
+  @Benchmark
+  public Path getPathParsedFsbind()
+  {
+    return this.filesystem.getPath("/a/b/c/d");
+  }
+
+  /**
+   * @return A path on the default filesystem parsed from a single string
+   */
+
+  @Benchmark
+  public Path getPathParsedBaseline()
+  {
+    return this.baseline.getPath("/a/b/c/d");
+  }
+
+  /**
+   * @return An fsbind path
+   */
+
+  @Benchmark
+  public Path resolveFsbind()
+  {
+    return this.filesystemBase.resolve("d");
+  }
+
+  /**
+   * @return A path on the default filesystem
+   */
+
+  @Benchmark
+  public Path resolveBaseline()
+  {
+    return this.baselineBase.resolve("d");
+  }
+
+  /**
+   * @return An fsbind path
+   */
+
+  @Benchmark
+  public Path resolveMultipleFsbind()
+  {
+    return this.filesystemBase.resolve("d").resolve("e").resolve("f");
+  }
+
+  /**
+   * @return A path on the default filesystem
+   */
+
+  @Benchmark
+  public Path resolveMultipleBaseline()
+  {
+    return this.baselineBase.resolve("d").resolve("e").resolve("f");
+  }
+
+  /**
+   * @return The parent of a path (fsbind)
+   */
+
+  @Benchmark
+  public Path parentFsbind()
+  {
+    return this.filesystemBase.getParent();
+  }
+
+  /**
+   * @return The parent of a path (baseline)
+   */
+
+  @Benchmark
+  public Path parentBaseline()
+  {
+    return this.baselineBase.getParent();
+  }
+
+  /**
+   * @return The file name of a path (fsbind)
+   */
+
+  @Benchmark
+  public Path fileNameFsbind()
+  {
+    return this.filesystemBase.getFileName();
+  }
+
+  /**
+   * @return The file name of a path (baseline)
+   */
+
+  @Benchmark
+  public Path fileNameBaseline()
+  {
+    return this.baselineBase.getFileName();
+  }
+
+  /**
+   * @return The string form of a path (fsbind)
+   */
+
+  @Benchmark
+  public String toStringFsbind()
+  {
+    return this.filesystemBase.toString();
+  }
+
+  /**
+   * @return The string form of a path (baseline)
+   */
+
+  @Benchmark
+  public String toStringBaseline()
+  {
+    return this.baselineBase.toString();
+  }
+
+  /**
+   * @return The hash code of a path (fsbind)
+   */
+
+  @Benchmark
+  public int hashCodeFsbind()
+  {
+    return this.filesystemBase.hashCode();
+  }
+
+  /**
+   * @return The hash code of a path (baseline)
+   */
+
+  @Benchmark
+  public int hashCodeBaseline()
+  {
+    return this.baselineBase.hashCode();
+  }
+
+  /**
+   * @return The comparison of two paths (fsbind)
+   */
+
+  @Benchmark
+  public int compareFsbind()
+  {
+    return this.filesystemBase.compareTo(this.filesystemOther);
+  }
+
+  /**
+   * @return The comparison of two paths (baseline)
+   */
+
+  @Benchmark
+  public int compareBaseline()
+  {
+    return this.baselineBase.compareTo(this.baselineOther);
+  }
+
+  /**
+   * @return An fsbind path obtained from a URI
+   */
+
+  @Benchmark
+  public Path getPathURIFsbind()
+  {
+    return Path.of(this.filesystemURI);
+  }
+
+  /**
+   * @return A path on the default filesystem obtained from a URI
+   */
+
+  @Benchmark
+  public Path getPathURIBaseline()
+  {
+    return Path.of(this.baselineURI);
+  }
+
+  /**
+   * @return The URI of an fsbind path
+   */
+
+  @Benchmark
+  public URI toUriFsbind()
+  {
+    return this.filesystemBase.toUri();
+  }
+
+  /**
+   * @return The URI of a path on the default filesystem
+   */
+
+  @Benchmark
+  public URI toUriBaseline()
+  {
+    return this.baselineBase.toUri();
+  }
+}
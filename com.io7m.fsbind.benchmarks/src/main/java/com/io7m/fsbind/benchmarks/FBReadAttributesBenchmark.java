@@ -0,0 +1,274 @@
+/*
+ * Copyright © 2025 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.fsbind.benchmarks;
+
+import com.io7m.fsbind.core.FBFilesystem;
+import com.io7m.fsbind.core.FBMountMode;
+import com.io7m.fsbind.core.FBMountRequest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.FileSystem;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for reading file attributes.
+ */
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@State(Scope.Benchmark)
+public class FBReadAttributesBenchmark
+{
+  /**
+   * The number of directories between the mount point and the file.
+   */
+
+  @Param({"1", "8"})
+  public int depth;
+
+  /**
+   * Whether the mounted filesystems are indexed when mounted.
+   */
+
+  @Param({"false", "true"})
+  public boolean indexOnMount;
+
+  private Path directory;
+  private FileSystem zipFilesystem;
+  private FBFilesystem filesystem;
+  private Path virtualDirectory;
+  private Path mountedFile;
+  private Path mountedZipFile;
+  private Path baselineFile;
+  private Path baselineZipFile;
+
+  /**
+   * Construct a benchmark.
+   */
+
+  public FBReadAttributesBenchmark()
+  {
+
+  }
+
+  /**
+   * Set up the benchmark.
+   *
+   * @throws IOException On errors
+   */
+
+  @Setup
+  public void setup()
+    throws IOException
+  {
+    this.directory =
+      Files.createTempDirectory("fsbind-benchmarks");
+    this.filesystem =
+      FBBenchmarks.createFilesystem(Map.of());
+
+    this.virtualDirectory =
+      FBBenchmarks.createChain(
+        this.filesystem.getPath("/", "virtual"),
+        this.depth,
+        1
+      );
+
+    final var baselineBase =
+      this.directory.resolve("base");
+    final var baselineLeaf =
+      FBBenchmarks.createChain(baselineBase, this.depth, 1);
+    FBBenchmarks.createFiles(baselineLeaf, 1, 16);
+    this.baselineFile =
+      baselineLeaf.resolve("f0");
+
+    final var zipFile = this.directory.resolve("base.zip");
+    FBBenchmarks.createZip(zipFile, baselineBase);
+    this.zipFilesystem =
+      FBBenchmarks.openZip(zipFile, false);
+
+    final var relative =
+      baselineBase.relativize(this.baselineFile);
+
+    this.baselineZipFile =
+      this.zipFilesystem.getPath("/");
+    for (final var name : relative) {
+      this.baselineZipFile = this.baselineZipFile.resolve(name.toString());
+    }
+
+    final var mountAt =
+      this.filesystem.getPath("/", "mounted");
+    Files.createDirectories(mountAt);
+    this.filesystem.mount(
+      new FBMountRequest(
+        baselineBase,
+        mountAt,
+        FBMountMode.REPLACE,
+        0,
+        this.indexOnMount
+      )
+    );
+
+    final var mountZipAt =
+      this.filesystem.getPath("/", "zip");
+    Files.createDirectories(mountZipAt);
+    this.filesystem.mount(
+      new FBMountRequest(
+        this.zipFilesystem.getPath("/"),
+        mountZipAt,
+        FBMountMode.REPLACE,
+        0,
+        this.indexOnMount
+      )
+    );
+
+    this.mountedFile = mountAt;
+    this.mountedZipFile = mountZipAt;
+    for (final var name : relative) {
+      this.mountedFile = this.mountedFile.resolve(name.toString());
+      this.mountedZipFile = this.mountedZipFile.resolve(name.toString());
+    }
+  }
+
+  /**
+   * Tear down the benchmark.
+   *
+   * @throws IOException On errors
+   */
+
+  @TearDown
+  public void tearDown()
+    throws IOException
+  {
+    this.filesystem.close();
+    this.zipFilesystem.close();
+    FBBenchmarks.deleteRecursively(this.directory);
+  }
+
+  /**
+   * @return The attributes of a virtual directory
+   *
+   * @throws IOException On errors
+   */
+
+  @Benchmark
+  public BasicFileAttributes readVirtual()
+    throws IOException
+  {
+    return Files.readAttributes(
+      this.virtualDirectory,
+      BasicFileAttributes.class
+    );
+  }
+
+  /**
+   * Read the attributes of a virtual directory using a new path instance
+   * each time, so that the result memoized on the path cannot be reused.
+   *
+   * @return The attributes of a virtual directory
+   *
+   * @throws IOException On errors
+   */
+
+  @Benchmark
+  public BasicFileAttributes readVirtualNewPath()
+    throws IOException
+  {
+    return Files.readAttributes(
+      this.virtualDirectory.getParent()
+        .resolve(this.virtualDirectory.getFileName()),
+      BasicFileAttributes.class
+    );
+  }
+
+  /**
+   * @return The attributes of a file on a mounted default filesystem
+   *
+   * @throws IOException On errors
+   */
+
+  @Benchmark
+  public BasicFileAttributes readMounted()
+    throws IOException
+  {
+    return Files.readAttributes(this.mountedFile, BasicFileAttributes.class);
+  }
+
+  /**
+   * @return The attributes of a file on the default filesystem
+   *
+   * @throws IOException On errors
+   */
+
+  @Benchmark
+  public BasicFileAttributes readMountedBaseline()
+    throws IOException
+  {
+    return Files.readAttributes(this.baselineFile, BasicFileAttributes.class);
+  }
+
+  /**
+   * @return The attributes of a file on a mounted zip filesystem
+   *
+   * @throws IOException On errors
+   */
+
+  @Benchmark
+  public BasicFileAttributes readMountedZip()
+    throws IOException
+  {
+    return Files.readAttributes(
+      this.mountedZipFile,
+      BasicFileAttributes.class
+    );
+  }
+
+  /**
+   * @return The attributes of a file on a zip filesystem
+   *
+   * @throws IOException On errors
+   */
+
+  @Benchmark
+  public BasicFileAttributes readMountedZipBaseline()
+    throws IOException
+  {
+    return Files.readAttributes(
+      this.baselineZipFile,
+      BasicFileAttributes.class
+    );
+  }
+}
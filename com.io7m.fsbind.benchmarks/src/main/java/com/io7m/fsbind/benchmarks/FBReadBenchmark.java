@@ -0,0 +1,210 @@
+/*
+ * Copyright © 2025 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.fsbind.benchmarks;
+
+import com.io7m.fsbind.core.FBFilesystem;
+import com.io7m.fsbind.core.FBMountRequest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.FileSystem;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for opening and fully reading files.
+ */
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@State(Scope.Benchmark)
+public class FBReadBenchmark
+{
+  /**
+   * The size of the file in bytes.
+   */
+
+  @Param({"1024", "1048576"})
+  public int size;
+
+  private Path directory;
+  private FileSystem zipFilesystem;
+  private FBFilesystem filesystem;
+  private ByteBuffer buffer;
+  private Path mountedFile;
+  private Path mountedZipFile;
+  private Path baselineFile;
+  private Path baselineZipFile;
+
+  /**
+   * Construct a benchmark.
+   */
+
+  public FBReadBenchmark()
+  {
+
+  }
+
+  /**
+   * Set up the benchmark.
+   *
+   * @throws IOException On errors
+   */
+
+  @Setup
+  public void setup()
+    throws IOException
+  {
+    this.directory =
+      Files.createTempDirectory("fsbind-benchmarks");
+    this.filesystem =
+      FBBenchmarks.createFilesystem(Map.of());
+    this.buffer =
+      ByteBuffer.allocateDirect(65536);
+
+    final var baselineBase =
+      this.directory.resolve("base");
+    FBBenchmarks.createFiles(baselineBase, 1, this.size);
+    this.baselineFile =
+      baselineBase.resolve("f0");
+
+    final var zipFile = this.directory.resolve("base.zip");
+    FBBenchmarks.createZip(zipFile, baselineBase);
+    this.zipFilesystem =
+      FBBenchmarks.openZip(zipFile, false);
+    this.baselineZipFile =
+      this.zipFilesystem.getPath("/", "f0");
+
+    final var mountAt =
+      this.filesystem.getPath("/", "mounted");
+    Files.createDirectories(mountAt);
+    this.filesystem.mount(new FBMountRequest(baselineBase, mountAt));
+    this.mountedFile =
+      mountAt.resolve("f0");
+
+    final var mountZipAt =
+      this.filesystem.getPath("/", "zip");
+    Files.createDirectories(mountZipAt);
+    this.filesystem.mount(
+      new FBMountRequest(this.zipFilesystem.getPath("/"), mountZipAt)
+    );
+    this.mountedZipFile =
+      mountZipAt.resolve("f0");
+  }
+
+  /**
+   * Tear down the benchmark.
+   *
+   * @throws IOException On errors
+   */
+
+  @TearDown
+  public void tearDown()
+    throws IOException
+  {
+    this.filesystem.close();
+    this.zipFilesystem.close();
+    FBBenchmarks.deleteRecursively(this.directory);
+  }
+
+  private long readFully(
+    final Path file)
+    throws IOException
+  {
+    long total = 0L;
+    try (var channel = Files.newByteChannel(file)) {
+      while (true) {
+        this.buffer.clear();
+        final var r = channel.read(this.buffer);
+        if (r == -1) {
+          return total;
+        }
+        total += r;
+      }
+    }
+  }
+
+  /**
+   * @return The number of bytes read from a mounted default filesystem file
+   *
+   * @throws IOException On errors
+   */
+
+  @Benchmark
+  public long readMounted()
+    throws IOException
+  {
+    return this.readFully(this.mountedFile);
+  }
+
+  /**
+   * @return The number of bytes read from a default filesystem file
+   *
+   * @throws IOException On errors
+   */
+
+  @Benchmark
+  public long readMountedBaseline()
+    throws IOException
+  {
+    return this.readFully(this.baselineFile);
+  }
+
+  /**
+   * @return The number of bytes read from a mounted zip file
+   *
+   * @throws IOException On errors
+   */
+
+  @Benchmark
+  public long readMountedZip()
+    throws IOException
+  {
+    return this.readFully(this.mountedZipFile);
+  }
+
+  /**
+   * @return The number of bytes read from a zip file
+   *
+   * @throws IOException On errors
+   */
+
+  @Benchmark
+  public long readMountedZipBaseline()
+    throws IOException
+  {
+    return this.readFully(this.baselineZipFile);
+  }
+}
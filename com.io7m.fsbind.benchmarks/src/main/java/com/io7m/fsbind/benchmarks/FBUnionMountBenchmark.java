@@ -0,0 +1,247 @@
+/*
+ * Copyright © 2025 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.fsbind.benchmarks;
+
+import com.io7m.fsbind.core.FBFilesystem;
+import com.io7m.fsbind.core.FBMountMode;
+import com.io7m.fsbind.core.FBMountRequest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.file.FileSystem;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for resolving and listing paths inside union mounts of zip
+ * files, compared to probing each zip file in turn.
+ */
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@State(Scope.Benchmark)
+public class FBUnionMountBenchmark
+{
+  /**
+   * The number of layers in the union mount.
+   */
+
+  @Param({"1", "8", "32"})
+  public int layers;
+
+  private Path directory;
+  private FBFilesystem filesystem;
+  private List<FileSystem> zipFilesystems;
+  private List<Path> baselineLayers;
+  private Path unionTop;
+  private Path unionBottom;
+  private Path unionMissing;
+  private Path unionDirectory;
+
+  /**
+   * Construct a benchmark.
+   */
+
+  public FBUnionMountBenchmark()
+  {
+
+  }
+
+  /**
+   * Set up the benchmark.
+   *
+   * @throws IOException On errors
+   */
+
+  @Setup
+  public void setup()
+    throws IOException
+  {
+    this.directory =
+      Files.createTempDirectory("fsbind-benchmarks");
+    this.filesystem =
+      FBBenchmarks.createFilesystem(Map.of());
+    this.zipFilesystems =
+      new ArrayList<>();
+    this.baselineLayers =
+      new ArrayList<>();
+
+    final var mountAt = this.filesystem.getPath("/", "mods");
+    Files.createDirectories(mountAt);
+
+    for (int index = 0; index < this.layers; ++index) {
+      final var layerDirectory = this.directory.resolve("layer" + index);
+      FBBenchmarks.createFiles(layerDirectory.resolve("data"), 100, 16);
+      if (index == 0) {
+        Files.writeString(layerDirectory.resolve("data/bottom"), "x");
+      }
+
+      final var zipFile = this.directory.resolve("layer" + index + ".zip");
+      FBBenchmarks.createZip(zipFile, layerDirectory);
+
+      final var zipfs = FBBenchmarks.openZip(zipFile, false);
+      this.zipFilesystems.add(zipfs);
+      this.baselineLayers.addFirst(zipfs.getPath("/"));
+      this.filesystem.mount(
+        new FBMountRequest(
+          zipfs.getPath("/"),
+          mountAt,
+          FBMountMode.UNION,
+          index
+        )
+      );
+    }
+
+    this.unionDirectory =
+      mountAt.resolve("data");
+    this.unionTop =
+      this.unionDirectory.resolve("f50");
+    this.unionBottom =
+      this.unionDirectory.resolve("bottom");
+    this.unionMissing =
+      this.unionDirectory.resolve("missing");
+  }
+
+  /**
+   * Tear down the benchmark.
+   *
+   * @throws IOException On errors
+   */
+
+  @TearDown
+  public void tearDown()
+    throws IOException
+  {
+    this.filesystem.close();
+    for (final var zipfs : this.zipFilesystems) {
+      zipfs.close();
+    }
+    FBBenchmarks.deleteRecursively(this.directory);
+  }
+
+  private boolean probeLayers(
+    final String name)
+  {
+    for (final var layer : this.baselineLayers) {
+      if (Files.exists(layer.resolve("data").resolve(name))) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Check the existence of a file provided by the highest priority layer.
+   *
+   * @return The result
+   */
+
+  @Benchmark
+  public boolean existsTop()
+  {
+    return Files.exists(this.unionTop);
+  }
+
+  /**
+   * Check the existence of a file provided only by the lowest priority layer.
+   *
+   * @return The result
+   */
+
+  @Benchmark
+  public boolean existsBottom()
+  {
+    return Files.exists(this.unionBottom);
+  }
+
+  /**
+   * Check the existence of a file that no layer provides.
+   *
+   * @return The result
+   */
+
+  @Benchmark
+  public boolean existsMissing()
+  {
+    return Files.exists(this.unionMissing);
+  }
+
+  /**
+   * Probe each zip file in turn for a file provided only by the lowest
+   * priority layer.
+   *
+   * @return The result
+   */
+
+  @Benchmark
+  public boolean existsBottomBaseline()
+  {
+    return this.probeLayers("bottom");
+  }
+
+  /**
+   * Probe each zip file in turn for a file that no layer provides.
+   *
+   * @return The result
+   */
+
+  @Benchmark
+  public boolean existsMissingBaseline()
+  {
+    return this.probeLayers("missing");
+  }
+
+  /**
+   * List a directory merged from every layer.
+   *
+   * @param blackhole The blackhole
+   *
+   * @throws IOException On errors
+   */
+
+  @Benchmark
+  public void listUnion(
+    final Blackhole blackhole)
+    throws IOException
+  {
+    try (var stream = Files.newDirectoryStream(this.unionDirectory)) {
+      for (final var path : stream) {
+        blackhole.consume(path);
+      }
+    }
+  }
+}
@@ -15,18 +15,14 @@
  */
 
 
-package com.io7m.fsbind.core.internal;
-
 /**
- * An edge between two nodes in the filesystem.
- *
- * @param parent The parent node
- * @param child  The child node
+ * Binding filesystem (Benchmarks)
  */
 
-public record FBEdge(
-  FBFSObjectType parent,
-  FBFSObjectType child)
+open module com.io7m.fsbind.benchmarks
 {
+  requires com.io7m.fsbind.core;
+  requires jmh.core;
 
+  exports com.io7m.fsbind.benchmarks;
 }
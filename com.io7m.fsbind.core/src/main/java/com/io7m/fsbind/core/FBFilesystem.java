@@ -21,6 +21,7 @@ import java.io.IOException;
 import java.nio.file.FileSystem;
 import java.nio.file.Path;
 import java.util.List;
+import java.util.Optional;
 
 /**
  * The {@code fsbind} filesystem.
@@ -35,6 +36,19 @@ public abstract class FBFilesystem
 
   public abstract List<FBMountedFilesystem> mountedFilesystems();
 
+  /**
+   * @return The current statistics for the resolved-path cache
+   */
+
+  public abstract FBLookupCacheStatistics lookupCacheStatistics();
+
+  /**
+   * @return The current statistics for the scheduler that polls watched
+   * paths
+   */
+
+  public abstract FBWatchStatistics watchStatistics();
+
   /**
    * Perform a mount request.
    *
@@ -48,7 +62,8 @@ public abstract class FBFilesystem
     throws IOException;
 
   /**
-   * Unmount a mounted filesystem.
+   * Unmount the mount at the given path. If the mount has several layers,
+   * all of them are unmounted.
    *
    * @param path The path
    *
@@ -58,4 +73,72 @@ public abstract class FBFilesystem
   public abstract void unmount(
     Path path)
     throws IOException;
+
+  /**
+   * Unmount a single mounted filesystem. If the filesystem is one of several
+   * layers of a {@link FBMountMode#UNION} mount, the other layers remain
+   * mounted.
+   *
+   * @param mounted The mounted filesystem
+   *
+   * @throws IOException On errors
+   *
+   * @see #mountedFilesystems()
+   */
+
+  public abstract void unmount(
+    FBMountedFilesystem mounted)
+    throws IOException;
+
+  /**
+   * Freeze the filesystem. The directory tree and the set of mounted
+   * filesystems of a frozen filesystem cannot be changed: creating, deleting,
+   * or moving directories, and mounting or unmounting filesystems, will fail
+   * with {@link java.nio.file.ReadOnlyFileSystemException}. In exchange,
+   * lookups, listings, and attribute reads of virtual directories in a
+   * frozen filesystem do not take the tree lock or copy the tree, and read
+   * the structure of the tree (the names, parents, and children of
+   * directories, and the generation that validates cached lookups) without
+   * volatile reads. Bookkeeping outside the tree, such as the statistics of
+   * the lookup cache and the check that the filesystem is open, is not
+   * affected. Freezing a frozen filesystem has no effect.
+   */
+
+  public abstract void freeze();
+
+  /**
+   * @return {@code true} if {@link #freeze()} has been called
+   */
+
+  public abstract boolean isFrozen();
+
+  /**
+   * List a page of the entries of a directory. At most {@code limit}
+   * entries are returned, in path order, beginning with the first entry
+   * whose name orders strictly after {@code after}, or with the first entry
+   * of the directory if {@code after} is empty. Names are compared
+   * case-insensitively, and names that are equal ignoring case are then
+   * compared case-sensitively, so that directories inside mounted
+   * filesystems that contain names differing only in case are paged
+   * without skipping or repeating entries. Passing the name of the last
+   * entry of a page as {@code after} yields the next page. Entries of mounted
+   * filesystems whose names are not valid fsbind path components are not
+   * listed. For virtual directories, the cost of
+   * listing a page is proportional to the size of the page; for directories
+   * inside mounted filesystems, the whole directory is read.
+   *
+   * @param directory The directory
+   * @param after     The name after which to start, if any
+   * @param limit     The maximum number of entries
+   *
+   * @return The page of entries
+   *
+   * @throws IOException On errors
+   */
+
+  public abstract List<Path> listPage(
+    Path directory,
+    Optional<String> after,
+    int limit)
+    throws IOException;
 }
@@ -47,6 +47,7 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * The {@code fsbind} filesystem provider.
@@ -61,13 +62,36 @@ public final class FBFilesystemProvider
   private static final String WATCH_SERVICE_DURATION =
     "fsbind.WatchServiceDuration";
 
+  private static final String LOOKUP_CACHE_SIZE =
+    "fsbind.LookupCacheSize";
+
+  private static final String NEGATIVE_LOOKUP_CACHE_SIZE =
+    "fsbind.NegativeLookupCacheSize";
+
+  private static final String NEGATIVE_LOOKUP_CACHE_DURATION =
+    "fsbind.NegativeLookupCacheDuration";
+
+  private static final String MOUNT_LOOKUP_MODE =
+    "fsbind.MountLookupMode";
+
+  private static final String DIRECTORY_LISTING_SORTED =
+    "fsbind.DirectoryListingSorted";
+
+  private static final String WATCH_SERVICE_NATIVE =
+    "fsbind.WatchServiceNative";
+
   private static final Map<String, Object> DEFAULT_ENVIRONMENT =
     Map.ofEntries(
-      Map.entry(WATCH_SERVICE_DURATION, Duration.ofSeconds(5L))
+      Map.entry(WATCH_SERVICE_DURATION, Duration.ofSeconds(5L)),
+      Map.entry(LOOKUP_CACHE_SIZE, Integer.valueOf(8192)),
+      Map.entry(NEGATIVE_LOOKUP_CACHE_SIZE, Integer.valueOf(0)),
+      Map.entry(NEGATIVE_LOOKUP_CACHE_DURATION, Duration.ofSeconds(1L)),
+      Map.entry(MOUNT_LOOKUP_MODE, FBMountLookupMode.CHECK_EVERY_COMPONENT),
+      Map.entry(DIRECTORY_LISTING_SORTED, Boolean.TRUE),
+      Map.entry(WATCH_SERVICE_NATIVE, Boolean.TRUE)
     );
 
-  private final Object filesystemsLock;
-  private final HashMap<String, FBFS> filesystems;
+  private final ConcurrentHashMap<String, FBFS> filesystems;
 
   /**
    * The {@code fsbind} filesystem provider.
@@ -75,8 +99,7 @@ public final class FBFilesystemProvider
 
   public FBFilesystemProvider()
   {
-    this.filesystems = new HashMap<>();
-    this.filesystemsLock = new Object();
+    this.filesystems = new ConcurrentHashMap<>();
   }
 
   /**
@@ -97,6 +120,86 @@ public final class FBFilesystemProvider
     return WATCH_SERVICE_DURATION;
   }
 
+  /**
+   * The key used to specify the maximum number of resolved paths that will
+   * be cached by a filesystem. A value of {@code 0} disables the cache.
+   *
+   * @return {@code "fsbind.LookupCacheSize"}
+   */
+
+  public static String environmentLookupCacheSizeKey()
+  {
+    return LOOKUP_CACHE_SIZE;
+  }
+
+  /**
+   * The key used to specify the maximum number of missing paths inside
+   * mounted filesystems that will be remembered by a filesystem. A value of
+   * {@code 0} (the default) disables the cache.
+   *
+   * @return {@code "fsbind.NegativeLookupCacheSize"}
+   */
+
+  public static String environmentNegativeLookupCacheSizeKey()
+  {
+    return NEGATIVE_LOOKUP_CACHE_SIZE;
+  }
+
+  /**
+   * The key used to specify the length of time that a missing path inside a
+   * mounted filesystem will be remembered.
+   *
+   * @return {@code "fsbind.NegativeLookupCacheDuration"}
+   */
+
+  public static String environmentNegativeLookupCacheDurationKey()
+  {
+    return NEGATIVE_LOOKUP_CACHE_DURATION;
+  }
+
+  /**
+   * The key used to specify the {@link FBMountLookupMode} used when
+   * resolving paths inside mounted filesystems.
+   *
+   * @return {@code "fsbind.MountLookupMode"}
+   */
+
+  public static String environmentMountLookupModeKey()
+  {
+    return MOUNT_LOOKUP_MODE;
+  }
+
+  /**
+   * The key used to specify whether listings of virtual directories are
+   * returned in path order. A value of {@code false} returns entries in an
+   * unspecified order, avoiding the cost of sorting large directories.
+   * Listings of mounted filesystems are always in the order provided by
+   * the mounted filesystem.
+   *
+   * @return {@code "fsbind.DirectoryListingSorted"}
+   */
+
+  public static String environmentDirectoryListingSortedKey()
+  {
+    return DIRECTORY_LISTING_SORTED;
+  }
+
+  /**
+   * The key used to specify whether watch services should use the watch
+   * service of the default filesystem for paths inside mounts of the default
+   * filesystem. Events are then delivered as soon as the underlying
+   * filesystem reports them, rather than on the next poll. Paths that cannot
+   * be watched this way (such as paths inside mounts of other filesystems,
+   * union mounts, and virtual directories) continue to be polled.
+   *
+   * @return {@code "fsbind.WatchServiceNative"}
+   */
+
+  public static String environmentWatchServiceNativeKey()
+  {
+    return WATCH_SERVICE_NATIVE;
+  }
+
   private static FBFilesystemURI filesystemURIOf(
     final URI uri)
   {
@@ -115,7 +218,7 @@ public final class FBFilesystemProvider
     final var name =
       scheme.substring(0, nameColon);
     final var rest =
-      scheme.substring(nameColon);
+      scheme.substring(nameColon + 1);
 
     return new FBFilesystemURI(
       "fsbind",
@@ -158,6 +261,22 @@ public final class FBFilesystemProvider
     );
   }
 
+  private FBFS createFilesystem(
+    final String name,
+    final Map<String, ?> env)
+  {
+    final var newFs = new FBFS(this, name, env);
+
+    /*
+     * Remove the filesystem only if it is still the registered instance;
+     * a filesystem of the same name may have been created since.
+     */
+
+    newFs.setOnClose(() -> this.filesystems.remove(name, newFs));
+    LOG.trace("CreateFilesystem: {}", name);
+    return newFs;
+  }
+
   private FBFilesystem filesystemOf(
     final URI uri,
     final boolean create,
@@ -167,28 +286,39 @@ public final class FBFilesystemProvider
     Objects.requireNonNull(env, "env");
 
     final var fsuri = filesystemURIOf(uri);
-    final var actualEnv = new HashMap<>(environmentDefault());
-    actualEnv.putAll(env);
-
-    synchronized (this.filesystemsLock) {
+    while (true) {
       final var existing = this.filesystems.get(fsuri.name);
       if (existing != null) {
-        return existing;
+        if (existing.isOpen()) {
+          return existing;
+        }
+
+        /*
+         * The filesystem has been closed but its close callback has not
+         * yet removed it from the registry. Remove it here (only if it is
+         * still the registered instance) and try again.
+         */
+
+        this.filesystems.remove(fsuri.name, existing);
+        continue;
       }
 
-      if (create) {
-        final var newFs = new FBFS(this, fsuri.name, actualEnv);
-        newFs.setOnClose(() -> {
-          synchronized (this.filesystemsLock) {
-            this.filesystems.remove(fsuri.name);
-          }
-        });
-
-        LOG.trace("CreateFilesystem: {}", fsuri.name);
-        this.filesystems.put(fsuri.name, newFs);
-        return newFs;
+      if (!create) {
+        throw new FileSystemNotFoundException(uri.toString());
+      }
+
+      final var actualEnv = new HashMap<>(environmentDefault());
+      actualEnv.putAll(env);
+
+      final var created =
+        this.filesystems.computeIfAbsent(
+          fsuri.name,
+          name -> this.createFilesystem(name, actualEnv)
+        );
+
+      if (created.isOpen()) {
+        return created;
       }
-      throw new FileSystemNotFoundException(uri.toString());
     }
   }
 
@@ -199,11 +329,46 @@ public final class FBFilesystemProvider
     return this.filesystemOf(uri, false, Map.of());
   }
 
+  /**
+   * Obtain a path from a URI of the form {@code fsbind:<name>:<path>}, where
+   * {@code <name>} is the name of an existing filesystem and {@code <path>}
+   * is an absolute path within it.
+   *
+   * @param uri The URI
+   *
+   * @return The path
+   *
+   * @throws FileSystemNotFoundException If no filesystem has the given name
+   * @throws IllegalArgumentException    If the URI is not a valid fsbind URI
+   */
+
   @Override
   public Path getPath(
     final URI uri)
   {
-    throw new UnsupportedOperationException();
+    Objects.requireNonNull(uri, "uri");
+
+    if (!this.getScheme().equalsIgnoreCase(uri.getScheme())) {
+      throw new IllegalArgumentException(
+        "URI '%s' does not have the scheme '%s'"
+          .formatted(uri, this.getScheme())
+      );
+    }
+
+    final var fsuri = filesystemURIOf(uri);
+    final var filesystem = this.filesystems.get(fsuri.name);
+    if (filesystem == null) {
+      throw new FileSystemNotFoundException(uri.toString());
+    }
+
+    final var path = filesystem.getPath(fsuri.path);
+    if (!path.isAbsolute()) {
+      throw new IllegalArgumentException(
+        "fsbind URI '%s' must contain an absolute path"
+          .formatted(uri)
+      );
+    }
+    return path;
   }
 
   @Override
@@ -304,7 +469,7 @@ public final class FBFilesystemProvider
     final Path path,
     final Path path2)
   {
-    return path.compareTo(path2) == 0;
+    return Objects.equals(path, path2);
   }
 
   @Override
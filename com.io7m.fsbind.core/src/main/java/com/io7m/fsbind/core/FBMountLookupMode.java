@@ -0,0 +1,44 @@
+/*
+ * Copyright © 2025 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.fsbind.core;
+
+/**
+ * The manner in which paths inside mounted filesystems are checked for
+ * existence during path resolution.
+ */
+
+public enum FBMountLookupMode
+{
+  /**
+   * Every component of a path inside a mounted filesystem is checked for
+   * existence. Resolving {@code /mnt/a/b/c} where {@code /mnt} is a mount
+   * point will check {@code a}, {@code a/b}, and {@code a/b/c}.
+   */
+
+  CHECK_EVERY_COMPONENT,
+
+  /**
+   * Only the final component of a path inside a mounted filesystem is
+   * checked for existence. Resolving {@code /mnt/a/b/c} where {@code /mnt}
+   * is a mount point will check only {@code a/b/c}, and relies on the
+   * underlying filesystem to report that {@code a/b/c} does not exist if
+   * any of the intermediate directories do not exist.
+   */
+
+  CHECK_LEAF_ONLY
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright © 2025 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.fsbind.core;
+
+/**
+ * The manner in which a mounted filesystem is combined with whatever is
+ * already present at the mount point.
+ */
+
+public enum FBMountMode
+{
+  /**
+   * The mounted filesystem replaces whatever is present at the mount point,
+   * including any existing mount. The replaced object becomes visible again
+   * when the filesystem is unmounted.
+   */
+
+  REPLACE,
+
+  /**
+   * The mounted filesystem is added as a layer to the mount at the mount
+   * point, if there is one, and otherwise behaves as {@link #REPLACE}.
+   * Paths inside a mount with several layers are resolved against the
+   * layers in descending priority order, and the first layer that contains
+   * a path provides it. Layers with equal priorities are searched in the
+   * order in which they were mounted. Listings of directories inside the
+   * mount contain the entries of the directory in every layer.
+   */
+
+  UNION
+}
@@ -25,25 +25,42 @@ import java.util.Objects;
 /**
  * A request to mount a path within a filesystem into a given fsbind filesystem.
  *
+ * If {@code indexOnMount} is {@code true}, the entire mounted directory tree
+ * is walked when the filesystem is mounted, and the names, types, sizes, and
+ * times of every file and directory are held in memory. Lookups, existence
+ * checks, attribute reads, and listings under the mount are then answered
+ * from memory, on the assumption that the content of the mounted filesystem
+ * does not change while it is mounted.
+ *
  * @param mountPathWithinFilesystem The path and external filesystem to mount
  * @param mountAt                   The location at which the filesystem will be mounted
+ * @param mode                      The manner in which the filesystem is combined with any existing mount
+ * @param priority                  The priority of the filesystem within a {@link FBMountMode#UNION} mount
+ * @param indexOnMount              {@code true} if the filesystem should be indexed when mounted
  */
 
 public record FBMountRequest(
   Path mountPathWithinFilesystem,
-  Path mountAt)
+  Path mountAt,
+  FBMountMode mode,
+  int priority,
+  boolean indexOnMount)
 {
   /**
    * A request to mount a path within a filesystem into a given fsbind filesystem.
    *
    * @param mountPathWithinFilesystem The path and external filesystem to mount
    * @param mountAt                   The location at which the filesystem will be mounted
+   * @param mode                      The manner in which the filesystem is combined with any existing mount
+   * @param priority                  The priority of the filesystem within a {@link FBMountMode#UNION} mount
+   * @param indexOnMount              {@code true} if the filesystem should be indexed when mounted
    */
 
   public FBMountRequest
   {
     Objects.requireNonNull(mountPathWithinFilesystem, "pathWithinFilesystem");
     Objects.requireNonNull(mountAt, "mountAt");
+    Objects.requireNonNull(mode, "mode");
 
     Preconditions.checkPreconditionV(
       mountPathWithinFilesystem.isAbsolute(),
@@ -66,4 +83,38 @@ public record FBMountRequest(
       "A filesystem cannot be mounted in itself."
     );
   }
+
+  /**
+   * A request to mount a path within a filesystem into a given fsbind
+   * filesystem, without indexing.
+   *
+   * @param mountPathWithinFilesystem The path and external filesystem to mount
+   * @param mountAt                   The location at which the filesystem will be mounted
+   * @param mode                      The manner in which the filesystem is combined with any existing mount
+   * @param priority                  The priority of the filesystem within a {@link FBMountMode#UNION} mount
+   */
+
+  public FBMountRequest(
+    final Path mountPathWithinFilesystem,
+    final Path mountAt,
+    final FBMountMode mode,
+    final int priority)
+  {
+    this(mountPathWithinFilesystem, mountAt, mode, priority, false);
+  }
+
+  /**
+   * A request to mount a path within a filesystem into a given fsbind
+   * filesystem, replacing whatever is present at the mount point.
+   *
+   * @param mountPathWithinFilesystem The path and external filesystem to mount
+   * @param mountAt                   The location at which the filesystem will be mounted
+   */
+
+  public FBMountRequest(
+    final Path mountPathWithinFilesystem,
+    final Path mountAt)
+  {
+    this(mountPathWithinFilesystem, mountAt, FBMountMode.REPLACE, 0, false);
+  }
 }
@@ -25,17 +25,20 @@ import java.util.Objects;
  *
  * @param mountPoint             The position at which the filesystem is mounted
  * @param externalFilesystemBase The base directory of the external filesystem
+ * @param priority               The priority of the filesystem within its mount
  */
 
 public record FBMountedFilesystem(
   Path mountPoint,
-  Path externalFilesystemBase)
+  Path externalFilesystemBase,
+  int priority)
 {
   /**
    * A mounted filesystem.
    *
    * @param mountPoint             The position at which the filesystem is mounted
    * @param externalFilesystemBase The base directory of the external filesystem
+   * @param priority               The priority of the filesystem within its mount
    */
 
   public FBMountedFilesystem
@@ -43,4 +46,18 @@ public record FBMountedFilesystem(
     Objects.requireNonNull(mountPoint, "mountPoint");
     Objects.requireNonNull(externalFilesystemBase, "externalFilesystemBase");
   }
+
+  /**
+   * A mounted filesystem with the default priority {@code 0}.
+   *
+   * @param mountPoint             The position at which the filesystem is mounted
+   * @param externalFilesystemBase The base directory of the external filesystem
+   */
+
+  public FBMountedFilesystem(
+    final Path mountPoint,
+    final Path externalFilesystemBase)
+  {
+    this(mountPoint, externalFilesystemBase, 0);
+  }
 }
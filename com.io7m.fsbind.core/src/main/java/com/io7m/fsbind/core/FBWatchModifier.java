@@ -0,0 +1,48 @@
+/*
+ * Copyright © 2025 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.fsbind.core;
+
+import java.nio.file.WatchEvent;
+
+/**
+ * Modifiers that may be supplied when registering a path with a watch
+ * service of an {@code fsbind} filesystem.
+ *
+ * @see java.nio.file.Path#register(java.nio.file.WatchService,
+ * WatchEvent.Kind[], WatchEvent.Modifier...)
+ */
+
+public enum FBWatchModifier implements WatchEvent.Modifier
+{
+  /**
+   * Watch the entire tree of files and directories below a directory. A
+   * single scanner compares the directories of the tree with those of the
+   * previous poll, following directories as they are created and deleted.
+   * The context of each event is the path of the affected entry relative
+   * to the registered directory.
+   *
+   * Unless {@link java.nio.file.StandardWatchEventKinds#ENTRY_MODIFY} is
+   * being watched, a poll reads the attributes of every directory of the
+   * tree, but lists only the directories whose modification time or size
+   * has changed since the previous poll. Modifying a file does not change
+   * its directory, and so watching for modifications lists every directory
+   * and reads the attributes of every entry on every poll.
+   */
+
+  FILE_TREE
+}
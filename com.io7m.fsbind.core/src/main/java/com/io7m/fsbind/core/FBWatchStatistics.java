@@ -0,0 +1,51 @@
+/*
+ * Copyright © 2025 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.fsbind.core;
+
+import java.time.Duration;
+
+/**
+ * Statistics for the scheduler that polls the watched paths of a
+ * filesystem. The polling interval is divided into ticks, and a share of
+ * the polled paths is checked on each tick.
+ *
+ * @param keys             The number of polled watch keys currently scheduled
+ * @param slots            The number of ticks in each polling interval
+ * @param tickPeriod       The time between ticks
+ * @param ticks            The number of ticks executed
+ * @param overruns         The number of ticks that took longer than the
+ *                         time between ticks
+ * @param checks           The total number of checks of watched paths
+ * @param events           The total number of events published by checks
+ * @param lastTickChecks   The number of paths checked on the most recent tick
+ * @param lastTickDuration The time taken by the most recent tick
+ */
+
+public record FBWatchStatistics(
+  int keys,
+  int slots,
+  Duration tickPeriod,
+  long ticks,
+  long overruns,
+  long checks,
+  long events,
+  int lastTickChecks,
+  Duration lastTickDuration)
+{
+
+}
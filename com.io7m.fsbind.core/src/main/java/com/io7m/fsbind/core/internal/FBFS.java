@@ -19,8 +19,12 @@ package com.io7m.fsbind.core.internal;
 
 import com.io7m.fsbind.core.FBFilesystem;
 import com.io7m.fsbind.core.FBFilesystemProvider;
+import com.io7m.fsbind.core.FBLookupCacheStatistics;
+import com.io7m.fsbind.core.FBMountLookupMode;
+import com.io7m.fsbind.core.FBMountMode;
 import com.io7m.fsbind.core.FBMountRequest;
 import com.io7m.fsbind.core.FBMountedFilesystem;
+import com.io7m.fsbind.core.FBWatchStatistics;
 import com.io7m.jaffirm.core.Preconditions;
 import com.io7m.jmulticlose.core.CloseableCollection;
 import com.io7m.jmulticlose.core.CloseableCollectionType;
@@ -43,13 +47,18 @@ import java.nio.file.DirectoryStream;
 import java.nio.file.FileAlreadyExistsException;
 import java.nio.file.FileStore;
 import java.nio.file.FileSystemException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
 import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.NotDirectoryException;
 import java.nio.file.OpenOption;
 import java.nio.file.Path;
 import java.nio.file.PathMatcher;
 import java.nio.file.ProviderMismatchException;
 import java.nio.file.ReadOnlyFileSystemException;
+import java.nio.file.SimpleFileVisitor;
 import java.nio.file.WatchService;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.nio.file.attribute.FileAttribute;
@@ -58,7 +67,7 @@ import java.nio.file.attribute.UserPrincipalLookupService;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -83,6 +92,8 @@ public final class FBFS
     "The target path is a directory";
   private static final String NOT_A_FILESYSTEM_MOUNT =
     "Not a filesystem mount.";
+  private static final String MOUNT_INSIDE_MOUNT =
+    "Cannot mount a filesystem inside a mounted filesystem.";
 
   private final FBFilesystemProvider provider;
   private final String name;
@@ -92,6 +103,11 @@ public final class FBFS
   private final FBFSTree tree;
   private final FBFSPathAbsolute rootPath;
   private final Map<String, ?> environment;
+  private final FBLookupCache lookupCache;
+  private final FBNegativeLookupCache negativeLookupCache;
+  private final FBMountLookupMode mountLookupMode;
+  private final boolean listingSorted;
+  private final FBFSWatchScheduler watchScheduler;
 
   /**
    * The {@code fsbind} filesystem.
@@ -115,16 +131,11 @@ public final class FBFS
 
     final var rootNode =
       new FBFSObjectVirtualDirectory(
-        new FBVirtualDirectoryAttributes(),
+        new FBVirtualDirectoryAttributes(FileTime.from(Instant.now())),
         "/",
         Optional.empty()
       );
 
-    final var now = FileTime.from(Instant.now());
-    rootNode.attributes().setCreationTime(now);
-    rootNode.attributes().setLastAccessTime(now);
-    rootNode.attributes().setLastModifiedTime(now);
-
     this.tree =
       FBFSTree.createWithRoot(rootNode);
     this.environment =
@@ -135,6 +146,45 @@ public final class FBFS
       new FBFSPathAbsolute(this, List.of(FBFS_SEPARATOR));
     this.resources =
       CloseableCollection.create();
+    this.lookupCache =
+      new FBLookupCache(
+        this.tree,
+        (Integer) this.environment.get(
+          FBFilesystemProvider.environmentLookupCacheSizeKey()
+        )
+      );
+    this.negativeLookupCache =
+      new FBNegativeLookupCache(
+        (Integer) this.environment.get(
+          FBFilesystemProvider.environmentNegativeLookupCacheSizeKey()
+        ),
+        (Duration) this.environment.get(
+          FBFilesystemProvider.environmentNegativeLookupCacheDurationKey()
+        )
+      );
+    this.mountLookupMode =
+      (FBMountLookupMode) this.environment.get(
+        FBFilesystemProvider.environmentMountLookupModeKey()
+      );
+    this.listingSorted =
+      ((Boolean) this.environment.get(
+        FBFilesystemProvider.environmentDirectoryListingSortedKey()
+      )).booleanValue();
+
+    /*
+     * Polling is dominated by waiting on I/O, so a small number of workers
+     * is sufficient regardless of the number of watched paths.
+     */
+
+    this.watchScheduler =
+      this.resources.add(
+        new FBFSWatchScheduler(
+          (Duration) this.environment.get(
+            FBFilesystemProvider.environmentWatchServiceDurationKey()
+          ),
+          Math.min(4, Runtime.getRuntime().availableProcessors())
+        )
+      );
   }
 
   @Override
@@ -211,17 +261,18 @@ public final class FBFS
   {
     this.checkNotClosed();
 
-    if (Objects.equals(first, FBFS_SEPARATOR)) {
-      final var names = new ArrayList<String>(1 + more.length);
-      names.add(first);
-      Collections.addAll(names, more);
-      return new FBFSPathAbsolute(this, names);
+    if (more.length == 0) {
+      return FBFSPathParser.parse(this, first);
     }
 
-    final var names = new ArrayList<String>(1 + more.length);
-    names.add(first);
-    Collections.addAll(names, more);
-    return new FBFSPathRelative(this, names);
+    final var names = new String[1 + more.length];
+    names[0] = first;
+    System.arraycopy(more, 0, names, 1, more.length);
+
+    if (Objects.equals(first, FBFS_SEPARATOR)) {
+      return FBFSPathAbsolute.ofNames(this, names);
+    }
+    return FBFSPathRelative.ofNames(this, names);
   }
 
   @Override
@@ -247,12 +298,154 @@ public final class FBFS
     this.checkNotClosed();
 
     return new FBFSWatchService(
-      (Duration) this.environment.get(
-        FBFilesystemProvider.environmentWatchServiceDurationKey()
-      )
+      this.watchScheduler,
+      ((Boolean) this.environment.get(
+        FBFilesystemProvider.environmentWatchServiceNativeKey()
+      )).booleanValue()
     );
   }
 
+  /**
+   * Determine the path within the default filesystem that corresponds to
+   * the given path, if the given path can be watched using the watch
+   * service of the default filesystem. The path is resolved against its
+   * parent directory so that paths that do not yet exist can be watched.
+   * Paths inside union mounts and indexed mounts are never watched this way,
+   * as the object that a name refers to is fixed when the mount is created.
+   *
+   * @param path The path
+   *
+   * @return The path within the default filesystem, if any
+   */
+
+  Optional<Path> defaultFilesystemPathOf(
+    final FBFSPathAbsolute path)
+  {
+    if (path.isRoot() || !this.isOpen()) {
+      return Optional.empty();
+    }
+
+    final FBFSObjectType parent;
+    try {
+      parent = this.lookupCache.lookup(path.getParent());
+    } catch (final IOException e) {
+      return Optional.empty();
+    }
+
+    return directoryInDefaultFilesystem(parent)
+      .map(d -> d.resolve(path.getFileName().toString()));
+  }
+
+  /**
+   * Determine the directory within the default filesystem that corresponds
+   * to the given directory, if the given directory can be watched using the
+   * watch service of the default filesystem.
+   *
+   * @param path The directory
+   *
+   * @return The directory within the default filesystem, if any
+   */
+
+  Optional<Path> defaultFilesystemDirectoryOf(
+    final FBFSPathAbsolute path)
+  {
+    if (!this.isOpen()) {
+      return Optional.empty();
+    }
+
+    try {
+      return directoryInDefaultFilesystem(this.lookupCache.lookup(path));
+    } catch (final IOException e) {
+      return Optional.empty();
+    }
+  }
+
+  /**
+   * Find the virtual directory at the given path, if the path refers to a
+   * virtual directory.
+   *
+   * @param path The path
+   *
+   * @return The virtual directory, if any
+   */
+
+  Optional<FBFSObjectVirtualDirectory> virtualDirectoryOf(
+    final FBFSPathAbsolute path)
+  {
+    if (!this.isOpen()) {
+      return Optional.empty();
+    }
+
+    try {
+      if (this.lookupCache.lookup(path)
+        instanceof final FBFSObjectVirtualDirectory directory) {
+        return Optional.of(directory);
+      }
+    } catch (final IOException e) {
+      // Not a virtual directory.
+    }
+    return Optional.empty();
+  }
+
+  /**
+   * Find the layers of the mount through which the given path is resolved,
+   * if the path refers to a mount point or to an object inside a mount.
+   *
+   * @param path The path
+   *
+   * @return The layers of the mount, if any
+   */
+
+  Optional<FBMountLayers> mountLayersOf(
+    final FBFSPathAbsolute path)
+  {
+    if (!this.isOpen()) {
+      return Optional.empty();
+    }
+
+    try {
+      return switch (this.lookupCache.lookup(path)) {
+        case final FBFSObjectMount mount -> Optional.of(mount.layers());
+        case final FBFSObjectReal real -> Optional.of(real.layers());
+        case final FBFSObjectVirtualDirectory ignored -> Optional.empty();
+      };
+    } catch (final IOException e) {
+      return Optional.empty();
+    }
+  }
+
+  private static Optional<Path> directoryInDefaultFilesystem(
+    final FBFSObjectType object)
+  {
+    final Optional<Path> directory = switch (object) {
+      case final FBFSObjectMount mount -> {
+        yield directoryOfLayers(mount.layers());
+      }
+      case final FBFSObjectReal real -> {
+        if (real.indexed().isPresent()) {
+          yield Optional.empty();
+        }
+        yield directoryOfLayers(real.layers()).map(x -> real.path());
+      }
+      case final FBFSObjectVirtualDirectory ignored -> {
+        yield Optional.empty();
+      }
+    };
+
+    return directory
+      .filter(d -> d.getFileSystem() == FileSystems.getDefault());
+  }
+
+  private static Optional<Path> directoryOfLayers(
+    final FBMountLayers layers)
+  {
+    final var first = layers.first();
+    if (layers.isUnion() || first.index().isPresent()) {
+      return Optional.empty();
+    }
+    return Optional.of(first.basePath());
+  }
+
   /**
    * Set the operation to be executed when this filesystem is closed.
    *
@@ -284,19 +477,363 @@ public final class FBFS
     this.checkNotClosed();
     this.checkPathBelongs(path);
 
-    return switch (new FBLookup(path).lookup()) {
+    return switch (this.lookupCache.lookup(path)) {
       case final FBFSObjectMount mount -> {
-        yield Files.newDirectoryStream(mount.mount().basePath(), filter);
+        final var names = knownNamesOf(path, mount);
+        if (names.isPresent()) {
+          yield new FBFSDirectoryStream(path, names.get(), filter);
+        }
+        yield new FBFSMountedDirectoryStream(
+          path,
+          Files.newDirectoryStream(mount.layers().first().basePath()),
+          filter
+        );
       }
       case final FBFSObjectReal real -> {
-        yield Files.newDirectoryStream(real.path(), filter);
+        final var names = knownNamesOf(path, real);
+        if (names.isPresent()) {
+          yield new FBFSDirectoryStream(path, names.get(), filter);
+        }
+        yield new FBFSMountedDirectoryStream(
+          path,
+          Files.newDirectoryStream(real.path()),
+          filter
+        );
       }
       case final FBFSObjectVirtualDirectory directory -> {
-        yield this.tree.list(path, directory, filter);
+        yield this.tree.list(path, directory, filter, this.listingSorted);
       }
     };
   }
 
+  /**
+   * Determine the names of the entries of a mount point without listing
+   * the mounted filesystem, if the mount has several layers or is indexed.
+   */
+
+  private static Optional<List<String>> knownNamesOf(
+    final FBFSPathAbsolute path,
+    final FBFSObjectMount mount)
+  {
+    final var layers = mount.layers();
+    if (layers.isUnion()) {
+      return Optional.of(mergedDirectoryOf(path, layers).names());
+    }
+    return layers.first()
+      .index()
+      .map(index -> index.root().names());
+  }
+
+  /**
+   * Determine the names of the entries of a directory inside a mount
+   * without listing the mounted filesystem, if the mount has several layers
+   * or the directory is indexed.
+   */
+
+  private static Optional<List<String>> knownNamesOf(
+    final FBFSPathAbsolute path,
+    final FBFSObjectReal real)
+    throws NotDirectoryException
+  {
+    final var layers = real.layers();
+    final var indexed = real.indexed();
+    if (!layers.isUnion()) {
+      if (indexed.isPresent() && !indexed.get().isDirectory()) {
+        throw new NotDirectoryException(path.toString());
+      }
+      return indexed.map(FBMountIndex.Entry::names);
+    }
+
+    final var isDirectory =
+      indexed.map(FBMountIndex.Entry::isDirectory)
+        .orElseGet(() -> Boolean.valueOf(Files.isDirectory(real.path())))
+        .booleanValue();
+
+    if (!isDirectory) {
+      throw new NotDirectoryException(path.toString());
+    }
+    return Optional.of(mergedDirectoryOf(path, layers).names());
+  }
+
+  /**
+   * Find the merged contents of a directory inside a mount with several
+   * layers.
+   */
+
+  private static FBMountLayers.FBMountMergedDirectory mergedDirectoryOf(
+    final FBFSPathAbsolute path,
+    final FBMountLayers layers)
+  {
+    final var components =
+      path.components();
+    final var start =
+      layers.first().mountPoint().components().size();
+
+    return layers.directory(components.subList(start, components.size()));
+  }
+
+  /**
+   * Determine the attributes of every entry of a directory using a single
+   * listing of the directory, rather than a listing followed by a request
+   * for the attributes of each entry. The attributes of entries in virtual
+   * directories and indexed mounts are held in memory. Directories in
+   * mounted filesystems are walked with a depth of one, which allows
+   * providers that return attributes along with directory entries to avoid
+   * a separate request per entry. In a union mount, the entries are those
+   * of the merged directory, and the attributes of each entry are read from
+   * the layer that provides it.
+   *
+   * @param path The directory
+   *
+   * @return The attributes of the entries, by name
+   *
+   * @throws IOException On errors
+   */
+
+  Map<String, BasicFileAttributes> listAttributes(
+    final FBFSPathAbsolute path)
+    throws IOException
+  {
+    this.checkNotClosed();
+    this.checkPathBelongs(path);
+
+    return switch (this.lookupCache.lookup(path)) {
+      case final FBFSObjectMount mount -> {
+        yield attributesInLayers(path, mount.layers());
+      }
+      case final FBFSObjectReal real -> {
+        yield attributesInLayers(path, real.layers());
+      }
+      case final FBFSObjectVirtualDirectory directory -> {
+        yield this.tree.attributesOf(directory);
+      }
+    };
+  }
+
+  private static Map<String, BasicFileAttributes> attributesInLayers(
+    final FBFSPathAbsolute path,
+    final FBMountLayers layers)
+    throws IOException
+  {
+    final var components =
+      path.components();
+    final var relative =
+      components.subList(
+        layers.first().mountPoint().components().size(),
+        components.size()
+      );
+
+    if (!layers.isUnion()) {
+      return attributesInLayer(path, layers.first(), relative);
+    }
+
+    /*
+     * The path is known to exist, so a merged directory that is not
+     * visible in any layer is not a directory.
+     */
+
+    final var merged = layers.directory(relative);
+    if (merged.layers().isEmpty()) {
+      throw new NotDirectoryException(path.toString());
+    }
+
+    final var owners =
+      merged.owners();
+    final var results =
+      HashMap.<String, BasicFileAttributes>newHashMap(owners.size());
+
+    for (final var layer : merged.layers()) {
+      if (!owners.containsValue(layer)) {
+        continue;
+      }
+
+      final var provided = attributesInLayer(path, layer, relative);
+      for (final var entry : provided.entrySet()) {
+        if (owners.get(entry.getKey()) == layer) {
+          results.put(entry.getKey(), entry.getValue());
+        }
+      }
+    }
+    return results;
+  }
+
+  private static Map<String, BasicFileAttributes> attributesInLayer(
+    final FBFSPathAbsolute path,
+    final FBMount layer,
+    final List<String> relative)
+    throws IOException
+  {
+    final var index = layer.index();
+    if (index.isPresent()) {
+      final var entry = index.get().find(relative, 0);
+      if (entry == null) {
+        throw new NoSuchFileException(path.toString());
+      }
+      if (entry.isIndexed()) {
+        if (!entry.isDirectory()) {
+          throw new NotDirectoryException(path.toString());
+        }
+
+        final var names = entry.names();
+        final var results =
+          HashMap.<String, BasicFileAttributes>newHashMap(names.size());
+        for (final var name : names) {
+          results.put(name, entry.child(name));
+        }
+        return results;
+      }
+    }
+
+    var directory = layer.basePath();
+    for (final var name : relative) {
+      directory = directory.resolve(name);
+    }
+
+    final var results = new HashMap<String, BasicFileAttributes>();
+    attributesInDirectory(directory, results);
+    return results;
+  }
+
+  private static void attributesInDirectory(
+    final Path directory,
+    final Map<String, BasicFileAttributes> results)
+    throws IOException
+  {
+    Files.walkFileTree(directory, Set.of(), 1, new SimpleFileVisitor<>()
+    {
+      @Override
+      public FileVisitResult visitFile(
+        final Path file,
+        final BasicFileAttributes attributes)
+        throws IOException
+      {
+        if (file.equals(directory)) {
+          throw new NotDirectoryException(directory.toString());
+        }
+        results.putIfAbsent(file.getFileName().toString(), attributes);
+        return FileVisitResult.CONTINUE;
+      }
+
+      @Override
+      public FileVisitResult visitFileFailed(
+        final Path file,
+        final IOException exception)
+        throws IOException
+      {
+        if (file.equals(directory)) {
+          throw exception;
+        }
+        return FileVisitResult.CONTINUE;
+      }
+    });
+  }
+
+  /**
+   * Determine a stamp for a directory that changes whenever the set of
+   * entries in the directory changes. A directory with an unchanged stamp
+   * need not be listed again, although the attributes of its entries may
+   * have changed. The stamp of a directory in a mounted filesystem is its
+   * modification time and size, and is not produced if the directory was
+   * modified too recently for an unchanged modification time to be
+   * meaningful. The stamp of a directory in a union mount is its merged
+   * listing, and directories in indexed mounts never change. Virtual
+   * directories have no stamp, as they are listed without I/O.
+   *
+   * @param path The directory
+   *
+   * @return The stamp, if the directory has one
+   *
+   * @throws IOException On errors
+   */
+
+  Optional<Object> directoryStamp(
+    final FBFSPathAbsolute path)
+    throws IOException
+  {
+    this.checkNotClosed();
+    this.checkPathBelongs(path);
+
+    return switch (this.lookupCache.lookup(path)) {
+      case final FBFSObjectMount mount -> {
+        yield stampInLayers(path, mount.layers());
+      }
+      case final FBFSObjectReal real -> {
+        yield stampInLayers(path, real.layers());
+      }
+      case final FBFSObjectVirtualDirectory ignored -> {
+        yield Optional.empty();
+      }
+    };
+  }
+
+  private static Optional<Object> stampInLayers(
+    final FBFSPathAbsolute path,
+    final FBMountLayers layers)
+    throws IOException
+  {
+    final var components =
+      path.components();
+    final var relative =
+      components.subList(
+        layers.first().mountPoint().components().size(),
+        components.size()
+      );
+
+    if (layers.isUnion()) {
+      final var merged = layers.directory(relative);
+      if (merged.layers().isEmpty()) {
+        throw new NotDirectoryException(path.toString());
+      }
+      return Optional.of(merged.owners());
+    }
+
+    final var layer = layers.first();
+    final var index = layer.index();
+    if (index.isPresent()) {
+      final var entry = index.get().find(relative, 0);
+      if (entry != null && entry.isIndexed()) {
+        if (!entry.isDirectory()) {
+          throw new NotDirectoryException(path.toString());
+        }
+        return Optional.of(entry);
+      }
+    }
+
+    var directory = layer.basePath();
+    for (final var name : relative) {
+      directory = directory.resolve(name);
+    }
+
+    final var now = Instant.now();
+    final BasicFileAttributes attributes;
+    try {
+      attributes = Files.readAttributes(directory, BasicFileAttributes.class);
+    } catch (final NoSuchFileException e) {
+      throw noSuchFile(path, e);
+    }
+
+    if (!attributes.isDirectory()) {
+      throw new NotDirectoryException(path.toString());
+    }
+
+    final var modified =
+      attributes.lastModifiedTime();
+    final var settledBefore =
+      now.minus(FBMountLayers.SETTLE_TIME);
+
+    if (!modified.toInstant().isBefore(settledBefore)) {
+      return Optional.empty();
+    }
+    return Optional.of(new DirectoryStamp(modified, attributes.size()));
+  }
+
+  private record DirectoryStamp(
+    FileTime modified,
+    long size)
+  {
+
+  }
+
   /**
    * @param path The file
    *
@@ -320,7 +857,7 @@ public final class FBFS
       return;
     }
 
-    switch (new FBLookup(path.getParent()).lookup()) {
+    switch (this.lookupCache.lookup(path.getParent())) {
       case final FBFSObjectMount ignored -> {
         throw new ReadOnlyFileSystemException();
       }
@@ -330,16 +867,11 @@ public final class FBFS
       case final FBFSObjectVirtualDirectory parentNode -> {
         final var newNode =
           new FBFSObjectVirtualDirectory(
-            new FBVirtualDirectoryAttributes(),
+            new FBVirtualDirectoryAttributes(FileTime.from(Instant.now())),
             path.components().getLast(),
             Optional.empty()
           );
 
-        final var now = FileTime.from(Instant.now());
-        newNode.attributes().setCreationTime(now);
-        newNode.attributes().setLastAccessTime(now);
-        newNode.attributes().setLastModifiedTime(now);
-
         if (this.tree.appendIfNameFree(parentNode, newNode)) {
           if (LOG.isTraceEnabled()) {
             LOG.trace("CreatedDirectory: {}", path);
@@ -349,6 +881,40 @@ public final class FBFS
     }
   }
 
+  private static NoSuchFileException noSuchFile(
+    final FBFSPathAbsolute path,
+    final FileSystemException cause)
+  {
+    final var ex = new NoSuchFileException(path.toString());
+    ex.initCause(cause);
+    return ex;
+  }
+
+  /*
+   * Operations on real files are given the resolved path without first
+   * checking that it exists. A path with an ancestor that is not a
+   * directory ("file.txt/x") does not exist, but the delegate reports it
+   * with a platform-specific FileSystemException rather than
+   * NoSuchFileException. The parent is therefore examined only when an
+   * operation has already failed.
+   */
+
+  private static FileSystemException mapRealFailure(
+    final FBFSPathAbsolute path,
+    final FBFSObjectReal real,
+    final FileSystemException cause)
+  {
+    if (cause instanceof NoSuchFileException) {
+      return noSuchFile(path, cause);
+    }
+
+    final var parent = real.path().getParent();
+    if (parent != null && !Files.isDirectory(parent)) {
+      return noSuchFile(path, cause);
+    }
+    return cause;
+  }
+
   private void checkNotClosed()
   {
     Preconditions.checkPrecondition(
@@ -380,8 +946,7 @@ public final class FBFS
       throw new AccessDeniedException("Cannot delete the root directory");
     }
 
-    final var lookup = new FBLookup(path);
-    switch (lookup.lookup()) {
+    switch (this.lookupCache.lookup(path)) {
       case final FBFSObjectMount ignored -> {
         throw new ReadOnlyFileSystemException();
       }
@@ -432,7 +997,7 @@ public final class FBFS
     this.checkNotClosed();
     this.checkPathBelongs(path);
 
-    new FBLookup(path).lookup();
+    this.lookupCache.lookup(path);
     if (modeList.contains(AccessMode.WRITE)) {
       throw new ReadOnlyFileSystemException();
     }
@@ -442,14 +1007,154 @@ public final class FBFS
   public List<FBMountedFilesystem> mountedFilesystems()
   {
     return this.mounts.stream()
-      .map(m -> new FBMountedFilesystem(m.mountPoint(), m.basePath()))
+      .map(m -> new FBMountedFilesystem(
+        m.mountPoint(),
+        m.basePath(),
+        m.priority()
+      ))
       .toList();
   }
 
+  @Override
+  public FBLookupCacheStatistics lookupCacheStatistics()
+  {
+    return this.lookupCache.statistics();
+  }
+
+  @Override
+  public FBWatchStatistics watchStatistics()
+  {
+    return this.watchScheduler.statistics();
+  }
+
+  @Override
+  public void freeze()
+  {
+    this.checkNotClosed();
+
+    if (LOG.isTraceEnabled()) {
+      LOG.trace("Freeze");
+    }
+    this.tree.freeze();
+  }
+
+  @Override
+  public boolean isFrozen()
+  {
+    return this.tree.isFrozen();
+  }
+
+  @Override
+  public List<Path> listPage(
+    final Path directory,
+    final Optional<String> after,
+    final int limit)
+    throws IOException
+  {
+    Objects.requireNonNull(after, "after");
+
+    this.checkNotClosed();
+    if (limit < 0) {
+      throw new IllegalArgumentException(
+        "Limit %d must be non-negative.".formatted(Integer.valueOf(limit))
+      );
+    }
+
+    if (directory instanceof final FBFSPathAbsolute path) {
+      this.checkPathBelongs(path);
+      return this.opListPage(path, after, limit);
+    }
+    throw new ProviderMismatchException();
+  }
+
+  @FSOp
+  private List<Path> opListPage(
+    final FBFSPathAbsolute path,
+    final Optional<String> after,
+    final int limit)
+    throws IOException
+  {
+    return switch (this.lookupCache.lookup(path)) {
+      case final FBFSObjectMount mount -> {
+        final var names = knownNamesOf(path, mount);
+        if (names.isPresent()) {
+          yield listPageOf(path, names.get(), after, limit);
+        }
+        yield listPageOf(
+          path,
+          mount.layers().first().basePath(),
+          after,
+          limit
+        );
+      }
+      case final FBFSObjectReal real -> {
+        final var names = knownNamesOf(path, real);
+        if (names.isPresent()) {
+          yield listPageOf(path, names.get(), after, limit);
+        }
+        yield listPageOf(path, real.path(), after, limit);
+      }
+      case final FBFSObjectVirtualDirectory directory -> {
+        yield this.tree.listPage(path, directory, after, limit);
+      }
+    };
+  }
+
+  private static List<Path> listPageOf(
+    final FBFSPathAbsolute path,
+    final Path directory,
+    final Optional<String> after,
+    final int limit)
+    throws IOException
+  {
+    final var names = new ArrayList<String>();
+    try (var stream = Files.newDirectoryStream(directory)) {
+      for (final var entry : stream) {
+        names.add(entry.getFileName().toString());
+      }
+    }
+
+    names.sort(FBMountLayers.NAME_ORDER);
+    return listPageOf(path, names, after, limit);
+  }
+
+  /*
+   * Names inside mounts may differ only in case, so pages are ordered and
+   * the cursor is compared using a total order: case-insensitive, and then
+   * case-sensitive. Names that are not valid path components cannot be
+   * represented as paths and are skipped.
+   */
+
+  private static List<Path> listPageOf(
+    final FBFSPathAbsolute path,
+    final List<String> sortedNames,
+    final Optional<String> after,
+    final int limit)
+  {
+    final var paths = new ArrayList<Path>(Math.min(sortedNames.size(), limit));
+    for (final var name : sortedNames) {
+      if (paths.size() == limit) {
+        break;
+      }
+      if (after.isPresent()
+          && FBMountLayers.NAME_ORDER.compare(name, after.get()) <= 0) {
+        continue;
+      }
+
+      final var entry = path.resolveEntry(name);
+      if (entry.isPresent()) {
+        paths.add(entry.get());
+      } else {
+        LOG.debug("Skipping invalid name {} in {}", name, path);
+      }
+    }
+    return List.copyOf(paths);
+  }
+
   @Override
   public void mount(
     final FBMountRequest mount)
-    throws FileSystemException
+    throws IOException
   {
     this.checkNotClosed();
 
@@ -457,7 +1162,10 @@ public final class FBFS
       this.checkPathBelongs(mountAt);
       this.opMount(
         mount.mountPathWithinFilesystem(),
-        mountAt
+        mountAt,
+        mount.mode(),
+        mount.priority(),
+        mount.indexOnMount()
       );
     } else {
       throw new ProviderMismatchException();
@@ -479,6 +1187,92 @@ public final class FBFS
     }
   }
 
+  @Override
+  public void unmount(
+    final FBMountedFilesystem mounted)
+    throws FileSystemException
+  {
+    Objects.requireNonNull(mounted, "mounted");
+
+    this.checkNotClosed();
+
+    if (mounted.mountPoint() instanceof final FBFSPathAbsolute mountAt) {
+      this.checkPathBelongs(mountAt);
+      this.opUnmountLayer(
+        mountAt,
+        mounted.externalFilesystemBase(),
+        mounted.priority()
+      );
+    } else {
+      throw new ProviderMismatchException();
+    }
+  }
+
+  @FSOp
+  private void opUnmountLayer(
+    final FBFSPathAbsolute path,
+    final Path basePath,
+    final int priority)
+    throws FileSystemException
+  {
+    if (LOG.isTraceEnabled()) {
+      LOG.trace("Unmount {} ({})", path, basePath);
+    }
+
+    switch (this.lookupCache.lookup(path)) {
+      case final FBFSObjectMount mount -> {
+        final var layers = mount.layers();
+        final var layer =
+          layers.layers()
+            .stream()
+            .filter(m -> m.priority() == priority)
+            .filter(m -> Objects.equals(m.basePath(), basePath))
+            .findFirst()
+            .orElseThrow(() -> {
+              return new FileSystemException(
+                path.toString(),
+                basePath.toString(),
+                NOT_A_FILESYSTEM_MOUNT
+              );
+            });
+
+        if (layers.isUnion()) {
+          this.tree.replaceWith(
+            mount,
+            new FBFSObjectMount(
+              mount.name(),
+              layers.without(layer),
+              mount.attributes(),
+              mount.shadowedObject()
+            )
+          );
+        } else {
+          this.tree.unmount(mount);
+        }
+
+        this.mounts.remove(layer);
+        this.negativeLookupCache.clear();
+        if (LOG.isTraceEnabled()) {
+          LOG.trace("Unmounted {} ({})", path, basePath);
+        }
+      }
+      case final FBFSObjectReal ignored -> {
+        throw new FileSystemException(
+          path.toString(),
+          null,
+          NOT_A_FILESYSTEM_MOUNT
+        );
+      }
+      case final FBFSObjectVirtualDirectory ignored -> {
+        throw new FileSystemException(
+          path.toString(),
+          null,
+          NOT_A_FILESYSTEM_MOUNT
+        );
+      }
+    }
+  }
+
   @FSOp
   private void opUnmount(
     final FBFSPathAbsolute path)
@@ -488,10 +1282,13 @@ public final class FBFS
       LOG.trace("Unmount {}", path);
     }
 
-    switch (new FBLookup(path).lookup()) {
+    switch (this.lookupCache.lookup(path)) {
       case final FBFSObjectMount mount -> {
         this.tree.unmount(mount);
-        this.mounts.remove(mount.mount());
+        for (final var layer : mount.layers().layers()) {
+          this.mounts.remove(layer);
+        }
+        this.negativeLookupCache.clear();
         if (LOG.isTraceEnabled()) {
           LOG.trace("Unmounted {}", path);
         }
@@ -516,36 +1313,85 @@ public final class FBFS
   @FSOp
   private void opMount(
     final Path path,
-    final FBFSPathAbsolute mountAt)
-    throws FileSystemException
+    final FBFSPathAbsolute mountAt,
+    final FBMountMode mode,
+    final int priority,
+    final boolean indexOnMount)
+    throws IOException
   {
     if (LOG.isTraceEnabled()) {
-      LOG.trace("Mount {} ({}) -> {}", path, path.getFileSystem(), mountAt);
+      LOG.trace(
+        "Mount {} ({}) -> {} ({} {})",
+        path,
+        path.getFileSystem(),
+        mountAt,
+        mode,
+        Integer.valueOf(priority)
+      );
     }
 
     this.checkNotClosed();
     this.checkPathBelongs(mountAt);
 
-    final var mount =
-      new FBMount(mountAt, path);
+    /*
+     * Indexing walks the entire mounted tree, so every check that could
+     * reject the mount is made first.
+     */
+
     final var existing =
-      new FBLookup(mountAt).lookup();
+      this.lookupCache.lookup(mountAt);
 
-    final var newNode =
-      new FBFSObjectMount(
+    if (this.tree.isFrozen()) {
+      throw new ReadOnlyFileSystemException();
+    }
+    if (existing instanceof FBFSObjectReal) {
+      throw new FileSystemException(
+        mountAt.toString(),
+        null,
+        MOUNT_INSIDE_MOUNT
+      );
+    }
+
+    final Optional<FBMountIndex> index;
+    if (indexOnMount) {
+      final var timeThen = System.nanoTime();
+      index = Optional.of(FBMountIndex.build(path));
+      if (LOG.isDebugEnabled()) {
+        LOG.debug(
+          "Indexed {} ({} entries) in {}",
+          path,
+          Integer.valueOf(index.get().size()),
+          Duration.ofNanos(System.nanoTime() - timeThen)
+        );
+      }
+    } else {
+      index = Optional.empty();
+    }
+
+    final var mount =
+      new FBMount(mountAt, path, priority, index);
+
+    final FBFSObjectMount newNode;
+    if (mode == FBMountMode.UNION
+        && existing instanceof final FBFSObjectMount existingMount) {
+      newNode = new FBFSObjectMount(
+        existingMount.name(),
+        existingMount.layers().with(mount),
+        existingMount.attributes(),
+        existingMount.shadowedObject()
+      );
+    } else {
+      newNode = new FBFSObjectMount(
         mountAt.getFileName().toString(),
-        mount,
-        new FBVirtualDirectoryAttributes(),
+        FBMountLayers.of(mount),
+        new FBVirtualDirectoryAttributes(FileTime.from(Instant.now())),
         existing
       );
-
-    final var now = FileTime.from(Instant.now());
-    newNode.attributes().setCreationTime(now);
-    newNode.attributes().setLastAccessTime(now);
-    newNode.attributes().setLastModifiedTime(now);
+    }
 
     this.tree.replaceWith(existing, newNode);
     this.mounts.add(mount);
+    this.negativeLookupCache.clear();
     if (LOG.isTraceEnabled()) {
       LOG.trace("Mounted {} ({}) -> {}", path, path.getFileSystem(), mountAt);
     }
@@ -574,10 +1420,8 @@ public final class FBFS
     this.checkNotClosed();
     this.checkPathBelongs(path);
 
-    final var lookup =
-      new FBLookup(path);
     final var node =
-      lookup.lookup();
+      this.lookupCache.lookupWithoutMountChecks(path);
 
     if (!options.isEmpty()) {
       throw new ReadOnlyFileSystemException();
@@ -585,7 +1429,11 @@ public final class FBFS
 
     return switch (node) {
       case final FBFSObjectReal real -> {
-        yield Files.newByteChannel(real.path(), Set.of());
+        try {
+          yield Files.newByteChannel(real.path(), Set.of());
+        } catch (final FileSystemException e) {
+          throw mapRealFailure(path, real, e);
+        }
       }
       case final FBFSObjectMount ignored -> {
         throw new FileSystemException(path.toString(), null, IS_DIRECTORY);
@@ -596,6 +1444,24 @@ public final class FBFS
     };
   }
 
+  /**
+   * @return The cache of paths known to be missing inside mounts
+   */
+
+  FBNegativeLookupCache negativeLookupCache()
+  {
+    return this.negativeLookupCache;
+  }
+
+  /**
+   * @return The manner in which paths inside mounts are checked
+   */
+
+  FBMountLookupMode mountLookupMode()
+  {
+    return this.mountLookupMode;
+  }
+
   /**
    * @return The filesystem tree
    */
@@ -628,10 +1494,8 @@ public final class FBFS
     this.checkNotClosed();
     this.checkPathBelongs(path);
 
-    final var lookup =
-      new FBLookup(path);
     final var node =
-      lookup.lookup();
+      this.lookupCache.lookupWithoutMountChecks(path);
 
     if (!options.isEmpty()) {
       throw new ReadOnlyFileSystemException();
@@ -639,7 +1503,11 @@ public final class FBFS
 
     return switch (node) {
       case final FBFSObjectReal real -> {
-        yield FileChannel.open(real.path(), Set.of());
+        try {
+          yield FileChannel.open(real.path(), Set.of());
+        } catch (final FileSystemException e) {
+          throw mapRealFailure(path, real, e);
+        }
       }
       case final FBFSObjectMount ignored -> {
         throw new FileSystemException(path.toString(), null, IS_DIRECTORY);
@@ -686,7 +1554,7 @@ public final class FBFS
     this.checkPathBelongs(path);
 
     if (Objects.equals(type, BasicFileAttributes.class)) {
-      return switch (new FBLookup(path).lookup()) {
+      return switch (this.lookupCache.lookupWithoutMountChecks(path)) {
         case final FBFSObjectMount v -> {
           yield (A) v.attributes();
         }
@@ -694,7 +1562,16 @@ public final class FBFS
           yield (A) v.attributes();
         }
         case final FBFSObjectReal real -> {
-          yield Files.readAttributes(real.path(), type, options);
+          final var indexed = real.indexed();
+          if (indexed.isPresent()
+              && !(indexed.get().isLink() && isNoFollow(options))) {
+            yield type.cast(indexed.get());
+          }
+          try {
+            yield Files.readAttributes(real.path(), type, options);
+          } catch (final FileSystemException e) {
+            throw mapRealFailure(path, real, e);
+          }
         }
       };
     } else {
@@ -704,6 +1581,22 @@ public final class FBFS
     }
   }
 
+  /*
+   * The index holds the attributes of the targets of links, and so the
+   * attributes of a link itself are read from the mounted filesystem.
+   */
+
+  private static boolean isNoFollow(
+    final LinkOption[] options)
+  {
+    for (final var option : options) {
+      if (option == LinkOption.NOFOLLOW_LINKS) {
+        return true;
+      }
+    }
+    return false;
+  }
+
   /**
    * @param pSource The source
    * @param pTarget The target
@@ -738,12 +1631,10 @@ public final class FBFS
       );
     }
 
-    final var sourceLookup =
-      new FBLookup(pSource);
     final var targetLookup =
       new FBLookup(pTarget);
 
-    switch (sourceLookup.lookup()) {
+    switch (this.lookupCache.lookup(pSource)) {
       case final FBFSObjectMount ignored -> {
         throw new UnsupportedOperationException();
       }
@@ -758,10 +1649,14 @@ public final class FBFS
           throw new FileAlreadyExistsException(pTarget.toString());
         }
 
-        this.tree.rename(
-          source,
-          pTarget.getFileName().toString()
-        );
+        final var renamed =
+          this.tree.renameIfNameFree(
+            source,
+            pTarget.getFileName().toString()
+          );
+        if (!renamed) {
+          throw new FileAlreadyExistsException(pTarget.toString());
+        }
         if (LOG.isTraceEnabled()) {
           LOG.trace("Moved {} -> {}", pSource, pTarget);
         }
@@ -0,0 +1,141 @@
+/*
+ * Copyright © 2025 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.fsbind.core.internal;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+/**
+ * A directory stream over a snapshot of the names of the children of a
+ * directory. Paths are constructed, and the filter is applied, only as the
+ * stream is iterated; no tree lock is held during iteration. Names that are
+ * not valid path components, which may be read from mounted filesystems,
+ * are skipped.
+ */
+
+final class FBFSDirectoryStream
+  implements DirectoryStream<Path>
+{
+  private static final Logger LOG =
+    LoggerFactory.getLogger(FBFSDirectoryStream.class);
+
+  private final FBFSPathAbsolute parent;
+  private final List<String> names;
+  private final DirectoryStream.Filter<? super Path> filter;
+  private boolean iterated;
+  private volatile boolean closed;
+
+  FBFSDirectoryStream(
+    final FBFSPathAbsolute inParent,
+    final List<String> inNames,
+    final DirectoryStream.Filter<? super Path> inFilter)
+  {
+    this.parent =
+      Objects.requireNonNull(inParent, "parent");
+    this.names =
+      Objects.requireNonNull(inNames, "names");
+    this.filter =
+      Objects.requireNonNull(inFilter, "filter");
+  }
+
+  @Override
+  public Iterator<Path> iterator()
+  {
+    synchronized (this) {
+      if (this.closed) {
+        throw new IllegalStateException("Directory stream is closed.");
+      }
+      if (this.iterated) {
+        throw new IllegalStateException(
+          "Directory stream has already returned an iterator.");
+      }
+      this.iterated = true;
+    }
+    return new FBFSDirectoryIterator();
+  }
+
+  @Override
+  public void close()
+  {
+    this.closed = true;
+  }
+
+  private final class FBFSDirectoryIterator
+    implements Iterator<Path>
+  {
+    private int index;
+    private Path next;
+
+    FBFSDirectoryIterator()
+    {
+
+    }
+
+    @Override
+    public boolean hasNext()
+    {
+      if (this.next != null) {
+        return true;
+      }
+
+      final var stream = FBFSDirectoryStream.this;
+      while (!stream.closed && this.index < stream.names.size()) {
+        final var name =
+          stream.names.get(this.index);
+        final var path =
+          stream.parent.resolveEntry(name);
+        ++this.index;
+
+        if (path.isEmpty()) {
+          LOG.debug("Skipping invalid name {} in {}", name, stream.parent);
+          continue;
+        }
+
+        try {
+          if (stream.filter.accept(path.get())) {
+            this.next = path.get();
+            return true;
+          }
+        } catch (final IOException e) {
+          throw new DirectoryIteratorException(e);
+        }
+      }
+      return false;
+    }
+
+    @Override
+    public Path next()
+    {
+      if (!this.hasNext()) {
+        throw new NoSuchElementException();
+      }
+      final var result = this.next;
+      this.next = null;
+      return result;
+    }
+  }
+}
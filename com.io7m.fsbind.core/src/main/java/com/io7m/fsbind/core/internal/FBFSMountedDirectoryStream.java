@@ -0,0 +1,129 @@
+/*
+ * Copyright © 2025 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.fsbind.core.internal;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+/**
+ * A directory stream over a directory of a mounted filesystem. The entries
+ * of the underlying stream are returned as paths of the fsbind filesystem,
+ * and the filter is applied to those paths. Entries whose names are not
+ * valid fsbind path components are skipped.
+ */
+
+final class FBFSMountedDirectoryStream
+  implements DirectoryStream<Path>
+{
+  private static final Logger LOG =
+    LoggerFactory.getLogger(FBFSMountedDirectoryStream.class);
+
+  private final FBFSPathAbsolute parent;
+  private final DirectoryStream<Path> underlying;
+  private final DirectoryStream.Filter<? super Path> filter;
+
+  FBFSMountedDirectoryStream(
+    final FBFSPathAbsolute inParent,
+    final DirectoryStream<Path> inUnderlying,
+    final DirectoryStream.Filter<? super Path> inFilter)
+  {
+    this.parent =
+      Objects.requireNonNull(inParent, "parent");
+    this.underlying =
+      Objects.requireNonNull(inUnderlying, "underlying");
+    this.filter =
+      Objects.requireNonNull(inFilter, "filter");
+  }
+
+  @Override
+  public Iterator<Path> iterator()
+  {
+    return new FBFSMountedDirectoryIterator(this.underlying.iterator());
+  }
+
+  @Override
+  public void close()
+    throws IOException
+  {
+    this.underlying.close();
+  }
+
+  private final class FBFSMountedDirectoryIterator
+    implements Iterator<Path>
+  {
+    private final Iterator<Path> entries;
+    private Path next;
+
+    FBFSMountedDirectoryIterator(
+      final Iterator<Path> inEntries)
+    {
+      this.entries =
+        Objects.requireNonNull(inEntries, "entries");
+    }
+
+    @Override
+    public boolean hasNext()
+    {
+      if (this.next != null) {
+        return true;
+      }
+
+      final var stream = FBFSMountedDirectoryStream.this;
+      while (this.entries.hasNext()) {
+        final var name =
+          this.entries.next().getFileName().toString();
+        final var path =
+          stream.parent.resolveEntry(name);
+
+        if (path.isEmpty()) {
+          LOG.debug("Skipping invalid name {} in {}", name, stream.parent);
+          continue;
+        }
+
+        try {
+          if (stream.filter.accept(path.get())) {
+            this.next = path.get();
+            return true;
+          }
+        } catch (final IOException e) {
+          throw new DirectoryIteratorException(e);
+        }
+      }
+      return false;
+    }
+
+    @Override
+    public Path next()
+    {
+      if (!this.hasNext()) {
+        throw new NoSuchElementException();
+      }
+      final var result = this.next;
+      this.next = null;
+      return result;
+    }
+  }
+}
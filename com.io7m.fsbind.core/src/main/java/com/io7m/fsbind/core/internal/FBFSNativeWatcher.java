@@ -0,0 +1,244 @@
+/*
+ * Copyright © 2025 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.fsbind.core.internal;
+
+import net.jcip.annotations.ThreadSafe;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+
+/**
+ * Directories of the default filesystem watched using the watch service of
+ * the default filesystem. Each directory is registered with the underlying
+ * watch service once, regardless of the number of listeners interested in
+ * it, and is unregistered when the last listener is removed.
+ */
+
+@ThreadSafe
+final class FBFSNativeWatcher implements Closeable
+{
+  private static final Logger LOG =
+    LoggerFactory.getLogger(FBFSNativeWatcher.class);
+
+  private final WatchService watchService;
+  private final Object lock;
+  private final HashMap<Path, Directory> directories;
+
+  /**
+   * A listener for events in watched directories.
+   */
+
+  interface ListenerType
+  {
+    /**
+     * An event was received for a watched directory.
+     *
+     * @param directory The directory
+     * @param event     The event
+     */
+
+    void onNativeEvent(
+      Path directory,
+      WatchEvent<?> event);
+
+    /**
+     * A watched directory can no longer be watched, typically because it
+     * has been deleted.
+     *
+     * @param directory The directory
+     */
+
+    void onNativeCancelled(
+      Path directory);
+  }
+
+  private record Directory(
+    Path path,
+    WatchKey key,
+    Set<ListenerType> listeners)
+  {
+
+  }
+
+  FBFSNativeWatcher()
+    throws IOException
+  {
+    this.watchService =
+      FileSystems.getDefault().newWatchService();
+    this.lock =
+      new Object();
+    this.directories =
+      new HashMap<>();
+  }
+
+  /**
+   * Add a listener for the given directory, registering the directory with
+   * the underlying watch service if necessary.
+   *
+   * @param directory The directory
+   * @param listener  The listener
+   *
+   * @throws IOException On errors, such as the directory not existing
+   */
+
+  void subscribe(
+    final Path directory,
+    final ListenerType listener)
+    throws IOException
+  {
+    Objects.requireNonNull(directory, "directory");
+    Objects.requireNonNull(listener, "listener");
+
+    synchronized (this.lock) {
+      final var existing = this.directories.get(directory);
+      if (existing != null && existing.key.isValid()) {
+        existing.listeners.add(listener);
+        return;
+      }
+
+      final var key =
+        directory.register(
+          this.watchService,
+          ENTRY_CREATE,
+          ENTRY_DELETE,
+          ENTRY_MODIFY
+        );
+
+      /*
+       * The underlying watch service returns the same key for a directory
+       * that is already registered, so listeners of a key that was
+       * invalidated and then re-registered are carried over.
+       */
+
+      final var listeners =
+        existing != null
+          ? existing.listeners
+          : ConcurrentHashMap.<ListenerType>newKeySet();
+
+      listeners.add(listener);
+      this.directories.put(directory, new Directory(directory, key, listeners));
+    }
+  }
+
+  /**
+   * Remove a listener for the given directory, unregistering the directory
+   * with the underlying watch service if no listeners remain.
+   *
+   * @param directory The directory
+   * @param listener  The listener
+   */
+
+  void unsubscribe(
+    final Path directory,
+    final ListenerType listener)
+  {
+    synchronized (this.lock) {
+      final var existing = this.directories.get(directory);
+      if (existing == null) {
+        return;
+      }
+      existing.listeners.remove(listener);
+      if (existing.listeners.isEmpty()) {
+        existing.key.cancel();
+        this.directories.remove(directory);
+      }
+    }
+  }
+
+  /**
+   * Deliver events from the underlying watch service until the watcher is
+   * closed.
+   */
+
+  void run()
+  {
+    while (true) {
+      final WatchKey key;
+      try {
+        key = this.watchService.take();
+      } catch (final ClosedWatchServiceException | InterruptedException e) {
+        return;
+      }
+
+      final var directory =
+        (Path) key.watchable();
+      final var events =
+        key.pollEvents();
+
+      final List<ListenerType> listeners;
+      synchronized (this.lock) {
+        final var existing = this.directories.get(directory);
+        if (existing == null) {
+          listeners = List.of();
+        } else {
+          listeners = List.copyOf(existing.listeners);
+        }
+      }
+
+      for (final var event : events) {
+        for (final var listener : listeners) {
+          try {
+            listener.onNativeEvent(directory, event);
+          } catch (final Exception e) {
+            LOG.debug("Listener failed: ", e);
+          }
+        }
+      }
+
+      if (!key.reset()) {
+        synchronized (this.lock) {
+          final var existing = this.directories.get(directory);
+          if (existing != null && existing.key == key) {
+            this.directories.remove(directory);
+          }
+        }
+        for (final var listener : listeners) {
+          try {
+            listener.onNativeCancelled(directory);
+          } catch (final Exception e) {
+            LOG.debug("Listener failed: ", e);
+          }
+        }
+      }
+    }
+  }
+
+  @Override
+  public void close()
+    throws IOException
+  {
+    this.watchService.close();
+  }
+}
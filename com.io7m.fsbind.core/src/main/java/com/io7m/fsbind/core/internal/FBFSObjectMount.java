@@ -23,14 +23,14 @@ import java.util.Optional;
  * An object in the filesystem tree that represents a mount point.
  *
  * @param name           The name
- * @param mount          The mount
+ * @param layers         The mounted filesystems
  * @param attributes     The attributes
  * @param shadowedObject The node this node shadows
  */
 
 public record FBFSObjectMount(
   String name,
-  FBMount mount,
+  FBMountLayers layers,
   FBVirtualDirectoryAttributes attributes,
   FBFSObjectType shadowedObject)
   implements FBFSObjectType
@@ -23,13 +23,18 @@ import java.util.Optional;
 /**
  * An object in the filesystem tree that represents a real file or directory.
  *
- * @param name The name
- * @param path The path
+ * @param name    The name
+ * @param path    The path
+ * @param layers  The layers of the mount through which the object was found
+ * @param indexed The index entry for the object, if the object is inside an
+ *                indexed mount
  */
 
 public record FBFSObjectReal(
   String name,
-  Path path)
+  Path path,
+  FBMountLayers layers,
+  Optional<FBMountIndex.Entry> indexed)
   implements FBFSObjectType
 {
   @Override
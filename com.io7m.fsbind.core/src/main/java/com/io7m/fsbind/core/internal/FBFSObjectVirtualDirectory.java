@@ -17,8 +17,13 @@
 
 package com.io7m.fsbind.core.internal;
 
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicReference;
 
 /**
@@ -31,6 +36,39 @@ public final class FBFSObjectVirtualDirectory
   private final AtomicReference<String> nameRef;
   private final FBVirtualDirectoryAttributes attributes;
   private final Optional<FBFSObjectType> shadowed;
+  private volatile FBFSObjectVirtualDirectory parent;
+
+  /*
+   * The child index and the frozen state are deliberately not volatile.
+   * Both are replaced at most once, when the owning tree is frozen, and
+   * both are replaced with immutable values that are safe to publish via a
+   * data race. A reader that observes a stale value sees either the
+   * concurrent index (which remains correct) or no frozen state (and falls
+   * back to the name, the parent, and the sorted index, which are read
+   * through volatile references or under the tree lock). A reader that
+   * observes the frozen state reads the name, the parent, and the child
+   * names without any volatile reads.
+   */
+
+  private Map<String, FBFSObjectType> children;
+  private Frozen frozen;
+
+  private record Frozen(
+    String name,
+    FBFSObjectVirtualDirectory parent,
+    List<String> childNames)
+  {
+
+  }
+
+  /*
+   * The children of this directory ordered by case-folded name. The index
+   * is maintained alongside the child index on every modification, so that
+   * sorted and paginated listings are a walk over the index rather than a
+   * sort. It is only accessed with the tree lock held.
+   */
+
+  private final TreeMap<String, FBFSObjectType> sortedChildren;
 
   /**
    * An object in the filesystem tree that represents a virtual directory.
@@ -51,6 +89,126 @@ public final class FBFSObjectVirtualDirectory
       new AtomicReference<>(name);
     this.shadowed =
       Objects.requireNonNull(inShadowed, "shadowed");
+    this.children =
+      new ConcurrentHashMap<>();
+    this.sortedChildren =
+      new TreeMap<>();
+  }
+
+  /**
+   * The index of the children of this directory, keyed by case-folded name.
+   * The index is only modified by the {@link FBFSTree} that owns this node,
+   * and is immutable once the tree has been frozen.
+   *
+   * @return The child index
+   *
+   * @see FBFSPathComponents#foldCase(String)
+   */
+
+  Map<String, FBFSObjectType> children()
+  {
+    return this.children;
+  }
+
+  /**
+   * The children of this directory ordered by case-folded name. Only
+   * accessed by the {@link FBFSTree} that owns this node, with the tree lock
+   * held.
+   *
+   * @return The sorted child index
+   */
+
+  NavigableMap<String, FBFSObjectType> sortedChildren()
+  {
+    return this.sortedChildren;
+  }
+
+  /**
+   * Add a child to this directory. Only called by the {@link FBFSTree} that
+   * owns this node, with the write lock held.
+   *
+   * @param key   The case-folded name of the child
+   * @param child The child
+   */
+
+  void putChild(
+    final String key,
+    final FBFSObjectType child)
+  {
+    this.children.put(key, child);
+    this.sortedChildren.put(key, child);
+  }
+
+  /**
+   * Remove a child from this directory, if it is present. Only called by
+   * the {@link FBFSTree} that owns this node, with the write lock held.
+   *
+   * @param key   The case-folded name of the child
+   * @param child The child
+   *
+   * @return {@code true} if the child was removed
+   */
+
+  boolean removeChild(
+    final String key,
+    final FBFSObjectType child)
+  {
+    if (this.children.remove(key, child)) {
+      this.sortedChildren.remove(key);
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Replace a child of this directory, if it is present. Only called by the
+   * {@link FBFSTree} that owns this node, with the write lock held.
+   *
+   * @param key      The case-folded name of the child
+   * @param existing The existing child
+   * @param child    The new child
+   *
+   * @return {@code true} if the child was replaced
+   */
+
+  boolean replaceChild(
+    final String key,
+    final FBFSObjectType existing,
+    final FBFSObjectType child)
+  {
+    if (this.children.replace(key, existing, child)) {
+      this.sortedChildren.put(key, child);
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * @return The names of the children of this directory in listing order, or
+   * {@code null} if the tree has not been frozen
+   */
+
+  List<String> frozenChildNames()
+  {
+    final var frozenNow = this.frozen;
+    return frozenNow == null ? null : frozenNow.childNames();
+  }
+
+  /**
+   * Replace the child index with an immutable copy. Only called by the
+   * {@link FBFSTree} that owns this node, with the write lock held.
+   */
+
+  void freeze()
+  {
+    this.children =
+      Map.copyOf(this.children);
+    this.frozen =
+      new Frozen(
+        this.nameRef.get(),
+        this.parent,
+        List.copyOf(FBFSTree.namesOf(this.sortedChildren.values()))
+      );
   }
 
   /**
@@ -65,25 +223,28 @@ public final class FBFSObjectVirtualDirectory
     this.nameRef.set(Objects.requireNonNull(name, "name"));
   }
 
-  @Override
-  public boolean equals(
-    final Object o)
+  /**
+   * @return The parent directory, or {@code null} for the root directory or
+   * for a directory that has been removed from the tree
+   */
+
+  FBFSObjectVirtualDirectory parent()
   {
-    if (this == o) {
-      return true;
-    }
-    if (!(o instanceof final FBFSObjectVirtualDirectory that)) {
-      return false;
-    }
-    return this.nameRef.get().equalsIgnoreCase(that.nameRef.get())
-           && Objects.equals(this.attributes, that.attributes)
-           && Objects.equals(this.shadowed, that.shadowed);
+    final var frozenNow = this.frozen;
+    return frozenNow == null ? this.parent : frozenNow.parent();
   }
 
-  @Override
-  public int hashCode()
+  /**
+   * Set the parent directory. Only called by the {@link FBFSTree} that owns
+   * this node.
+   *
+   * @param newParent The parent directory
+   */
+
+  void setParent(
+    final FBFSObjectVirtualDirectory newParent)
   {
-    return Objects.hash(this.nameRef, this.attributes, this.shadowed);
+    this.parent = newParent;
   }
 
   /**
@@ -98,7 +259,8 @@ public final class FBFSObjectVirtualDirectory
   @Override
   public String name()
   {
-    return this.nameRef.get();
+    final var frozenNow = this.frozen;
+    return frozenNow == null ? this.nameRef.get() : frozenNow.name();
   }
 
   @Override
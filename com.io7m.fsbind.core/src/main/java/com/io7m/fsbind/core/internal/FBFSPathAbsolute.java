@@ -14,37 +14,74 @@
  * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
  */
 
-
 package com.io7m.fsbind.core.internal;
 
-import net.jcip.annotations.Immutable;
+import net.jcip.annotations.ThreadSafe;
 
+import java.io.IOException;
 import java.net.URI;
+import java.net.URISyntaxException;
 import java.nio.file.LinkOption;
 import java.nio.file.Path;
 import java.nio.file.ProviderMismatchException;
 import java.nio.file.WatchEvent;
 import java.nio.file.WatchKey;
 import java.nio.file.WatchService;
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
+import java.util.Optional;
 
 import static com.io7m.fsbind.core.internal.FBFS.FBFS_SEPARATOR;
+import static com.io7m.fsbind.core.internal.FBFSPathComponents.checkNotEmpty;
+import static com.io7m.fsbind.core.internal.FBFSPathComponents.componentsCompare;
 import static com.io7m.fsbind.core.internal.FBFSPathComponents.componentsEquals;
+import static com.io7m.fsbind.core.internal.FBFSPathComponents.componentsHashCode;
 
 /**
  * An absolute path.
+ *
+ * The components of the path are held in an array whose first element is
+ * always the root name. The array may be shared with other paths (such as
+ * the parent of this path) and is never modified. Paths derived from
+ * existing paths are not validated again.
+ *
+ * The value of a path never changes, but a path is not immutable: it
+ * memoizes the object to which it last resolved, for use by the lookup
+ * cache of its filesystem.
  */
 
-@Immutable
+@ThreadSafe
 public final class FBFSPathAbsolute implements FBFSPathType
 {
-  static final List<String> ROOT_NAME =
-    List.of("/");
+  static final String[] ROOT_NAMES = {FBFS_SEPARATOR};
 
   private final FBFS filesystem;
-  private final List<String> components;
+  private final String[] names;
+  private final int count;
+
+  /*
+   * Lazily computed. Both values are derived from immutable state, so
+   * racing threads at worst compute the same value twice.
+   */
+
+  private int hash;
+  private String text;
+
+  /*
+   * The object to which this path last resolved. Bindings are immutable
+   * and are validated against the tree generation before use, so a thread
+   * observing a stale (or no) binding merely performs a full lookup.
+   */
+
+  private FBFSPathBinding binding;
+
+  /*
+   * Lazily computed. The field is volatile as URI instances are not safe
+   * to publish via a data race.
+   */
+
+  private volatile URI uri;
 
   /**
    * An absolute path.
@@ -56,39 +93,91 @@ public final class FBFSPathAbsolute implements FBFSPathType
   public FBFSPathAbsolute(
     final FBFS inFilesystem,
     final List<String> inNames)
+  {
+    this(inFilesystem, validate(inNames.toArray(new String[0])));
+  }
+
+  /**
+   * Create an absolute path from the given components. The components are
+   * validated, and the array is then owned by the path and must not be
+   * modified.
+   *
+   * @param inFilesystem The filesystem that owns the path
+   * @param inNames      The path components
+   *
+   * @return The path
+   */
+
+  static FBFSPathAbsolute ofNames(
+    final FBFS inFilesystem,
+    final String[] inNames)
+  {
+    return new FBFSPathAbsolute(inFilesystem, validate(inNames));
+  }
+
+  private FBFSPathAbsolute(
+    final FBFS inFilesystem,
+    final String[] inNames)
+  {
+    this(inFilesystem, inNames, inNames.length);
+  }
+
+  /**
+   * An absolute path consisting of the first {@code inCount} elements of
+   * the given trusted component array. The array is not copied or
+   * validated, and must not be modified.
+   *
+   * @param inFilesystem The filesystem that owns the path
+   * @param inNames      The path components
+   * @param inCount      The number of components
+   */
+
+  FBFSPathAbsolute(
+    final FBFS inFilesystem,
+    final String[] inNames,
+    final int inCount)
   {
     this.filesystem =
       Objects.requireNonNull(inFilesystem, "filesystem");
-    this.components =
-      validate(inNames);
+    this.names =
+      Objects.requireNonNull(inNames, "names");
+    this.count =
+      inCount;
   }
 
-  private static List<String> validate(
-    final List<String> inNames)
+  private static String[] validate(
+    final String[] names)
   {
-    if (inNames.isEmpty()) {
-      throw new IllegalArgumentException(
-        "fsbind paths cannot be empty");
-    }
+    checkNotEmpty(names.length);
 
-    if (!Objects.equals(inNames.getFirst(), FBFS_SEPARATOR)) {
+    if (!Objects.equals(names[0], FBFS_SEPARATOR)) {
       throw new IllegalArgumentException(
         "fsbind absolute paths must have %s as the first element"
           .formatted(FBFS_SEPARATOR)
       );
     }
 
-    for (int index = 1; index < inNames.size(); ++index) {
-      FBFSPathComponents.validatePathComponent(inNames, inNames.get(index));
+    final var nameList = Arrays.asList(names);
+    for (int index = 1; index < names.length; ++index) {
+      FBFSPathComponents.validatePathComponent(nameList, names[index]);
     }
-
-    return List.copyOf(inNames);
+    return names;
   }
 
   @Override
   public List<String> components()
   {
-    return this.components;
+    return new FBFSPathComponentList(this.names, 0, this.count);
+  }
+
+  /**
+   * @return The (shared) component array; only the first
+   * {@code getNameCount() + 1} elements belong to this path
+   */
+
+  String[] names()
+  {
+    return this.names;
   }
 
   @Override
@@ -102,13 +191,20 @@ public final class FBFSPathAbsolute implements FBFSPathType
       return false;
     }
     return Objects.equals(this.filesystem, paths.filesystem)
-           && componentsEquals(this.components, paths.components);
+           && this.count == paths.count
+           && componentsEquals(this.names, 0, paths.names, 0, this.count);
   }
 
   @Override
   public int hashCode()
   {
-    return Objects.hash(this.filesystem, this.components);
+    var h = this.hash;
+    if (h == 0) {
+      h = 31 * (31 + this.filesystem.hashCode())
+          + componentsHashCode(this.names, 0, this.count);
+      this.hash = h;
+    }
+    return h;
   }
 
   @Override
@@ -126,7 +222,7 @@ public final class FBFSPathAbsolute implements FBFSPathType
   @Override
   public FBFSPathAbsolute getRoot()
   {
-    return new FBFSPathAbsolute(this.filesystem, ROOT_NAME);
+    return new FBFSPathAbsolute(this.filesystem, ROOT_NAMES);
   }
 
   @Override
@@ -138,7 +234,9 @@ public final class FBFSPathAbsolute implements FBFSPathType
 
     return new FBFSPathRelative(
       this.filesystem,
-      List.of(this.components.getLast())
+      this.names,
+      this.count - 1,
+      1
     );
   }
 
@@ -151,14 +249,15 @@ public final class FBFSPathAbsolute implements FBFSPathType
 
     return new FBFSPathAbsolute(
       this.filesystem,
-      this.components.subList(0, this.components.size() - 1)
+      this.names,
+      this.count - 1
     );
   }
 
   @Override
   public int getNameCount()
   {
-    return this.components.size() - 1;
+    return this.count - 1;
   }
 
   @Override
@@ -167,7 +266,9 @@ public final class FBFSPathAbsolute implements FBFSPathType
   {
     return new FBFSPathRelative(
       this.filesystem,
-      List.of(this.components.get(index + 1))
+      this.names,
+      Objects.checkIndex(index, this.count - 1) + 1,
+      1
     );
   }
 
@@ -176,19 +277,42 @@ public final class FBFSPathAbsolute implements FBFSPathType
     final int beginIndex,
     final int endIndex)
   {
+    Objects.checkFromToIndex(beginIndex, endIndex, this.count);
+    checkNotEmpty(endIndex - beginIndex);
+
+    if (beginIndex == 0) {
+      FBFSPathComponents.validatePathComponent(
+        this.components(),
+        FBFS_SEPARATOR
+      );
+    }
+
     return new FBFSPathRelative(
       this.filesystem,
-      this.components.subList(beginIndex, endIndex)
+      this.names,
+      beginIndex,
+      endIndex - beginIndex
     );
   }
 
   @Override
   public String toString()
   {
-    return FBFS_SEPARATOR + String.join(
-      FBFS_SEPARATOR,
-      this.components.subList(1, this.components.size())
-    );
+    var t = this.text;
+    if (t == null) {
+      if (this.isRoot()) {
+        t = FBFS_SEPARATOR;
+      } else {
+        final var builder = new StringBuilder(16 * this.count);
+        for (int index = 1; index < this.count; ++index) {
+          builder.append(FBFS_SEPARATOR);
+          builder.append(this.names[index]);
+        }
+        t = builder.toString();
+      }
+      this.text = t;
+    }
+    return t;
   }
 
   @Override
@@ -198,17 +322,18 @@ public final class FBFSPathAbsolute implements FBFSPathType
     final var prefixPath =
       this.checkPathAbsoluteCompatible(prefix);
     final var prefixSize =
-      prefixPath.components.size();
-    final var thisSize =
-      this.components.size();
+      prefixPath.count;
 
-    if (prefixSize > thisSize) {
+    if (prefixSize > this.count) {
       return false;
     }
 
     return componentsEquals(
-      prefixPath.components,
-      this.components.subList(0, prefixSize)
+      prefixPath.names,
+      0,
+      this.names,
+      0,
+      prefixSize
     );
   }
 
@@ -274,17 +399,18 @@ public final class FBFSPathAbsolute implements FBFSPathType
     final var suffixPath =
       this.checkPathRelativeCompatible(suffix);
     final var suffixSize =
-      suffixPath.components().size();
-    final var thisSize =
-      this.components.size();
+      suffixPath.getNameCount();
 
-    if (suffixSize > thisSize) {
+    if (suffixSize > this.count) {
       return false;
     }
 
     return componentsEquals(
-      suffixPath.components(),
-      this.components.subList(thisSize - suffixSize, thisSize)
+      suffixPath.names(),
+      suffixPath.start(),
+      this.names,
+      this.count - suffixSize,
+      suffixSize
     );
   }
 
@@ -305,10 +431,16 @@ public final class FBFSPathAbsolute implements FBFSPathType
             yield otherAbs;
           }
           case final FBFSPathRelative otherRel -> {
-            final var size = this.components.size() + otherRel.getNameCount();
-            final var newNames = new ArrayList<String>(size);
-            newNames.addAll(this.components);
-            newNames.addAll(otherRel.components());
+            final var otherCount = otherRel.getNameCount();
+            final var newNames = new String[this.count + otherCount];
+            System.arraycopy(this.names, 0, newNames, 0, this.count);
+            System.arraycopy(
+              otherRel.names(),
+              otherRel.start(),
+              newNames,
+              this.count,
+              otherCount
+            );
             yield new FBFSPathAbsolute(this.filesystem, newNames);
           }
         };
@@ -317,6 +449,42 @@ public final class FBFSPathAbsolute implements FBFSPathType
     };
   }
 
+  /**
+   * Resolve a single path component that has not been validated, such as
+   * the name of an entry read from a mounted filesystem, against this path.
+   *
+   * @param name The name
+   *
+   * @return The resolved path, or nothing if the name is not a valid path
+   * component
+   */
+
+  Optional<FBFSPathAbsolute> resolveEntry(
+    final String name)
+  {
+    if (FBFSPathComponents.isValidPathComponent(name)) {
+      return Optional.of(this.resolveTrusted(name));
+    }
+    return Optional.empty();
+  }
+
+  /**
+   * Resolve a single trusted path component against this path.
+   *
+   * @param name The name, which must be a valid path component
+   *
+   * @return The resolved path
+   */
+
+  FBFSPathAbsolute resolveTrusted(
+    final String name)
+  {
+    final var newNames = new String[this.count + 1];
+    System.arraycopy(this.names, 0, newNames, 0, this.count);
+    newNames[this.count] = name;
+    return new FBFSPathAbsolute(this.filesystem, newNames);
+  }
+
   @Override
   public FBFSPathRelative relativize(
     final Path other)
@@ -326,12 +494,14 @@ public final class FBFSPathAbsolute implements FBFSPathType
         yield switch (fbOther) {
           case final FBFSPathAbsolute fbOtherAbs -> {
             if (fbOtherAbs.startsWith(this)) {
-              final var relativeNames =
-                fbOtherAbs.components.subList(
-                  this.components.size(),
-                  fbOtherAbs.components.size()
-                );
-              yield new FBFSPathRelative(this.filesystem, relativeNames);
+              final var relativeCount = fbOtherAbs.count - this.count;
+              checkNotEmpty(relativeCount);
+              yield new FBFSPathRelative(
+                this.filesystem,
+                fbOtherAbs.names,
+                this.count,
+                relativeCount
+              );
             }
 
             throw new UnsupportedOperationException();
@@ -348,9 +518,20 @@ public final class FBFSPathAbsolute implements FBFSPathType
   @Override
   public URI toUri()
   {
-    return URI.create(
-      "fsbind:%s:%s".formatted(this.filesystem.name(), this)
-    );
+    var u = this.uri;
+    if (u == null) {
+      try {
+        u = new URI(
+          "fsbind",
+          "%s:%s".formatted(this.filesystem.name(), this),
+          null
+        );
+      } catch (final URISyntaxException e) {
+        throw new IllegalStateException(e);
+      }
+      this.uri = u;
+    }
+    return u;
   }
 
   @Override
@@ -371,9 +552,10 @@ public final class FBFSPathAbsolute implements FBFSPathType
     final WatchService watcher,
     final WatchEvent.Kind<?>[] events,
     final WatchEvent.Modifier... modifiers)
+    throws IOException
   {
     if (watcher instanceof final FBFSWatchService fbWatch) {
-      return fbWatch.register(this, events);
+      return fbWatch.register(this, events, modifiers);
     } else {
       throw new ProviderMismatchException();
     }
@@ -383,7 +565,50 @@ public final class FBFSPathAbsolute implements FBFSPathType
   public int compareTo(
     final Path other)
   {
-    return this.toString().compareToIgnoreCase(other.toString());
+    return switch (other) {
+      case final FBFSPathAbsolute otherAbs -> {
+        yield componentsCompare(
+          this.names,
+          0,
+          this.count,
+          otherAbs.names(),
+          0,
+          otherAbs.getNameCount() + 1
+        );
+      }
+      case final FBFSPathRelative otherRel -> {
+        yield componentsCompare(
+          this.names,
+          0,
+          this.count,
+          otherRel.names(),
+          otherRel.start(),
+          otherRel.getNameCount()
+        );
+      }
+      default -> this.toString().compareToIgnoreCase(other.toString());
+    };
+  }
+
+  /**
+   * @return The object to which this path last resolved, if any
+   */
+
+  FBFSPathBinding binding()
+  {
+    return this.binding;
+  }
+
+  /**
+   * Remember the object to which this path resolved.
+   *
+   * @param newBinding The binding
+   */
+
+  void setBinding(
+    final FBFSPathBinding newBinding)
+  {
+    this.binding = newBinding;
   }
 
   /**
@@ -392,6 +617,6 @@ public final class FBFSPathAbsolute implements FBFSPathType
 
   public boolean isRoot()
   {
-    return this.components.size() == 1;
+    return this.count == 1;
   }
 }
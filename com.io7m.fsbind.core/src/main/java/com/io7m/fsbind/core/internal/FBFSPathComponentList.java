@@ -0,0 +1,65 @@
+/*
+ * Copyright © 2025 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.fsbind.core.internal;
+
+import net.jcip.annotations.Immutable;
+
+import java.util.AbstractList;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+/**
+ * An immutable list view of a range of a path component array. The array
+ * is shared between paths and is never modified.
+ */
+
+@Immutable
+final class FBFSPathComponentList
+  extends AbstractList<String>
+  implements RandomAccess
+{
+  private final String[] names;
+  private final int start;
+  private final int count;
+
+  FBFSPathComponentList(
+    final String[] inNames,
+    final int inStart,
+    final int inCount)
+  {
+    this.names =
+      Objects.requireNonNull(inNames, "names");
+    this.start =
+      Objects.checkFromIndexSize(inStart, inCount, inNames.length);
+    this.count =
+      inCount;
+  }
+
+  @Override
+  public String get(
+    final int index)
+  {
+    return this.names[this.start + Objects.checkIndex(index, this.count)];
+  }
+
+  @Override
+  public int size()
+  {
+    return this.count;
+  }
+}
@@ -34,30 +34,198 @@ public final class FBFSPathComponents
   }
 
   /**
-   * Compare components.
+   * Compare ranges of two component arrays, ignoring case.
    *
-   * @param p The first components
-   * @param q The second components
+   * @param p      The first components
+   * @param pStart The index of the first component in {@code p}
+   * @param q      The second components
+   * @param qStart The index of the first component in {@code q}
+   * @param count  The number of components to compare
    *
    * @return {@code true} if the components are equal
    */
 
   public static boolean componentsEquals(
-    final List<String> p,
-    final List<String> q)
+    final String[] p,
+    final int pStart,
+    final String[] q,
+    final int qStart,
+    final int count)
   {
     Objects.requireNonNull(p, "p");
     Objects.requireNonNull(q, "q");
 
-    if (p.size() == q.size()) {
-      for (int index = 0; index < p.size(); ++index) {
-        if (!p.get(index).equalsIgnoreCase(q.get(index))) {
-          return false;
-        }
+    for (int index = 0; index < count; ++index) {
+      if (!p[pStart + index].equalsIgnoreCase(q[qStart + index])) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Compare two component arrays lexicographically, comparing individual
+   * components with {@link String#compareToIgnoreCase(String)}. A sequence
+   * of components that is a prefix of another sequence is ordered first.
+   *
+   * @param p      The first components
+   * @param pStart The index of the first component in {@code p}
+   * @param pCount The number of components in {@code p}
+   * @param q      The second components
+   * @param qStart The index of the first component in {@code q}
+   * @param qCount The number of components in {@code q}
+   *
+   * @return The comparison result
+   */
+
+  public static int componentsCompare(
+    final String[] p,
+    final int pStart,
+    final int pCount,
+    final String[] q,
+    final int qStart,
+    final int qCount)
+  {
+    final var count = Math.min(pCount, qCount);
+    for (int index = 0; index < count; ++index) {
+      final var r = p[pStart + index].compareToIgnoreCase(q[qStart + index]);
+      if (r != 0) {
+        return r;
+      }
+    }
+    return Integer.compare(pCount, qCount);
+  }
+
+  /**
+   * Compute a hash code for a range of components that is consistent with
+   * {@link #componentsEquals(String[], int, String[], int, int)}: components
+   * that are equal ignoring case have equal hash codes.
+   *
+   * @param p      The components
+   * @param pStart The index of the first component in {@code p}
+   * @param pCount The number of components
+   *
+   * @return The hash code
+   */
+
+  public static int componentsHashCode(
+    final String[] p,
+    final int pStart,
+    final int pCount)
+  {
+    var h = 1;
+    for (int index = 0; index < pCount; ++index) {
+      h = 31 * h + foldedHashCode(p[pStart + index]);
+    }
+    return h;
+  }
+
+  /**
+   * Compute the hash code that {@code foldCase(component).hashCode()} would
+   * return, without constructing the folded string.
+   *
+   * @param component The path component
+   *
+   * @return The hash code
+   *
+   * @see #foldCase(String)
+   */
+
+  public static int foldedHashCode(
+    final String component)
+  {
+    final var length = component.length();
+    var h = 0;
+    for (int index = 0; index < length; ) {
+      final var c = component.codePointAt(index);
+      final var f = foldCodePoint(c);
+      if (Character.isBmpCodePoint(f)) {
+        h = 31 * h + f;
+      } else {
+        h = 31 * h + Character.highSurrogate(f);
+        h = 31 * h + Character.lowSurrogate(f);
+      }
+      index += Character.charCount(c);
+    }
+    return h;
+  }
+
+  /**
+   * Fold the case of the given path component. Two components {@code p} and
+   * {@code q} satisfy {@code p.equalsIgnoreCase(q)} if and only if
+   * {@code foldCase(p).equals(foldCase(q))}. The input string is returned
+   * unchanged if it is already case-folded.
+   *
+   * @param component The path component
+   *
+   * @return The case-folded component
+   */
+
+  public static String foldCase(
+    final String component)
+  {
+    final var length = component.length();
+    for (int index = 0; index < length; ) {
+      final var c = component.codePointAt(index);
+      if (foldCodePoint(c) != c) {
+        return foldCaseFrom(component, index);
       }
-      return true;
+      index += Character.charCount(c);
+    }
+    return component;
+  }
+
+  private static String foldCaseFrom(
+    final String component,
+    final int start)
+  {
+    final var length = component.length();
+    final var builder = new StringBuilder(length);
+    builder.append(component, 0, start);
+    for (int index = start; index < length; ) {
+      final var c = component.codePointAt(index);
+      builder.appendCodePoint(foldCodePoint(c));
+      index += Character.charCount(c);
     }
-    return false;
+    return builder.toString();
+  }
+
+  private static int foldCodePoint(
+    final int c)
+  {
+    return Character.toLowerCase(Character.toUpperCase(c));
+  }
+
+  /**
+   * Check that a path has at least one component.
+   *
+   * @param count The number of components
+   */
+
+  public static void checkNotEmpty(
+    final int count)
+  {
+    if (count == 0) {
+      throw new IllegalArgumentException(
+        "fsbind paths cannot be empty");
+    }
+  }
+
+  /**
+   * @param component The path component
+   *
+   * @return {@code true} if the component is a valid path component
+   *
+   * @see #validatePathComponent(List, String)
+   */
+
+  public static boolean isValidPathComponent(
+    final String component)
+  {
+    return switch (component) {
+      case "", ".", "..", "..." -> false;
+      default -> !component.contains(FBFS_SEPARATOR);
+    };
   }
 
   /**
@@ -0,0 +1,142 @@
+/*
+ * Copyright © 2025 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.fsbind.core.internal;
+
+import java.util.List;
+import java.util.Objects;
+
+import static com.io7m.fsbind.core.internal.FBFS.FBFS_SEPARATOR;
+
+/**
+ * A parser for separator-delimited path strings such as
+ * {@code /textures/ui/button.png} or {@code ui/button.png}.
+ *
+ * The string is scanned once to count the components and once to extract
+ * them. Components are validated in place, and the extracted components
+ * become the (trusted) component array of the resulting path directly.
+ */
+
+public final class FBFSPathParser
+{
+  private static final char SEPARATOR = '/';
+
+  private FBFSPathParser()
+  {
+
+  }
+
+  /**
+   * Parse a path string. A string beginning with {@code /} denotes an
+   * absolute path. Components are subject to the same rules as components
+   * passed individually; in particular, empty components (such as those
+   * produced by {@code a//b} or a trailing {@code /}) are rejected.
+   *
+   * @param filesystem The filesystem that will own the path
+   * @param text       The path string
+   *
+   * @return The parsed path
+   *
+   * @throws IllegalArgumentException If the path is not valid
+   */
+
+  public static FBFSPathType parse(
+    final FBFS filesystem,
+    final String text)
+  {
+    Objects.requireNonNull(filesystem, "filesystem");
+    Objects.requireNonNull(text, "text");
+
+    final var length = text.length();
+    if (length == 0) {
+      FBFSPathComponents.checkNotEmpty(0);
+    }
+
+    final var absolute = text.charAt(0) == SEPARATOR;
+    if (absolute && length == 1) {
+      return new FBFSPathAbsolute(
+        filesystem,
+        FBFSPathAbsolute.ROOT_NAMES,
+        1
+      );
+    }
+
+    final var start = absolute ? 1 : 0;
+    var separators = 0;
+    for (int index = start; index < length; ++index) {
+      if (text.charAt(index) == SEPARATOR) {
+        ++separators;
+      }
+    }
+
+    final var offset = absolute ? 1 : 0;
+    final var names = new String[offset + separators + 1];
+    if (absolute) {
+      names[0] = FBFS_SEPARATOR;
+    }
+
+    var componentStart = start;
+    var nameIndex = offset;
+    for (int index = start; index <= length; ++index) {
+      if (index == length || text.charAt(index) == SEPARATOR) {
+        checkComponent(text, componentStart, index);
+        names[nameIndex] = text.substring(componentStart, index);
+        ++nameIndex;
+        componentStart = index + 1;
+      }
+    }
+
+    if (absolute) {
+      return new FBFSPathAbsolute(filesystem, names, names.length);
+    }
+    return new FBFSPathRelative(filesystem, names, 0, names.length);
+  }
+
+  /**
+   * Check the component in the range {@code [start, end)}. The component
+   * cannot contain a separator by construction, so only empty and dot
+   * components need to be rejected. The full validation function is used
+   * to produce the error.
+   */
+
+  private static void checkComponent(
+    final String text,
+    final int start,
+    final int end)
+  {
+    final var size = end - start;
+    if (size == 0 || (size <= 3 && isAllDots(text, start, end))) {
+      FBFSPathComponents.validatePathComponent(
+        List.of(text),
+        text.substring(start, end)
+      );
+    }
+  }
+
+  private static boolean isAllDots(
+    final String text,
+    final int start,
+    final int end)
+  {
+    for (int index = start; index < end; ++index) {
+      if (text.charAt(index) != '.') {
+        return false;
+      }
+    }
+    return true;
+  }
+}
@@ -14,7 +14,6 @@
  * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
  */
 
-
 package com.io7m.fsbind.core.internal;
 
 import net.jcip.annotations.Immutable;
@@ -26,22 +25,40 @@ import java.nio.file.ProviderMismatchException;
 import java.nio.file.WatchEvent;
 import java.nio.file.WatchKey;
 import java.nio.file.WatchService;
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
 
-import static com.io7m.fsbind.core.internal.FBFSPathAbsolute.ROOT_NAME;
+import static com.io7m.fsbind.core.internal.FBFSPathAbsolute.ROOT_NAMES;
+import static com.io7m.fsbind.core.internal.FBFSPathComponents.checkNotEmpty;
+import static com.io7m.fsbind.core.internal.FBFSPathComponents.componentsCompare;
 import static com.io7m.fsbind.core.internal.FBFSPathComponents.componentsEquals;
+import static com.io7m.fsbind.core.internal.FBFSPathComponents.componentsHashCode;
 
 /**
  * A relative path.
+ *
+ * The components of the path are a range of an array that may be shared
+ * with other paths (such as the absolute path from which this path was
+ * taken) and is never modified. Paths derived from existing paths are not
+ * validated again.
  */
 
 @Immutable
 public final class FBFSPathRelative implements FBFSPathType
 {
   private final FBFS filesystem;
-  private final List<String> components;
+  private final String[] names;
+  private final int start;
+  private final int count;
+
+  /*
+   * Lazily computed. Both values are derived from immutable state, so
+   * racing threads at worst compute the same value twice.
+   */
+
+  private int hash;
+  private String text;
 
   /**
    * A relative path.
@@ -53,32 +70,96 @@ public final class FBFSPathRelative implements FBFSPathType
   public FBFSPathRelative(
     final FBFS inFilesystem,
     final List<String> inNames)
+  {
+    this(inFilesystem, validate(inNames.toArray(new String[0])));
+  }
+
+  /**
+   * Create a relative path from the given components. The components are
+   * validated, and the array is then owned by the path and must not be
+   * modified.
+   *
+   * @param inFilesystem The filesystem that owns the path
+   * @param inNames      The path components
+   *
+   * @return The path
+   */
+
+  static FBFSPathRelative ofNames(
+    final FBFS inFilesystem,
+    final String[] inNames)
+  {
+    return new FBFSPathRelative(inFilesystem, validate(inNames));
+  }
+
+  private FBFSPathRelative(
+    final FBFS inFilesystem,
+    final String[] inNames)
+  {
+    this(inFilesystem, inNames, 0, inNames.length);
+  }
+
+  /**
+   * A relative path consisting of {@code inCount} elements of the given
+   * trusted component array, starting at {@code inStart}. The array is not
+   * copied or validated, and must not be modified.
+   *
+   * @param inFilesystem The filesystem that owns the path
+   * @param inNames      The path components
+   * @param inStart      The index of the first component
+   * @param inCount      The number of components
+   */
+
+  FBFSPathRelative(
+    final FBFS inFilesystem,
+    final String[] inNames,
+    final int inStart,
+    final int inCount)
   {
     this.filesystem =
       Objects.requireNonNull(inFilesystem, "filesystem");
-    this.components =
-      validate(inNames);
+    this.names =
+      Objects.requireNonNull(inNames, "names");
+    this.start =
+      inStart;
+    this.count =
+      inCount;
   }
 
-  private static List<String> validate(
-    final List<String> inNames)
+  private static String[] validate(
+    final String[] names)
   {
-    if (inNames.isEmpty()) {
-      throw new IllegalArgumentException(
-        "fsbind paths cannot be empty");
-    }
+    checkNotEmpty(names.length);
 
-    for (int index = 0; index < inNames.size(); ++index) {
-      FBFSPathComponents.validatePathComponent(inNames, inNames.get(index));
+    final var nameList = Arrays.asList(names);
+    for (final var name : names) {
+      FBFSPathComponents.validatePathComponent(nameList, name);
     }
-
-    return List.copyOf(inNames);
+    return names;
   }
 
   @Override
   public List<String> components()
   {
-    return this.components;
+    return new FBFSPathComponentList(this.names, this.start, this.count);
+  }
+
+  /**
+   * @return The (shared) component array
+   */
+
+  String[] names()
+  {
+    return this.names;
+  }
+
+  /**
+   * @return The index of the first component in {@link #names()}
+   */
+
+  int start()
+  {
+    return this.start;
   }
 
   @Override
@@ -92,13 +173,26 @@ public final class FBFSPathRelative implements FBFSPathType
       return false;
     }
     return Objects.equals(this.filesystem, paths.filesystem)
-           && componentsEquals(this.components, paths.components);
+           && this.count == paths.count
+           && componentsEquals(
+      this.names,
+      this.start,
+      paths.names,
+      paths.start,
+      this.count
+    );
   }
 
   @Override
   public int hashCode()
   {
-    return Objects.hash(this.filesystem, this.components);
+    var h = this.hash;
+    if (h == 0) {
+      h = 31 * (31 + this.filesystem.hashCode())
+          + componentsHashCode(this.names, this.start, this.count);
+      this.hash = h;
+    }
+    return h;
   }
 
   @Override
@@ -116,38 +210,43 @@ public final class FBFSPathRelative implements FBFSPathType
   @Override
   public FBFSPathAbsolute getRoot()
   {
-    return new FBFSPathAbsolute(this.filesystem, ROOT_NAME);
+    return new FBFSPathAbsolute(this.filesystem, ROOT_NAMES, 1);
   }
 
   @Override
   public FBFSPathRelative getFileName()
   {
+    if (this.count == 1) {
+      return this;
+    }
+
     return new FBFSPathRelative(
       this.filesystem,
-      List.of(this.components.getLast())
+      this.names,
+      this.start + this.count - 1,
+      1
     );
   }
 
   @Override
   public FBFSPathRelative getParent()
   {
-    final var sub =
-      this.components.subList(0, this.components.size() - 1);
-
-    if (sub.isEmpty()) {
+    if (this.count == 1) {
       return null;
     }
 
     return new FBFSPathRelative(
       this.filesystem,
-      sub
+      this.names,
+      this.start,
+      this.count - 1
     );
   }
 
   @Override
   public int getNameCount()
   {
-    return this.components.size();
+    return this.count;
   }
 
   @Override
@@ -156,7 +255,9 @@ public final class FBFSPathRelative implements FBFSPathType
   {
     return new FBFSPathRelative(
       this.filesystem,
-      List.of(this.components.get(index))
+      this.names,
+      this.start + Objects.checkIndex(index, this.count),
+      1
     );
   }
 
@@ -165,16 +266,37 @@ public final class FBFSPathRelative implements FBFSPathType
     final int beginIndex,
     final int endIndex)
   {
+    Objects.checkFromToIndex(beginIndex, endIndex, this.count);
+    checkNotEmpty(endIndex - beginIndex);
+
     return new FBFSPathRelative(
       this.filesystem,
-      this.components.subList(beginIndex, endIndex)
+      this.names,
+      this.start + beginIndex,
+      endIndex - beginIndex
     );
   }
 
   @Override
   public String toString()
   {
-    return String.join("/", this.components);
+    var t = this.text;
+    if (t == null) {
+      if (this.count == 1) {
+        t = this.names[this.start];
+      } else {
+        final var builder = new StringBuilder(16 * this.count);
+        for (int index = 0; index < this.count; ++index) {
+          if (index > 0) {
+            builder.append('/');
+          }
+          builder.append(this.names[this.start + index]);
+        }
+        t = builder.toString();
+      }
+      this.text = t;
+    }
+    return t;
   }
 
   @Override
@@ -184,17 +306,18 @@ public final class FBFSPathRelative implements FBFSPathType
     final var prefixPath =
       this.checkPath(prefix);
     final var prefixSize =
-      prefixPath.components.size();
-    final var thisSize =
-      this.components.size();
+      prefixPath.count;
 
-    if (prefixSize > thisSize) {
+    if (prefixSize > this.count) {
       return false;
     }
 
     return componentsEquals(
-      prefixPath.components,
-      this.components.subList(0, prefixSize)
+      prefixPath.names,
+      prefixPath.start,
+      this.names,
+      this.start,
+      prefixSize
     );
   }
 
@@ -223,17 +346,18 @@ public final class FBFSPathRelative implements FBFSPathType
     final var suffixPath =
       this.checkPath(suffix);
     final var suffixSize =
-      suffixPath.components.size();
-    final var thisSize =
-      this.components.size();
+      suffixPath.count;
 
-    if (suffixSize > thisSize) {
+    if (suffixSize > this.count) {
       return false;
     }
 
     return componentsEquals(
-      suffixPath.components,
-      this.components.subList(thisSize - suffixSize, thisSize)
+      suffixPath.names,
+      suffixPath.start,
+      this.names,
+      this.start + this.count - suffixSize,
+      suffixSize
     );
   }
 
@@ -250,15 +374,19 @@ public final class FBFSPathRelative implements FBFSPathType
     final var otherRel =
       this.checkPath(other);
 
-    final var names = new ArrayList<String>(
-      this.getNameCount() + otherRel.getNameCount()
+    final var newNames = new String[this.count + otherRel.count];
+    System.arraycopy(this.names, this.start, newNames, 0, this.count);
+    System.arraycopy(
+      otherRel.names,
+      otherRel.start,
+      newNames,
+      this.count,
+      otherRel.count
     );
-    names.addAll(this.components);
-    names.addAll(otherRel.components);
 
     return new FBFSPathRelative(
       this.filesystem,
-      names
+      newNames
     );
   }
 
@@ -301,6 +429,28 @@ public final class FBFSPathRelative implements FBFSPathType
   public int compareTo(
     final Path other)
   {
-    return this.toString().compareToIgnoreCase(other.toString());
+    return switch (other) {
+      case final FBFSPathAbsolute otherAbs -> {
+        yield componentsCompare(
+          this.names,
+          this.start,
+          this.count,
+          otherAbs.names(),
+          0,
+          otherAbs.getNameCount() + 1
+        );
+      }
+      case final FBFSPathRelative otherRel -> {
+        yield componentsCompare(
+          this.names,
+          this.start,
+          this.count,
+          otherRel.names(),
+          otherRel.start(),
+          otherRel.getNameCount()
+        );
+      }
+      default -> this.toString().compareToIgnoreCase(other.toString());
+    };
   }
 }
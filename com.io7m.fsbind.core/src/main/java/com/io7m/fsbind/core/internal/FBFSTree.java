@@ -18,41 +18,140 @@ package com.io7m.fsbind.core.internal;
 
 import net.jcip.annotations.GuardedBy;
 import net.jcip.annotations.ThreadSafe;
-import org.jgrapht.graph.DirectedAcyclicGraph;
 
-import java.io.IOException;
-import java.io.UncheckedIOException;
 import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.Iterator;
+import java.nio.file.ReadOnlyFileSystemException;
+import java.nio.file.WatchEvent;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.StampedLock;
+
+import static com.io7m.fsbind.core.internal.FBFSPathComponents.foldCase;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
 
 /**
- * A tree representing the filesystem.
+ * A tree representing the filesystem. Readers of the tree share a read lock
+ * and therefore never block each other; only structural changes take the
+ * write lock.
+ *
+ * The tree is stored directly in the nodes: each virtual directory holds a
+ * reference to its parent and an index of its children. Mount nodes occupy
+ * the position of the node they shadow, and therefore share its parent.
+ *
+ * A tree may be frozen, after which it can no longer be modified. Freezing
+ * replaces the child index of every directory with an immutable copy, and
+ * listings of frozen directories do not take the tree lock. The generation
+ * of a frozen tree never changes, and is read without a volatile read.
+ *
+ * Listeners may be attached to virtual directories. Each structural change
+ * is published to the listeners of the directory whose entries changed,
+ * after the write lock has been released. Listeners may also be attached to
+ * the layers of a mount, and are told when the mount is replaced or
+ * unmounted.
  */
 
 @ThreadSafe
 public final class FBFSTree
 {
-  private final Object treeLock;
-  @GuardedBy("treeLock")
-  private final DirectedAcyclicGraph<FBFSObjectType, FBEdge> tree;
+  private final StampedLock treeLock;
   private final FBFSObjectVirtualDirectory root;
+  private final AtomicLong generation;
+  private final ConcurrentHashMap<FBFSObjectVirtualDirectory, Set<ListenerType>>
+    listeners;
+  private final ConcurrentHashMap<FBMountLayers, Set<MountListenerType>>
+    mountListeners;
+  private volatile boolean frozen;
+
+  /*
+   * The generation of the tree at the time it was frozen. Deliberately not
+   * volatile: it is set at most once, to an immutable value that is safe to
+   * publish via a data race, and a reader that observes a stale null falls
+   * back to the atomic generation (which has the same value).
+   */
+
+  private FrozenGeneration frozenGeneration;
+
+  private record FrozenGeneration(long value)
+  {
+
+  }
+
+  /**
+   * A listener for changes to the entries of a virtual directory.
+   */
+
+  public interface ListenerType
+  {
+    /**
+     * An entry of a directory was created, deleted, or replaced. An entry
+     * is replaced when a filesystem is mounted over it or unmounted from it.
+     *
+     * @param directory The directory
+     * @param kind      The kind of change
+     * @param name      The name of the entry
+     */
+
+    void onEntryChanged(
+      FBFSObjectVirtualDirectory directory,
+      WatchEvent.Kind<Path> kind,
+      String name);
+
+    /**
+     * A directory was removed from the tree, or became unreachable because
+     * a filesystem was mounted over it or over one of its ancestors.
+     *
+     * @param directory The directory
+     */
+
+    void onDirectoryRemoved(
+      FBFSObjectVirtualDirectory directory);
+  }
+
+  /**
+   * A listener for changes to a mount.
+   */
+
+  interface MountListenerType
+  {
+    /**
+     * The mount with the given layers was replaced, either by a different
+     * mount, by a mount with a different set of layers, or by the object
+     * that it shadowed.
+     *
+     * @param layers The layers of the replaced mount
+     */
+
+    void onMountReplaced(
+      FBMountLayers layers);
+  }
 
   private FBFSTree(
     final FBFSObjectVirtualDirectory inRoot)
   {
     this.root =
       Objects.requireNonNull(inRoot, "root");
+    this.listeners =
+      new ConcurrentHashMap<>();
+    this.mountListeners =
+      new ConcurrentHashMap<>();
     this.treeLock =
-      new Object();
-    this.tree =
-      new DirectedAcyclicGraph<>(FBEdge.class);
-
-    this.tree.addVertex(this.root);
+      new StampedLock();
+    this.generation =
+      new AtomicLong(0L);
   }
 
   /**
@@ -69,6 +168,196 @@ public final class FBFSTree
     return new FBFSTree(root);
   }
 
+  /**
+   * Attach a listener to a virtual directory.
+   *
+   * @param directory The directory
+   * @param listener  The listener
+   */
+
+  public void addListener(
+    final FBFSObjectVirtualDirectory directory,
+    final ListenerType listener)
+  {
+    Objects.requireNonNull(directory, "directory");
+    Objects.requireNonNull(listener, "listener");
+
+    this.listeners.computeIfAbsent(
+      directory,
+      k -> ConcurrentHashMap.newKeySet()
+    ).add(listener);
+  }
+
+  /**
+   * Detach a listener from a virtual directory.
+   *
+   * @param directory The directory
+   * @param listener  The listener
+   */
+
+  public void removeListener(
+    final FBFSObjectVirtualDirectory directory,
+    final ListenerType listener)
+  {
+    this.listeners.computeIfPresent(directory, (k, existing) -> {
+      existing.remove(listener);
+      return existing.isEmpty() ? null : existing;
+    });
+  }
+
+  /**
+   * Attach a listener to the mount with the given layers. As every change
+   * to a mount produces a new set of layers, the listener is told of the
+   * first change to the mount and is then detached.
+   *
+   * @param layers   The layers of the mount
+   * @param listener The listener
+   */
+
+  void addMountListener(
+    final FBMountLayers layers,
+    final MountListenerType listener)
+  {
+    Objects.requireNonNull(layers, "layers");
+    Objects.requireNonNull(listener, "listener");
+
+    this.mountListeners.computeIfAbsent(
+      layers,
+      k -> ConcurrentHashMap.newKeySet()
+    ).add(listener);
+  }
+
+  /**
+   * Detach a listener from the mount with the given layers.
+   *
+   * @param layers   The layers of the mount
+   * @param listener The listener
+   */
+
+  void removeMountListener(
+    final FBMountLayers layers,
+    final MountListenerType listener)
+  {
+    this.mountListeners.computeIfPresent(layers, (k, existing) -> {
+      existing.remove(listener);
+      return existing.isEmpty() ? null : existing;
+    });
+  }
+
+  /**
+   * @param directory The directory
+   *
+   * @return {@code true} if the directory is the root, or is reachable from
+   * the root without passing through a mount
+   */
+
+  public boolean isAttached(
+    final FBFSObjectVirtualDirectory directory)
+  {
+    final var stamp = this.treeLock.readLock();
+    try {
+      return this.isWithin(directory, this.root);
+    } finally {
+      this.treeLock.unlockRead(stamp);
+    }
+  }
+
+  /*
+   * A directory that has been shadowed by a mount keeps its parent, but is
+   * no longer the child of that parent, and so each step is checked.
+   */
+
+  @GuardedBy("treeLock")
+  private boolean isWithin(
+    final FBFSObjectVirtualDirectory directory,
+    final FBFSObjectVirtualDirectory ancestor)
+  {
+    var current = directory;
+    while (current != null) {
+      if (current == ancestor) {
+        return true;
+      }
+      final var parent = current.parent();
+      if (parent == null
+          || parent.children().get(foldCase(current.name())) != current) {
+        return false;
+      }
+      current = parent;
+    }
+    return false;
+  }
+
+  private void publish(
+    final FBFSObjectVirtualDirectory directory,
+    final WatchEvent.Kind<Path> kind,
+    final String name)
+  {
+    if (directory == null) {
+      return;
+    }
+    final var existing = this.listeners.get(directory);
+    if (existing != null) {
+      for (final var listener : existing) {
+        listener.onEntryChanged(directory, kind, name);
+      }
+    }
+  }
+
+  private void publishRemoved(
+    final FBFSObjectVirtualDirectory directory)
+  {
+    final var existing = this.listeners.remove(directory);
+    if (existing != null) {
+      for (final var listener : existing) {
+        listener.onDirectoryRemoved(directory);
+      }
+    }
+  }
+
+  /*
+   * A virtual directory that is shadowed by a mount, along with every
+   * directory beneath it, is no longer reachable, and so is treated by
+   * listeners as having been removed.
+   */
+
+  private void publishShadowed(
+    final FBFSObjectType node)
+  {
+    if (!(node instanceof final FBFSObjectVirtualDirectory shadowed)) {
+      return;
+    }
+
+    final var removed = new ArrayList<FBFSObjectVirtualDirectory>();
+    final var stamp = this.treeLock.readLock();
+    try {
+      for (final var directory : this.listeners.keySet()) {
+        if (this.isWithin(directory, shadowed)) {
+          removed.add(directory);
+        }
+      }
+    } finally {
+      this.treeLock.unlockRead(stamp);
+    }
+
+    for (final var directory : removed) {
+      this.publishRemoved(directory);
+    }
+  }
+
+  private void publishMountReplaced(
+    final FBFSObjectType node)
+  {
+    if (!(node instanceof final FBFSObjectMount mount)) {
+      return;
+    }
+    final var existing = this.mountListeners.remove(mount.layers());
+    if (existing != null) {
+      for (final var listener : existing) {
+        listener.onMountReplaced(mount.layers());
+      }
+    }
+  }
+
   /**
    * Delete the given virtual directory if it is empty.
    *
@@ -82,40 +371,63 @@ public final class FBFSTree
   {
     Objects.requireNonNull(directory, "directory");
 
-    synchronized (this.treeLock) {
-      if (this.tree.outDegreeOf(directory) == 0) {
-        this.tree.removeVertex(directory);
-        return true;
+    final FBFSObjectVirtualDirectory parent;
+    final var stamp = this.treeLock.writeLock();
+    try {
+      this.checkNotFrozen();
+
+      parent = directory.parent();
+      if (parent == null || !directory.children().isEmpty()) {
+        return false;
       }
-      return false;
+      parent.removeChild(foldCase(directory.name()), directory);
+      directory.setParent(null);
+      this.generation.incrementAndGet();
+    } finally {
+      this.treeLock.unlockWrite(stamp);
     }
+
+    this.publish(parent, ENTRY_DELETE, directory.name());
+    this.publishRemoved(directory);
+    return true;
   }
 
   /**
-   * Append the given child node to the given directory node.
+   * Append the given child node to the given directory node. The caller
+   * must hold the write lock.
    *
    * @param parentNode The directory
    * @param newNode    The child node
    */
 
+  @GuardedBy("treeLock")
   private void append(
     final FBFSObjectVirtualDirectory parentNode,
     final FBFSObjectType newNode)
   {
-    Objects.requireNonNull(parentNode, "parentNode");
-    Objects.requireNonNull(newNode, "newNode");
-
-    synchronized (this.treeLock) {
-      this.tree.addVertex(newNode);
-      this.addEdge(parentNode, newNode);
+    if (newNode instanceof final FBFSObjectVirtualDirectory directory) {
+      directory.setParent(parentNode);
     }
+    parentNode.putChild(foldCase(newNode.name()), newNode);
+    this.generation.incrementAndGet();
   }
 
-  private void addEdge(
-    final FBFSObjectType parent,
-    final FBFSObjectType child)
+  @GuardedBy("treeLock")
+  private FBFSObjectVirtualDirectory parentOf(
+    final FBFSObjectType node)
   {
-    this.tree.addEdge(parent, child, new FBEdge(parent, child));
+    final var parent = switch (node) {
+      case final FBFSObjectVirtualDirectory directory -> directory.parent();
+      case final FBFSObjectMount mount -> this.parentOf(mount.shadowedObject());
+      case final FBFSObjectReal ignored -> null;
+    };
+
+    if (parent == null) {
+      throw new IllegalStateException(
+        "Node %s has no parent directory.".formatted(node.name())
+      );
+    }
+    return parent;
   }
 
   /**
@@ -135,24 +447,34 @@ public final class FBFSTree
     Objects.requireNonNull(parentNode, "parentNode");
     Objects.requireNonNull(newNode, "newNode");
 
-    final var name = newNode.name();
-    synchronized (this.treeLock) {
-      final var outgoing = this.tree.outgoingEdgesOf(parentNode);
-      for (final var edge : outgoing) {
-        final var childName = edge.child().name();
-        if (childName.equalsIgnoreCase(name)) {
-          return false;
-        }
+    final var name = foldCase(newNode.name());
+    final var stamp = this.treeLock.writeLock();
+    try {
+      this.checkNotFrozen();
+
+      if (parentNode.children().containsKey(name)) {
+        return false;
       }
       this.append(parentNode, newNode);
+    } finally {
+      this.treeLock.unlockWrite(stamp);
     }
+
+    this.publish(parentNode, ENTRY_CREATE, newNode.name());
     return true;
   }
 
   /**
+   * List the children of a virtual directory. The names of the children are
+   * copied under the tree lock, and the returned stream constructs and
+   * filters paths lazily, over that snapshot, as it is iterated. Later
+   * changes to the directory are not reflected in the stream.
+   *
    * @param parent    The parent
    * @param directory The directory
    * @param filter    The filter
+   * @param sorted    {@code true} if the entries must be returned in path
+   *                  order
    *
    * @return The directory stream
    *
@@ -162,32 +484,192 @@ public final class FBFSTree
   public DirectoryStream<Path> list(
     final FBFSPathAbsolute parent,
     final FBFSObjectVirtualDirectory directory,
-    final DirectoryStream.Filter<? super Path> filter)
+    final DirectoryStream.Filter<? super Path> filter,
+    final boolean sorted)
   {
     Objects.requireNonNull(parent, "parent");
     Objects.requireNonNull(directory, "directory");
     Objects.requireNonNull(filter, "filter");
 
-    synchronized (this.treeLock) {
-      final var elements =
-        this.tree.outgoingEdgesOf(directory)
-          .stream()
-          .map(FBEdge::child)
-          .map(FBFSObjectType::name)
-          .map(parent::resolve)
-          .map(Path.class::cast)
-          .filter(p -> {
-            try {
-              return filter.accept(p);
-            } catch (final IOException e) {
-              throw new UncheckedIOException(e);
-            }
-          })
-          .sorted()
-          .toList();
+    final var frozenNames = directory.frozenChildNames();
+    if (frozenNames != null) {
+      return new FBFSDirectoryStream(parent, frozenNames, filter);
+    }
+
+    final List<String> names;
+    final var stamp = this.treeLock.readLock();
+    try {
+      if (sorted) {
+        names = namesOf(directory.sortedChildren().values());
+      } else {
+        names = namesOf(directory.children().values());
+      }
+    } finally {
+      this.treeLock.unlockRead(stamp);
+    }
+    return new FBFSDirectoryStream(parent, names, filter);
+  }
+
+  /**
+   * List at most {@code limit} children of a virtual directory, in path
+   * order, starting with the first child whose name orders strictly after
+   * {@code after} (compared case-insensitively). The cost of the operation
+   * is proportional to the size of the returned page, not to the size of
+   * the directory.
+   *
+   * @param parent    The parent
+   * @param directory The directory
+   * @param after     The name after which to start, if any
+   * @param limit     The maximum number of entries
+   *
+   * @return The page of paths
+   */
+
+  public List<Path> listPage(
+    final FBFSPathAbsolute parent,
+    final FBFSObjectVirtualDirectory directory,
+    final Optional<String> after,
+    final int limit)
+  {
+    Objects.requireNonNull(parent, "parent");
+    Objects.requireNonNull(directory, "directory");
+    Objects.requireNonNull(after, "after");
+
+    final var frozenNames = directory.frozenChildNames();
+    if (frozenNames != null) {
+      return pageOf(parent, frozenPageOf(frozenNames, after, limit));
+    }
+
+    final List<String> names;
+    final var stamp = this.treeLock.readLock();
+    try {
+      final var sorted = directory.sortedChildren();
+      final var tail = after.isPresent()
+        ? sorted.tailMap(foldCase(after.get()), false)
+        : sorted;
+      names = namesOf(tail.values(), limit);
+    } finally {
+      this.treeLock.unlockRead(stamp);
+    }
+    return pageOf(parent, names);
+  }
+
+  private static List<String> frozenPageOf(
+    final List<String> frozenNames,
+    final Optional<String> after,
+    final int limit)
+  {
+    int start = 0;
+    if (after.isPresent()) {
+      final var key = foldCase(after.get());
+      int low = 0;
+      int high = frozenNames.size();
+      while (low < high) {
+        final int middle = (low + high) >>> 1;
+        if (foldCase(frozenNames.get(middle)).compareTo(key) <= 0) {
+          low = middle + 1;
+        } else {
+          high = middle;
+        }
+      }
+      start = low;
+    }
+    final var end = (int) Math.min(frozenNames.size(), (long) start + limit);
+    return frozenNames.subList(start, end);
+  }
+
+  private static List<Path> pageOf(
+    final FBFSPathAbsolute parent,
+    final List<String> names)
+  {
+    final var paths = new Path[names.size()];
+    for (int index = 0; index < paths.length; ++index) {
+      paths[index] = parent.resolveTrusted(names.get(index));
+    }
+    return List.of(paths);
+  }
+
+  /**
+   * Determine the attributes of every child of a virtual directory. The
+   * attributes of virtual objects are held in memory, so no I/O is
+   * performed.
+   *
+   * @param directory The directory
+   *
+   * @return The attributes of the children, by name
+   */
+
+  public Map<String, BasicFileAttributes> attributesOf(
+    final FBFSObjectVirtualDirectory directory)
+  {
+    Objects.requireNonNull(directory, "directory");
+
+    /*
+     * The child index of a frozen directory is immutable, and so can be
+     * read without the tree lock.
+     */
+
+    if (directory.frozenChildNames() != null) {
+      return attributesOfChildren(directory);
+    }
+
+    final var stamp = this.treeLock.readLock();
+    try {
+      return attributesOfChildren(directory);
+    } finally {
+      this.treeLock.unlockRead(stamp);
+    }
+  }
+
+  private static Map<String, BasicFileAttributes> attributesOfChildren(
+    final FBFSObjectVirtualDirectory directory)
+  {
+    final var children = directory.children().values();
+    final var results =
+      HashMap.<String, BasicFileAttributes>newHashMap(children.size());
+
+    for (final var child : children) {
+      switch (child) {
+        case final FBFSObjectVirtualDirectory d -> {
+          results.put(d.name(), d.attributes());
+        }
+        case final FBFSObjectMount m -> {
+          results.put(m.name(), m.attributes());
+        }
+        case final FBFSObjectReal ignored -> {
+          // Real objects never appear in virtual directories.
+        }
+      }
+    }
+    return results;
+  }
+
+  static List<String> namesOf(
+    final Collection<FBFSObjectType> children)
+  {
+    final var names = new String[children.size()];
+    final var iterator = children.iterator();
+    for (int index = 0; index < names.length; ++index) {
+      names[index] = iterator.next().name();
+    }
+    return Arrays.asList(names);
+  }
+
+  /*
+   * The size of a view of a sorted map is not known without walking the
+   * view, so the names are accumulated until the limit is reached.
+   */
 
-      return new FBFSNodeDirectoryStream(elements);
+  private static List<String> namesOf(
+    final Collection<FBFSObjectType> children,
+    final int limit)
+  {
+    final var names = new ArrayList<String>(Math.min(limit, 1024));
+    final var iterator = children.iterator();
+    while (names.size() < limit && iterator.hasNext()) {
+      names.add(iterator.next().name());
     }
+    return names;
   }
 
   /**
@@ -204,21 +686,46 @@ public final class FBFSTree
     Objects.requireNonNull(existing, "existing");
     Objects.requireNonNull(newNode, "newNode");
 
-    synchronized (this.treeLock) {
-      final var incoming =
-        this.tree.incomingEdgesOf(existing);
-      final var outgoing =
-        this.tree.outgoingEdgesOf(existing);
+    final FBFSObjectVirtualDirectory parent;
+    final var stamp = this.treeLock.writeLock();
+    try {
+      this.checkNotFrozen();
 
-      this.tree.addVertex(newNode);
-      for (final var edge : incoming) {
-        this.addEdge(edge.parent(), newNode);
-      }
-      for (final var edge : outgoing) {
-        this.addEdge(newNode, edge.child());
+      parent = this.parentOf(existing);
+      final var replaced =
+        parent.replaceChild(foldCase(existing.name()), existing, newNode);
+
+      if (!replaced) {
+        throw new IllegalStateException(
+          "Node %s is no longer present in the tree."
+            .formatted(existing.name())
+        );
       }
-      this.tree.removeVertex(existing);
+      this.generation.incrementAndGet();
+    } finally {
+      this.treeLock.unlockWrite(stamp);
     }
+
+    this.publish(parent, ENTRY_MODIFY, newNode.name());
+    this.publishShadowed(existing);
+    this.publishMountReplaced(existing);
+  }
+
+  /**
+   * The generation of the tree. The generation is incremented each time the
+   * structure of the tree changes, and can therefore be used to invalidate
+   * any information derived from the tree.
+   *
+   * @return The current tree generation
+   */
+
+  public long generation()
+  {
+    final var frozenNow = this.frozenGeneration;
+    if (frozenNow != null) {
+      return frozenNow.value();
+    }
+    return this.generation.get();
   }
 
   /**
@@ -231,69 +738,128 @@ public final class FBFSTree
   }
 
   /**
+   * Find the child of the given directory with the given name. Names are
+   * compared case-insensitively. This operation does not take the tree lock
+   * and does not allocate if the name is already case-folded.
+   *
    * @param directory The directory
+   * @param name      The child name
    *
-   * @return A read-only snapshot of the outgoing directory edges
+   * @return The child, or {@code null} if no such child exists
    */
 
-  public Set<FBEdge> outgoingEdgesOf(
-    final FBFSObjectVirtualDirectory directory)
+  public FBFSObjectType childOf(
+    final FBFSObjectVirtualDirectory directory,
+    final String name)
   {
-    synchronized (this.treeLock) {
-      return Set.copyOf(this.tree.outgoingEdgesOf(directory));
-    }
+    return directory.children().get(foldCase(name));
   }
 
   /**
-   * Rename the given node.
+   * Rename the given node if the parent of the node does not have a
+   * different child with the same name.
    *
    * @param source The source
    * @param name   The new name
+   *
+   * @return {@code true} if the node was renamed
    */
 
-  public void rename(
+  public boolean renameIfNameFree(
     final FBFSObjectVirtualDirectory source,
     final String name)
   {
-    synchronized (this.treeLock) {
+    Objects.requireNonNull(source, "source");
+    Objects.requireNonNull(name, "name");
+
+    final var newKey = foldCase(name);
+    final FBFSObjectVirtualDirectory parent;
+    final String oldName;
+    final var stamp = this.treeLock.writeLock();
+    try {
+      this.checkNotFrozen();
+
+      parent = this.parentOf(source);
+      oldName = source.name();
+      final var oldKey = foldCase(oldName);
+      final var existing = parent.children().get(newKey);
+      if (existing != null && existing != source) {
+        return false;
+      }
+
+      parent.removeChild(oldKey, source);
       source.setName(name);
+      parent.putChild(newKey, source);
+      this.generation.incrementAndGet();
+    } finally {
+      this.treeLock.unlockWrite(stamp);
     }
+
+    if (!oldName.equals(name)) {
+      this.publish(parent, ENTRY_DELETE, oldName);
+      this.publish(parent, ENTRY_CREATE, name);
+    }
+    return true;
   }
 
   /**
-   * Unmount the given node.
-   *
-   * @param mount The mount
+   * Freeze the tree. Any subsequent attempt to modify the tree will fail
+   * with {@link ReadOnlyFileSystemException}. Freezing an already frozen
+   * tree has no effect.
    */
 
-  public void unmount(
-    final FBFSObjectMount mount)
+  public void freeze()
   {
-    this.replaceWith(mount, mount.shadowedObject());
+    final var stamp = this.treeLock.writeLock();
+    try {
+      if (!this.frozen) {
+        freezeDirectory(this.root);
+        this.frozenGeneration =
+          new FrozenGeneration(this.generation.get());
+        this.frozen = true;
+      }
+    } finally {
+      this.treeLock.unlockWrite(stamp);
+    }
   }
 
-  private static final class FBFSNodeDirectoryStream
-    implements DirectoryStream<Path>
+  private static void freezeDirectory(
+    final FBFSObjectVirtualDirectory directory)
   {
-    private final List<Path> elements;
-
-    FBFSNodeDirectoryStream(
-      final List<Path> inElements)
-    {
-      this.elements =
-        Objects.requireNonNull(inElements, "elements");
+    directory.freeze();
+    for (final var child : directory.children().values()) {
+      if (child instanceof final FBFSObjectVirtualDirectory childDirectory) {
+        freezeDirectory(childDirectory);
+      }
     }
+  }
 
-    @Override
-    public Iterator<Path> iterator()
-    {
-      return this.elements.iterator();
-    }
+  /**
+   * @return {@code true} if the tree has been frozen
+   */
 
-    @Override
-    public void close()
-    {
+  public boolean isFrozen()
+  {
+    return this.frozen;
+  }
 
+  @GuardedBy("treeLock")
+  private void checkNotFrozen()
+  {
+    if (this.frozen) {
+      throw new ReadOnlyFileSystemException();
     }
   }
+
+  /**
+   * Unmount the given node.
+   *
+   * @param mount The mount
+   */
+
+  public void unmount(
+    final FBFSObjectMount mount)
+  {
+    this.replaceWith(mount, mount.shadowedObject());
+  }
 }
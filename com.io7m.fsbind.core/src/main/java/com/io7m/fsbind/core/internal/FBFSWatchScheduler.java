@@ -0,0 +1,356 @@
+/*
+ * Copyright © 2025 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.fsbind.core.internal;
+
+import com.io7m.fsbind.core.FBWatchStatistics;
+import net.jcip.annotations.GuardedBy;
+import net.jcip.annotations.ThreadSafe;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A scheduler that polls watched paths in batches.
+ *
+ * The polling interval is divided into a fixed number of ticks, and each
+ * tick is associated with a slot of a timer wheel. A watched path is
+ * assigned to the slot holding the fewest paths when it is registered, and
+ * is checked once per revolution of the wheel, when the tick for its slot
+ * comes around. The checks for a tick are divided into batches and executed
+ * on a bounded pool of workers. The number of checks made per tick is
+ * therefore roughly the number of watched paths divided by the number of
+ * slots, rather than every path being checked at whatever moment its own
+ * thread happens to wake up.
+ *
+ * A tick that takes longer than the tick period delays the ticks that
+ * follow it; missed ticks are not made up. A check that fails is logged and
+ * does not prevent the other checks of its batch from being made.
+ *
+ * The threads of the scheduler are started when an object is added to an
+ * empty scheduler, and are stopped when the last object is removed.
+ */
+
+@ThreadSafe
+final class FBFSWatchScheduler implements Closeable
+{
+  private static final Logger LOG =
+    LoggerFactory.getLogger(FBFSWatchScheduler.class);
+
+  private static final int SLOTS_MAXIMUM = 64;
+  private static final long TICK_MINIMUM_NANOS =
+    Duration.ofMillis(10L).toNanos();
+  private static final int BATCH_SIZE = 64;
+
+  private final List<Set<PolledType>> slots;
+  private final ConcurrentHashMap<PolledType, Integer> assignments;
+  private final long tickNanos;
+  private final int workerCount;
+  private final Object lock;
+  private final AtomicLong ticks;
+  private final AtomicLong checks;
+  private final AtomicLong events;
+  private final AtomicLong overruns;
+  private volatile int lastTickChecks;
+  private volatile long lastTickNanos;
+  @GuardedBy("lock")
+  private Thread ticker;
+  @GuardedBy("lock")
+  private ExecutorService workers;
+  @GuardedBy("lock")
+  private boolean closed;
+
+  /**
+   * An object checked by the scheduler.
+   */
+
+  interface PolledType
+  {
+    /**
+     * Check the object.
+     *
+     * @return The number of events published by the check
+     */
+
+    int check();
+  }
+
+  /**
+   * Create a scheduler.
+   *
+   * @param interval    The interval at which each object is checked
+   * @param workerCount The maximum number of concurrent checks
+   */
+
+  FBFSWatchScheduler(
+    final Duration interval,
+    final int workerCount)
+  {
+    Objects.requireNonNull(interval, "interval");
+
+    final var intervalNanos =
+      Math.max(interval.toNanos(), TICK_MINIMUM_NANOS);
+    final var slotCount =
+      (int) Math.clamp(intervalNanos / TICK_MINIMUM_NANOS, 1L, SLOTS_MAXIMUM);
+
+    this.tickNanos =
+      intervalNanos / slotCount;
+    this.slots =
+      new ArrayList<>(slotCount);
+    for (int index = 0; index < slotCount; ++index) {
+      this.slots.add(ConcurrentHashMap.newKeySet());
+    }
+
+    this.workerCount =
+      Math.max(1, workerCount);
+    this.assignments =
+      new ConcurrentHashMap<>();
+    this.lock =
+      new Object();
+    this.ticks =
+      new AtomicLong(0L);
+    this.checks =
+      new AtomicLong(0L);
+    this.events =
+      new AtomicLong(0L);
+    this.overruns =
+      new AtomicLong(0L);
+  }
+
+  /**
+   * Add an object to be checked. The scheduler starts its threads if they
+   * are not running.
+   *
+   * @param object The object
+   */
+
+  void add(
+    final PolledType object)
+  {
+    Objects.requireNonNull(object, "object");
+
+    synchronized (this.lock) {
+      if (this.closed) {
+        return;
+      }
+
+      var slotIndex = 0;
+      var slotSize = Integer.MAX_VALUE;
+      for (int index = 0; index < this.slots.size(); ++index) {
+        final var size = this.slots.get(index).size();
+        if (size < slotSize) {
+          slotIndex = index;
+          slotSize = size;
+        }
+      }
+
+      this.slots.get(slotIndex).add(object);
+      this.assignments.put(object, Integer.valueOf(slotIndex));
+
+      if (this.ticker == null) {
+        final var newWorkers =
+          Executors.newFixedThreadPool(
+            this.workerCount,
+            Thread.ofVirtual()
+              .name("com.io7m.fsbind.core.internal.FBFSWatchScheduler[", 0L)
+              .factory()
+          );
+        this.workers =
+          newWorkers;
+        this.ticker =
+          Thread.ofVirtual()
+            .name("com.io7m.fsbind.core.internal.FBFSWatchScheduler.Ticker")
+            .start(() -> this.run(newWorkers));
+      }
+    }
+  }
+
+  /**
+   * Remove an object. The scheduler stops its threads if no objects remain.
+   *
+   * @param object The object
+   */
+
+  void remove(
+    final PolledType object)
+  {
+    synchronized (this.lock) {
+      final var slotIndex = this.assignments.remove(object);
+      if (slotIndex != null) {
+        this.slots.get(slotIndex.intValue()).remove(object);
+      }
+      if (this.assignments.isEmpty()) {
+        this.stopThreads();
+      }
+    }
+  }
+
+  /*
+   * Objects are removed by checks that find them to be invalid, and so this
+   * may be called on a worker thread. The workers are therefore shut down
+   * without being interrupted, and finish any batch that is in progress.
+   */
+
+  @GuardedBy("lock")
+  private void stopThreads()
+  {
+    if (this.ticker != null) {
+      this.ticker.interrupt();
+      this.workers.shutdown();
+      this.ticker = null;
+      this.workers = null;
+    }
+  }
+
+  /**
+   * @return The current statistics
+   */
+
+  FBWatchStatistics statistics()
+  {
+    return new FBWatchStatistics(
+      this.assignments.size(),
+      this.slots.size(),
+      Duration.ofNanos(this.tickNanos),
+      this.ticks.get(),
+      this.overruns.get(),
+      this.checks.get(),
+      this.events.get(),
+      this.lastTickChecks,
+      Duration.ofNanos(this.lastTickNanos)
+    );
+  }
+
+  private void run(
+    final ExecutorService workers)
+  {
+    var deadline = System.nanoTime();
+    var tick = 0L;
+
+    try {
+      while (!Thread.currentThread().isInterrupted()) {
+        deadline += this.tickNanos;
+        this.runTick(workers, tick);
+        ++tick;
+
+        final var remaining = deadline - System.nanoTime();
+        if (remaining > 0L) {
+          Thread.sleep(Duration.ofNanos(remaining));
+        } else {
+          this.overruns.incrementAndGet();
+          deadline = System.nanoTime();
+        }
+      }
+    } catch (final InterruptedException | RejectedExecutionException e) {
+      // Stopped.
+    }
+  }
+
+  private void runTick(
+    final ExecutorService workers,
+    final long tick)
+    throws InterruptedException
+  {
+    final var timeThen =
+      System.nanoTime();
+    final var objects =
+      List.copyOf(this.slots.get((int) (tick % this.slots.size())));
+
+    final var futures =
+      new ArrayList<Future<Integer>>(objects.size() / BATCH_SIZE + 1);
+
+    for (int index = 0; index < objects.size(); index += BATCH_SIZE) {
+      final var batch =
+        objects.subList(index, Math.min(index + BATCH_SIZE, objects.size()));
+      futures.add(workers.submit(() -> checkAll(batch)));
+    }
+
+    var published = 0;
+    for (final var future : futures) {
+      try {
+        published += future.get().intValue();
+      } catch (final ExecutionException e) {
+        LOG.debug("Check failed: ", e.getCause());
+      }
+    }
+
+    final var timeNow =
+      System.nanoTime();
+
+    this.ticks.incrementAndGet();
+    this.checks.addAndGet(objects.size());
+    this.events.addAndGet(published);
+    this.lastTickChecks = objects.size();
+    this.lastTickNanos = timeNow - timeThen;
+
+    if (LOG.isTraceEnabled()) {
+      LOG.trace(
+        "Tick {}: {} checks, {} events, {} ns",
+        Long.valueOf(tick),
+        Integer.valueOf(objects.size()),
+        Integer.valueOf(published),
+        Long.valueOf(timeNow - timeThen)
+      );
+    }
+  }
+
+  private static Integer checkAll(
+    final List<PolledType> batch)
+  {
+    var published = 0;
+    for (final var object : batch) {
+      try {
+        published += object.check();
+      } catch (final RuntimeException e) {
+        LOG.debug("Check of {} failed: ", object, e);
+      }
+    }
+    return Integer.valueOf(published);
+  }
+
+  @Override
+  public void close()
+  {
+    synchronized (this.lock) {
+      if (this.closed) {
+        return;
+      }
+      this.closed = true;
+      if (this.ticker != null) {
+        this.ticker.interrupt();
+        this.workers.shutdownNow();
+        this.ticker = null;
+        this.workers = null;
+      }
+      this.slots.forEach(Set::clear);
+      this.assignments.clear();
+    }
+  }
+}
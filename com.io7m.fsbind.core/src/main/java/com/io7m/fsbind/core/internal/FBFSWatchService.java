@@ -17,13 +17,19 @@
 
 package com.io7m.fsbind.core.internal;
 
+import com.io7m.fsbind.core.FBWatchModifier;
 import com.io7m.jmulticlose.core.CloseableCollection;
 import com.io7m.jmulticlose.core.CloseableCollectionType;
 import com.io7m.jmulticlose.core.ClosingResourceFailedException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
 import java.nio.file.Files;
+import java.nio.file.LinkOption;
 import java.nio.file.NoSuchFileException;
+import java.nio.file.NotDirectoryException;
 import java.nio.file.Path;
 import java.nio.file.StandardWatchEventKinds;
 import java.nio.file.WatchEvent;
@@ -31,12 +37,14 @@ import java.nio.file.WatchKey;
 import java.nio.file.WatchService;
 import java.nio.file.Watchable;
 import java.nio.file.attribute.FileTime;
-import java.time.Duration;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.Set;
-import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -44,33 +52,47 @@ import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
-import java.util.concurrent.atomic.AtomicReference;
 
 import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
 import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
 import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
 
 /**
- * A primitive watch service.
+ * A primitive watch service. Paths inside mounts of the default filesystem
+ * are, if permitted, watched using the watch service of the default
+ * filesystem, with events translated back into paths of this filesystem.
+ * All other paths are polled by the scheduler shared by all watch services
+ * of the filesystem.
  */
 
 public final class FBFSWatchService implements WatchService
 {
+  private static final Logger LOG =
+    LoggerFactory.getLogger(FBFSWatchService.class);
+
   private static final AtomicLong ID_POOL =
     new AtomicLong(0L);
 
-  private final ConcurrentHashMap.KeySetView<WatchedObject, Boolean> watched;
+  private final ConcurrentHashMap.KeySetView<WatchKey, Boolean> watched;
   private final CloseableCollectionType<ClosingResourceFailedException> resources;
   private final AtomicBoolean closed;
-  private final LinkedBlockingQueue<WatchedObject> ready;
+  private final LinkedBlockingQueue<WatchKey> ready;
   private final ExecutorService executor;
-  private final Duration watchDuration;
+  private final FBFSWatchScheduler scheduler;
+  private final boolean nativeEnabled;
+  private final Object nativeLock;
+  private FBFSNativeWatcher nativeWatcher;
 
   FBFSWatchService(
-    final Duration inWatchDuration)
+    final FBFSWatchScheduler inScheduler,
+    final boolean inNativeEnabled)
   {
-    this.watchDuration =
-      Objects.requireNonNull(inWatchDuration, "watchDuration");
+    this.scheduler =
+      Objects.requireNonNull(inScheduler, "scheduler");
+    this.nativeEnabled =
+      inNativeEnabled;
+    this.nativeLock =
+      new Object();
     this.watched =
       ConcurrentHashMap.newKeySet();
     this.resources =
@@ -97,7 +119,14 @@ public final class FBFSWatchService implements WatchService
       );
 
     this.resources.add(() -> {
-      this.watched.forEach(WatchedObject::cancel);
+      this.watched.forEach(WatchKey::cancel);
+    });
+    this.resources.add(() -> {
+      synchronized (this.nativeLock) {
+        if (this.nativeWatcher != null) {
+          this.nativeWatcher.close();
+        }
+      }
     });
   }
 
@@ -137,58 +166,245 @@ public final class FBFSWatchService implements WatchService
   }
 
   /**
-   * Register a path to be watched.
+   * Register a path to be watched. Virtual directories are not polled;
+   * changes to their entries are published by the filesystem tree as they
+   * are made. Other paths are watched using the watch service of the default
+   * filesystem if native watching is enabled and the path lies inside a
+   * mount of the default filesystem, and are polled otherwise.
+   *
+   * If the path is a directory, events are published for the entries of
+   * the directory, with the name of each entry as the event context.
+   * Otherwise, events are published for the path itself, with the path as
+   * the event context.
    *
-   * @param path   The path
-   * @param events The events
+   * If the {@link FBWatchModifier#FILE_TREE} modifier is given, the path
+   * must be a directory, and the entire tree below the directory is polled
+   * by a single key.
+   *
+   * @param path      The path
+   * @param events    The events
+   * @param modifiers The modifiers
    *
    * @return The watch key
+   *
+   * @throws IOException On errors
    */
 
   public WatchKey register(
     final FBFSPathAbsolute path,
+    final WatchEvent.Kind<?>[] events,
+    final WatchEvent.Modifier... modifiers)
+    throws IOException
+  {
+    if (this.closed.get()) {
+      throw new ClosedWatchServiceException();
+    }
+
+    final var recursive = isRecursive(modifiers);
+    final var directory = Files.isDirectory(path);
+    if (recursive) {
+      if (!directory) {
+        throw new NotDirectoryException(path.toString());
+      }
+      return this.start(new TreeWatchedObject(this, path, events));
+    }
+
+    final var filesystem = path.getFileSystem();
+    if (directory) {
+      final var virtual = filesystem.virtualDirectoryOf(path);
+      if (virtual.isPresent()) {
+        return this.registerVirtual(
+          path,
+          filesystem.tree(),
+          virtual.get(),
+          events
+        );
+      }
+    }
+
+    if (this.nativeEnabled) {
+      final var target = directory
+        ? filesystem.defaultFilesystemDirectoryOf(path)
+        : filesystem.defaultFilesystemPathOf(path);
+
+      if (target.isPresent()) {
+        final var layers =
+          filesystem.mountLayersOf(directory ? path : path.getParent());
+
+        try {
+          if (layers.isPresent()) {
+            return this.registerNative(
+              path,
+              target.get(),
+              layers.get(),
+              directory,
+              events
+            );
+          }
+        } catch (final IOException e) {
+          LOG.debug(
+            "Unable to watch {} natively, falling back to polling: ",
+            path,
+            e
+          );
+        }
+      }
+    }
+    return this.registerPolled(path, directory, events);
+  }
+
+  /*
+   * The JDK's own com.sun.nio.file.ExtendedWatchEventModifier.FILE_TREE is
+   * accepted by name, so that code written for it works unchanged.
+   */
+
+  private static boolean isRecursive(
+    final WatchEvent.Modifier[] modifiers)
+  {
+    var recursive = false;
+    for (final var modifier : modifiers) {
+      if (modifier == FBWatchModifier.FILE_TREE
+          || "FILE_TREE".equals(modifier.name())) {
+        recursive = true;
+      } else {
+        throw new UnsupportedOperationException(
+          "Unsupported modifier: %s".formatted(modifier.name())
+        );
+      }
+    }
+    return recursive;
+  }
+
+  private WatchKey registerVirtual(
+    final FBFSPathAbsolute path,
+    final FBFSTree tree,
+    final FBFSObjectVirtualDirectory directory,
+    final WatchEvent.Kind<?>[] events)
+  {
+    final var key =
+      new VirtualDirectoryWatchedObject(this, tree, directory, path, events);
+
+    this.watched.add(key);
+    key.start();
+    return key;
+  }
+
+  private WatchKey registerNative(
+    final FBFSPathAbsolute path,
+    final Path target,
+    final FBMountLayers layers,
+    final boolean directory,
+    final WatchEvent.Kind<?>[] events)
+    throws IOException
+  {
+    final var watcher =
+      this.nativeWatcher();
+
+    if (directory) {
+      return this.start(new NativeDirectoryWatchedObject(
+        this,
+        watcher,
+        layers,
+        path,
+        target,
+        events
+      ));
+    }
+    return this.start(new NativeWatchedObject(
+      this,
+      watcher,
+      layers,
+      path,
+      target,
+      events
+    ));
+  }
+
+  private FBFSNativeWatcher nativeWatcher()
+    throws IOException
+  {
+    synchronized (this.nativeLock) {
+      if (this.nativeWatcher == null) {
+        final var watcher = new FBFSNativeWatcher();
+        this.executor.execute(watcher::run);
+        this.nativeWatcher = watcher;
+      }
+      return this.nativeWatcher;
+    }
+  }
+
+  private WatchKey registerPolled(
+    final FBFSPathAbsolute path,
+    final boolean directory,
     final WatchEvent.Kind<?>[] events)
+    throws IOException
   {
-    return this.enqueue(new WatchedObject(this, path, events));
+    if (directory) {
+      try {
+        return this.start(new DirectoryWatchedObject(this, path, events));
+      } catch (final IOException e) {
+        LOG.debug(
+          "Unable to list {}, watching the path itself: ",
+          path,
+          e
+        );
+      }
+    }
+    return this.start(new WatchedObject(this, path, events));
   }
 
-  private WatchedObject enqueue(
-    final WatchedObject object)
+  private WatchKey start(
+    final AbstractWatchedObject key)
+    throws IOException
   {
-    this.watched.add(object);
-    this.executor.execute(object::run);
-    return object;
+    /*
+     * A key may be invalidated while it is starting, and so it must be
+     * known to the service before it starts.
+     */
+
+    this.watched.add(key);
+    try {
+      key.start();
+    } catch (final IOException e) {
+      this.watched.remove(key);
+      throw e;
+    }
+    return key;
   }
 
   private void dequeue(
-    final WatchedObject watchedObject)
+    final WatchKey watchedObject)
   {
     this.watched.remove(watchedObject);
   }
 
-  private record WatchedEvent(
-    Path context,
+  private record WatchedEvent<T>(
+    T context,
     int count,
-    Kind<Path> kind)
-    implements WatchEvent<Path>
+    Kind<T> kind)
+    implements WatchEvent<T>
   {
 
   }
 
-  private static final class WatchedObject implements WatchKey
+  /**
+   * The state common to all watch keys. A key is <i>ready</i> until an event
+   * is published, at which point it becomes <i>signalled</i> and is queued
+   * in the watch service. Events published while the key is signalled are
+   * accumulated, and a key that is reset while events are pending is queued
+   * again immediately.
+   */
+
+  private abstract static class AbstractWatchedObject implements WatchKey
   {
     private final FBFSWatchService service;
     private final FBFSPathAbsolute path;
-    private final AtomicBoolean done;
-    private final ArrayBlockingQueue<Object> shutDown;
-    private final AtomicReference<List<WatchedEvent>> eventOutbox;
     private final Set<WatchEvent.Kind<?>> watchingFor;
-    private final ArrayList<WatchedEvent> eventReady;
+    private final ArrayList<WatchedEvent<?>> eventReady;
+    private boolean signalled;
     private boolean valid;
-    private FileTime timeThen;
-    private FileTime timeNow;
 
-    private WatchedObject(
+    AbstractWatchedObject(
       final FBFSWatchService inService,
       final FBFSPathAbsolute inPath,
       final WatchEvent.Kind<?>[] inEvents)
@@ -196,199 +412,998 @@ public final class FBFSWatchService implements WatchService
       this.service =
         Objects.requireNonNull(inService, "service");
       this.path =
-        Objects.requireNonNull(inPath, "inPath");
-      this.valid =
-        true;
-      this.done =
-        new AtomicBoolean(false);
-      this.shutDown =
-        new ArrayBlockingQueue<>(1);
-      this.eventOutbox =
-        new AtomicReference<>(List.of());
+        Objects.requireNonNull(inPath, "path");
       this.watchingFor =
         Set.of(inEvents);
       this.eventReady =
         new ArrayList<>(3);
+      this.valid =
+        true;
+    }
+
+    final FBFSPathAbsolute path()
+    {
+      return this.path;
+    }
+
+    /**
+     * Publish an event for the watched path, if the key is watching for
+     * events of the given kind.
+     *
+     * @param kind The event kind
+     *
+     * @return {@code true} if an event was published
+     */
+
+    final boolean publish(
+      final WatchEvent.Kind<Path> kind)
+    {
+      return this.publish(kind, this.path);
+    }
+
+    /**
+     * Publish an event, if the key is watching for events of the given kind.
+     *
+     * @param kind    The event kind
+     * @param context The event context
+     *
+     * @return {@code true} if an event was published
+     */
+
+    /**
+     * @param kind The event kind
+     *
+     * @return {@code true} if the key is watching for events of the given
+     * kind
+     */
+
+    final boolean isWatching(
+      final WatchEvent.Kind<?> kind)
+    {
+      return this.watchingFor.contains(kind);
+    }
+
+    final boolean publish(
+      final WatchEvent.Kind<Path> kind,
+      final Path context)
+    {
+      if (!this.watchingFor.contains(kind)) {
+        return false;
+      }
+      return this.publishEvent(kind, context);
+    }
+
+    /**
+     * Publish an event indicating that events may have been lost. Such
+     * events are published regardless of the kinds of events being watched.
+     */
+
+    final void publishOverflow()
+    {
+      this.publishEvent(StandardWatchEventKinds.OVERFLOW, null);
+    }
+
+    private synchronized <T> boolean publishEvent(
+      final WatchEvent.Kind<T> kind,
+      final T context)
+    {
+      if (!this.valid) {
+        return false;
+      }
+
+      /*
+       * Repeated events of the same kind are coalesced into a single
+       * event with a count, as the underlying watch service does.
+       */
+
+      final var last = this.eventReady.size() - 1;
+      if (last >= 0) {
+        final var previous = this.eventReady.get(last);
+        if (previous.kind() == kind
+            && Objects.equals(previous.context(), context)) {
+          this.eventReady.set(last, new WatchedEvent<>(
+            context,
+            previous.count() + 1,
+            kind
+          ));
+          return true;
+        }
+      }
+
+      this.eventReady.add(new WatchedEvent<>(context, 1, kind));
+      this.signal();
+      return true;
+    }
+
+    private void signal()
+    {
+      if (!this.signalled) {
+        this.signalled = true;
+        this.service.ready.add(this);
+      }
+    }
+
+    /**
+     * Start watching.
+     *
+     * @throws IOException If the path cannot be watched
+     */
+
+    abstract void start()
+      throws IOException;
+
+    /**
+     * Mark the key as invalid because the watched object is no longer
+     * accessible. The key is signalled so that the invalidation is
+     * observed by consumers of the watch service.
+     */
+
+    final void invalidate()
+    {
+      synchronized (this) {
+        if (!this.valid) {
+          return;
+        }
+        this.valid = false;
+        this.signal();
+      }
+
+      this.onCancel();
+      this.service.dequeue(this);
     }
 
     @Override
-    public boolean isValid()
+    public final synchronized boolean isValid()
     {
       return this.valid;
     }
 
     @Override
-    public List<WatchEvent<?>> pollEvents()
+    public final synchronized List<WatchEvent<?>> pollEvents()
     {
-      return List.copyOf(this.eventOutbox.getAndSet(List.of()));
+      final List<WatchEvent<?>> events = List.copyOf(this.eventReady);
+      this.eventReady.clear();
+      return events;
     }
 
     @Override
-    public boolean reset()
+    public final synchronized boolean reset()
     {
-      if (this.done.compareAndSet(true, false)) {
-        this.shutDown.clear();
-        this.eventOutbox.set(null);
-        this.service.enqueue(this);
-        return true;
+      if (!this.valid) {
+        return false;
       }
-      return false;
+      if (this.signalled && !this.eventReady.isEmpty()) {
+        this.service.ready.add(this);
+      } else {
+        this.signalled = false;
+      }
+      return true;
     }
 
     @Override
-    public void cancel()
+    public final void cancel()
     {
-      if (this.done.compareAndSet(false, true)) {
-        this.shutDown.add(new Object());
+      synchronized (this) {
+        if (!this.valid) {
+          return;
+        }
+        this.valid = false;
       }
+
+      this.onCancel();
+      this.service.dequeue(this);
     }
 
+    /**
+     * Release any resources held by the key.
+     */
+
+    abstract void onCancel();
+
     @Override
-    public Watchable watchable()
+    public final Watchable watchable()
     {
       return this.path;
     }
+  }
+
+  /**
+   * A key for a path that is polled by the scheduler. Each check compares
+   * the modification time of the path with that of the previous check.
+   */
+
+  private static final class WatchedObject
+    extends AbstractWatchedObject
+    implements FBFSWatchScheduler.PolledType
+  {
+    private final FBFSWatchScheduler scheduler;
+    private FileTime timeThen;
 
-    public void check()
+    private WatchedObject(
+      final FBFSWatchService inService,
+      final FBFSPathAbsolute inPath,
+      final WatchEvent.Kind<?>[] inEvents)
     {
-      this.eventReady.clear();
+      super(inService, inPath, inEvents);
+      this.scheduler = inService.scheduler;
+      this.timeThen = this.modificationTime();
+    }
 
+    private FileTime modificationTime()
+    {
       try {
-        this.timeNow = Files.getLastModifiedTime(this.path);
-      } catch (final NoSuchFileException e) {
-        this.timeNow = null;
+        return Files.getLastModifiedTime(this.path());
       } catch (final IOException e) {
-        // Nothing we can do about it.
+        return null;
       }
+    }
+
+    @Override
+    public int check()
+    {
+      final var timeNow = this.modificationTime();
+      var published = 0;
 
-      if (this.watchingForEvent(ENTRY_CREATE)) {
-        this.checkCreated();
+      if (timeNow != null && this.timeThen == null) {
+        published += this.publish(ENTRY_CREATE) ? 1 : 0;
       }
-      if (this.watchingForEvent(ENTRY_DELETE)) {
-        this.checkDeleted();
+      if (timeNow == null && this.timeThen != null) {
+        published += this.publish(ENTRY_DELETE) ? 1 : 0;
       }
-      if (this.watchingForEvent(ENTRY_MODIFY)) {
-        this.checkModified();
+      if (timeNow != null && this.timeThen != null) {
+        if (!Objects.equals(timeNow, this.timeThen)) {
+          published += this.publish(ENTRY_MODIFY) ? 1 : 0;
+        }
       }
 
-      this.send();
-      this.timeThen = this.timeNow;
-      this.pause();
+      this.timeThen = timeNow;
+      return published;
     }
 
-    private void send()
+    @Override
+    void start()
     {
-      if (!this.eventReady.isEmpty()) {
-        this.eventOutbox.set(List.copyOf(this.eventReady));
-        this.eventReady.clear();
-        this.done.set(true);
-        this.service.ready.add(this);
-        this.service.dequeue(this);
+      this.scheduler.add(this);
+    }
+
+    @Override
+    void onCancel()
+    {
+      this.scheduler.remove(this);
+    }
+  }
+
+  /**
+   * A key for a directory that is polled by the scheduler. Each check lists
+   * the directory, along with the attributes of its entries, and compares
+   * the listing with that of the previous check. An entry is considered
+   * modified if its modification time or size has changed.
+   */
+
+  private static final class DirectoryWatchedObject
+    extends AbstractWatchedObject
+    implements FBFSWatchScheduler.PolledType
+  {
+    private final FBFSWatchScheduler scheduler;
+    private Map<String, EntrySnapshot> entriesThen;
+
+    private DirectoryWatchedObject(
+      final FBFSWatchService inService,
+      final FBFSPathAbsolute inPath,
+      final WatchEvent.Kind<?>[] inEvents)
+    {
+      super(inService, inPath, inEvents);
+      this.scheduler = inService.scheduler;
+    }
+
+    private Map<String, EntrySnapshot> entries()
+      throws IOException
+    {
+      final var attributes =
+        this.path().getFileSystem().listAttributes(this.path());
+      final var results =
+        HashMap.<String, EntrySnapshot>newHashMap(attributes.size());
+
+      for (final var entry : attributes.entrySet()) {
+        final var value = entry.getValue();
+        results.put(
+          entry.getKey(),
+          new EntrySnapshot(
+            value.lastModifiedTime(),
+            value.size(),
+            value.isDirectory()
+          )
+        );
       }
+      return results;
+    }
+
+    @Override
+    void start()
+      throws IOException
+    {
+      this.entriesThen = this.entries();
+      this.scheduler.add(this);
     }
 
-    private void pause()
+    @Override
+    public int check()
     {
+      final Map<String, EntrySnapshot> entriesNow;
       try {
-        if (this.shouldContinue()) {
-          this.shutDown.poll(
-            this.service.watchDuration.toNanos(),
-            TimeUnit.NANOSECONDS
-          );
+        entriesNow = this.entries();
+      } catch (final NoSuchFileException | NotDirectoryException e) {
+        this.invalidate();
+        return 0;
+      } catch (final IOException e) {
+        return 0;
+      }
+
+      var published = 0;
+      for (final var entry : entriesNow.entrySet()) {
+        final var name = entry.getKey();
+        final var then = this.entriesThen.get(name);
+        if (then == null) {
+          published += this.publishEntry(ENTRY_CREATE, name);
+        } else if (!then.equals(entry.getValue())) {
+          published += this.publishEntry(ENTRY_MODIFY, name);
+        }
+      }
+      for (final var name : this.entriesThen.keySet()) {
+        if (!entriesNow.containsKey(name)) {
+          published += this.publishEntry(ENTRY_DELETE, name);
         }
-      } catch (final InterruptedException e) {
-        // Ignored
       }
+
+      this.entriesThen = entriesNow;
+      return published;
+    }
+
+    private int publishEntry(
+      final WatchEvent.Kind<Path> kind,
+      final String name)
+    {
+      final var entry = this.path().resolveEntry(name);
+      if (entry.isEmpty()) {
+        LOG.debug("Skipping invalid name {} in {}", name, this.path());
+        return 0;
+      }
+      return this.publish(kind, entry.get().getFileName()) ? 1 : 0;
     }
 
-    private void checkModified()
+    @Override
+    void onCancel()
     {
-      if (this.timeNow != null && this.timeThen != null) {
-        if (!Objects.equals(this.timeNow, this.timeThen)) {
-          this.fileModified();
+      this.scheduler.remove(this);
+    }
+  }
+
+  /**
+   * A key for a virtual directory. Changes to the entries of the directory
+   * are published by the filesystem tree as they are made, on the thread
+   * that made them, so the key is never polled.
+   */
+
+  private static final class VirtualDirectoryWatchedObject
+    extends AbstractWatchedObject
+    implements FBFSTree.ListenerType
+  {
+    private final FBFSTree tree;
+    private final FBFSObjectVirtualDirectory directory;
+
+    private VirtualDirectoryWatchedObject(
+      final FBFSWatchService inService,
+      final FBFSTree inTree,
+      final FBFSObjectVirtualDirectory inDirectory,
+      final FBFSPathAbsolute inPath,
+      final WatchEvent.Kind<?>[] inEvents)
+    {
+      super(inService, inPath, inEvents);
+      this.tree =
+        Objects.requireNonNull(inTree, "tree");
+      this.directory =
+        Objects.requireNonNull(inDirectory, "directory");
+    }
+
+    @Override
+    void start()
+    {
+      this.tree.addListener(this.directory, this);
+
+      /*
+       * The directory may have been deleted between being looked up and
+       * the listener being attached.
+       */
+
+      if (!this.tree.isAttached(this.directory)) {
+        this.invalidate();
+      }
+    }
+
+    @Override
+    public void onEntryChanged(
+      final FBFSObjectVirtualDirectory changed,
+      final WatchEvent.Kind<Path> kind,
+      final String name)
+    {
+      final var entry = this.path().resolveEntry(name);
+      if (entry.isEmpty()) {
+        LOG.debug("Skipping invalid name {} in {}", name, this.path());
+        return;
+      }
+      this.publish(kind, entry.get().getFileName());
+    }
+
+    @Override
+    public void onDirectoryRemoved(
+      final FBFSObjectVirtualDirectory removed)
+    {
+      this.invalidate();
+    }
+
+    @Override
+    void onCancel()
+    {
+      this.tree.removeListener(this.directory, this);
+    }
+  }
+
+  /**
+   * A key for a tree of directories that is polled by the scheduler. Each
+   * check lists every directory of the tree that was present in the
+   * previous check, along with the attributes of its entries, compares each
+   * listing with that of the previous check, and follows any directories
+   * that have been created. The entries of a created directory are reported
+   * as created, and the known entries of a deleted directory are reported
+   * as deleted. The context of each event is the path of the entry
+   * relative to the watched directory.
+   *
+   * Unless the key is watching for modifications, a directory whose stamp
+   * (see {@link FBFS#directoryStamp(FBFSPathAbsolute)}) is unchanged since
+   * the previous check is not listed again, and its entries are taken from
+   * the previous check. Such a check reads the attributes of each directory
+   * of the tree, and lists only directories that have changed or that have
+   * been created. Modifying a file does not change its directory, and so a
+   * key watching for modifications lists every directory of the tree and
+   * reads the attributes of every entry in each check, costing O(d + e) time
+   * for a tree of d directories and e entries. The snapshot of the previous
+   * check, held between checks, costs O(e) memory.
+   */
+
+  private static final class TreeWatchedObject
+    extends AbstractWatchedObject
+    implements FBFSWatchScheduler.PolledType
+  {
+    private final FBFSWatchScheduler scheduler;
+    private final boolean incremental;
+    private Map<List<String>, DirectorySnapshot> directoriesThen;
+
+    private TreeWatchedObject(
+      final FBFSWatchService inService,
+      final FBFSPathAbsolute inPath,
+      final WatchEvent.Kind<?>[] inEvents)
+    {
+      super(inService, inPath, inEvents);
+      this.scheduler = inService.scheduler;
+      this.incremental = !this.isWatching(ENTRY_MODIFY);
+      this.directoriesThen = Map.of();
+    }
+
+    @Override
+    void start()
+      throws IOException
+    {
+      this.scan(false);
+      this.scheduler.add(this);
+    }
+
+    @Override
+    public int check()
+    {
+      try {
+        return this.scan(true);
+      } catch (final NoSuchFileException | NotDirectoryException e) {
+        this.invalidate();
+        return 0;
+      } catch (final IOException e) {
+        return 0;
+      }
+    }
+
+    private FBFSPathAbsolute directoryOf(
+      final List<String> relative)
+    {
+      var directory = this.path();
+      for (final var name : relative) {
+        directory = directory.resolveTrusted(name);
+      }
+      return directory;
+    }
+
+    private Optional<Object> stamp(
+      final List<String> relative)
+      throws IOException
+    {
+      if (!this.incremental) {
+        return Optional.empty();
+      }
+      final var directory = this.directoryOf(relative);
+      return directory.getFileSystem().directoryStamp(directory);
+    }
+
+    private Map<String, EntrySnapshot> entries(
+      final List<String> relative)
+      throws IOException
+    {
+      final var directory =
+        this.directoryOf(relative);
+      final var attributes =
+        directory.getFileSystem().listAttributes(directory);
+      final var results =
+        HashMap.<String, EntrySnapshot>newHashMap(attributes.size());
+
+      /*
+       * Names that are not valid path components are dropped here, so
+       * that every name held in a snapshot can be resolved without being
+       * validated again.
+       */
+
+      for (final var entry : attributes.entrySet()) {
+        if (!FBFSPathComponents.isValidPathComponent(entry.getKey())) {
+          LOG.debug(
+            "Skipping invalid name {} in {}",
+            entry.getKey(),
+            directory
+          );
+          continue;
         }
+
+        final var value = entry.getValue();
+        results.put(
+          entry.getKey(),
+          new EntrySnapshot(
+            value.lastModifiedTime(),
+            value.size(),
+            value.isDirectory()
+          )
+        );
       }
+      return results;
     }
 
-    private void checkDeleted()
+    private int scan(
+      final boolean publishing)
+      throws IOException
     {
-      if (this.timeNow == null && this.timeThen != null) {
-        this.fileDeleted();
+      final var directoriesNow =
+        new HashMap<List<String>, DirectorySnapshot>();
+      final var pending =
+        new ArrayDeque<List<String>>();
+
+      pending.add(List.of());
+      var published = 0;
+
+      while (!pending.isEmpty()) {
+        final var relative = pending.poll();
+        final var snapshotThen = this.directoriesThen.get(relative);
+
+        /*
+         * The stamp is taken before the directory is listed, so that a
+         * change made while the directory is being listed is seen as a
+         * change by the next check.
+         */
+
+        final Optional<Object> stamp;
+        final Map<String, EntrySnapshot> entriesNow;
+        try {
+          stamp = this.stamp(relative);
+          if (snapshotThen != null
+              && stamp.isPresent()
+              && stamp.equals(snapshotThen.stamp())) {
+            directoriesNow.put(relative, snapshotThen);
+            for (final var entry : snapshotThen.entries().entrySet()) {
+              if (entry.getValue().directory()) {
+                pending.add(childOf(relative, entry.getKey()));
+              }
+            }
+            continue;
+          }
+          entriesNow = this.entries(relative);
+        } catch (final NoSuchFileException | NotDirectoryException e) {
+          if (relative.isEmpty()) {
+            throw e;
+          }
+
+          /*
+           * The directory was deleted after its parent was listed. The
+           * deletion is reported by the next check of the parent.
+           */
+
+          continue;
+        }
+
+        directoriesNow.put(
+          relative,
+          new DirectorySnapshot(stamp, entriesNow)
+        );
+        final var entriesThen =
+          snapshotThen == null ? null : snapshotThen.entries();
+
+        for (final var entry : entriesNow.entrySet()) {
+          final var child = childOf(relative, entry.getKey());
+          if (entry.getValue().directory()) {
+            pending.add(child);
+          }
+          if (!publishing) {
+            continue;
+          }
+
+          final var then =
+            entriesThen == null ? null : entriesThen.get(entry.getKey());
+          if (then == null) {
+            published += this.publishEntry(ENTRY_CREATE, child);
+          } else if (!then.equals(entry.getValue())) {
+            published += this.publishEntry(ENTRY_MODIFY, child);
+          }
+        }
+
+        if (publishing && entriesThen != null) {
+          for (final var entry : entriesThen.entrySet()) {
+            if (!entriesNow.containsKey(entry.getKey())) {
+              final var child = childOf(relative, entry.getKey());
+              if (entry.getValue().directory()) {
+                published += this.publishDeletedTree(child);
+              }
+              published += this.publishEntry(ENTRY_DELETE, child);
+            }
+          }
+        }
       }
+
+      this.directoriesThen = directoriesNow;
+      return published;
     }
 
-    private void checkCreated()
+    private int publishDeletedTree(
+      final List<String> directory)
     {
-      if (this.timeNow != null && this.timeThen == null) {
-        this.fileCreated();
+      final var snapshot = this.directoriesThen.get(directory);
+      if (snapshot == null) {
+        return 0;
+      }
+
+      var published = 0;
+      for (final var entry : snapshot.entries().entrySet()) {
+        final var child = childOf(directory, entry.getKey());
+        if (entry.getValue().directory()) {
+          published += this.publishDeletedTree(child);
+        }
+        published += this.publishEntry(ENTRY_DELETE, child);
       }
+      return published;
     }
 
-    private boolean watchingForEvent(
-      final WatchEvent.Kind<Path> kind)
+    private static List<String> childOf(
+      final List<String> relative,
+      final String name)
     {
-      return this.watchingFor.contains(kind);
+      final var names = new ArrayList<String>(relative.size() + 1);
+      names.addAll(relative);
+      names.add(name);
+      return List.copyOf(names);
     }
 
-    private void fileCreated()
+    private int publishEntry(
+      final WatchEvent.Kind<Path> kind,
+      final List<String> relative)
     {
-      this.publish(new WatchedEvent(
-        this.path,
-        1,
-        ENTRY_CREATE
-      ));
+      final var entry = this.directoryOf(relative);
+      return this.publish(kind, this.path().relativize(entry)) ? 1 : 0;
     }
 
-    private void fileModified()
+    @Override
+    void onCancel()
     {
-      this.publish(new WatchedEvent(
-        this.path,
-        1,
-        StandardWatchEventKinds.ENTRY_MODIFY
-      ));
+      this.scheduler.remove(this);
     }
+  }
+
+  private record EntrySnapshot(
+    FileTime modified,
+    long size,
+    boolean directory)
+  {
+
+  }
 
-    private void fileDeleted()
+  private record DirectorySnapshot(
+    Optional<Object> stamp,
+    Map<String, EntrySnapshot> entries)
+  {
+
+  }
+
+  /**
+   * The state common to all keys watched using the watch service of the
+   * default filesystem. The directory of the default filesystem that such a
+   * key watches is determined when the key is registered, and so the key is
+   * invalidated when the mount through which that directory was found is
+   * replaced or unmounted.
+   */
+
+  private abstract static class AbstractNativeWatchedObject
+    extends AbstractWatchedObject
+    implements FBFSNativeWatcher.ListenerType, FBFSTree.MountListenerType
+  {
+    private final FBFSNativeWatcher watcher;
+    private final FBMountLayers layers;
+    private final FBFSTree tree;
+
+    AbstractNativeWatchedObject(
+      final FBFSWatchService inService,
+      final FBFSNativeWatcher inWatcher,
+      final FBMountLayers inLayers,
+      final FBFSPathAbsolute inPath,
+      final WatchEvent.Kind<?>[] inEvents)
     {
-      this.publish(new WatchedEvent(
-        this.path,
-        1,
-        StandardWatchEventKinds.ENTRY_DELETE
-      ));
+      super(inService, inPath, inEvents);
+      this.watcher =
+        Objects.requireNonNull(inWatcher, "watcher");
+      this.layers =
+        Objects.requireNonNull(inLayers, "layers");
+      this.tree =
+        inPath.getFileSystem().tree();
+    }
+
+    final FBFSNativeWatcher watcher()
+    {
+      return this.watcher;
+    }
+
+    /**
+     * Start listening for changes to the mount.
+     *
+     * @param directory The directory whose mount was used to find the
+     *                  watched directory of the default filesystem
+     */
+
+    final void watchMount(
+      final FBFSPathAbsolute directory)
+    {
+      this.tree.addMountListener(this.layers, this);
+
+      /*
+       * The mount may have been replaced between being looked up and the
+       * listener being attached.
+       */
+
+      final var current =
+        directory.getFileSystem().mountLayersOf(directory);
+      if (current.isEmpty() || current.get() != this.layers) {
+        this.invalidate();
+      }
     }
 
-    private void publish(
-      final WatchedEvent event)
+    @Override
+    public final void onMountReplaced(
+      final FBMountLayers replaced)
     {
-      this.eventReady.add(event);
+      this.invalidate();
     }
 
-    private boolean shouldContinue()
+    @Override
+    final void onCancel()
     {
-      return this.serviceStillOpen() && this.notCancelled();
+      this.tree.removeMountListener(this.layers, this);
+      this.onNativeCancel();
     }
 
-    private boolean notCancelled()
+    /**
+     * Stop watching the directories of the default filesystem.
+     */
+
+    abstract void onNativeCancel();
+  }
+
+  /**
+   * A key for a path watched using the watch service of the default
+   * filesystem. The key listens to the parent directory of the target in
+   * order to observe the creation, deletion, and modification of the target
+   * itself and, if the target is a directory, to the target in order to
+   * observe the changes to its modification time caused by entries being
+   * created and deleted.
+   */
+
+  private static final class NativeWatchedObject
+    extends AbstractNativeWatchedObject
+  {
+    private final Path target;
+    private final Path targetParent;
+    private boolean watchingTarget;
+
+    private NativeWatchedObject(
+      final FBFSWatchService inService,
+      final FBFSNativeWatcher inWatcher,
+      final FBMountLayers inLayers,
+      final FBFSPathAbsolute inPath,
+      final Path inTarget,
+      final WatchEvent.Kind<?>[] inEvents)
     {
-      return !this.done.get();
+      super(inService, inWatcher, inLayers, inPath, inEvents);
+      this.target =
+        Objects.requireNonNull(inTarget, "target");
+      this.targetParent =
+        inTarget.getParent();
     }
 
-    private boolean serviceStillOpen()
+    @Override
+    void start()
+      throws IOException
     {
-      return !this.service.closed.get();
+      this.watcher().subscribe(this.targetParent, this);
+      this.watchTargetIfDirectory();
+      this.watchMount(this.path().getParent());
     }
 
-    public void run()
+    private void watchTargetIfDirectory()
     {
+      if (!Files.isDirectory(this.target, LinkOption.NOFOLLOW_LINKS)) {
+        return;
+      }
+
+      synchronized (this) {
+        if (this.watchingTarget || !this.isValid()) {
+          return;
+        }
+        this.watchingTarget = true;
+      }
+
       try {
-        this.timeThen = Files.getLastModifiedTime(this.path);
+        this.watcher().subscribe(this.target, this);
       } catch (final IOException e) {
-        // Nothing we can do about it.
+        synchronized (this) {
+          this.watchingTarget = false;
+        }
+      }
+    }
+
+    @Override
+    public void onNativeEvent(
+      final Path directory,
+      final WatchEvent<?> event)
+    {
+      final var kind = event.kind();
+      if (kind == StandardWatchEventKinds.OVERFLOW) {
+        this.publish(ENTRY_MODIFY);
+        return;
       }
 
-      while (this.shouldContinue()) {
-        this.check();
+      if (directory.equals(this.targetParent)) {
+        final var context = (Path) event.context();
+        if (!this.targetParent.resolve(context).equals(this.target)) {
+          return;
+        }
+        if (kind == ENTRY_CREATE) {
+          this.publish(ENTRY_CREATE);
+          this.watchTargetIfDirectory();
+        } else if (kind == ENTRY_DELETE) {
+          this.publish(ENTRY_DELETE);
+        } else if (kind == ENTRY_MODIFY) {
+          this.publish(ENTRY_MODIFY);
+        }
+        return;
+      }
+
+      if (directory.equals(this.target)) {
+        if (kind == ENTRY_CREATE || kind == ENTRY_DELETE) {
+          this.publish(ENTRY_MODIFY);
+        }
       }
     }
+
+    @Override
+    public void onNativeCancelled(
+      final Path directory)
+    {
+      if (directory.equals(this.targetParent)) {
+        this.invalidate();
+      } else if (directory.equals(this.target)) {
+        synchronized (this) {
+          this.watchingTarget = false;
+        }
+      }
+    }
+
+    @Override
+    void onNativeCancel()
+    {
+      this.watcher().unsubscribe(this.targetParent, this);
+      this.watcher().unsubscribe(this.target, this);
+    }
+  }
+
+  /**
+   * A key for a directory watched using the watch service of the default
+   * filesystem. Events for the entries of the directory are published as
+   * they are received, with the names of the entries translated into
+   * paths of this filesystem.
+   */
+
+  private static final class NativeDirectoryWatchedObject
+    extends AbstractNativeWatchedObject
+  {
+    private final Path target;
+
+    private NativeDirectoryWatchedObject(
+      final FBFSWatchService inService,
+      final FBFSNativeWatcher inWatcher,
+      final FBMountLayers inLayers,
+      final FBFSPathAbsolute inPath,
+      final Path inTarget,
+      final WatchEvent.Kind<?>[] inEvents)
+    {
+      super(inService, inWatcher, inLayers, inPath, inEvents);
+      this.target =
+        Objects.requireNonNull(inTarget, "target");
+    }
+
+    @Override
+    void start()
+      throws IOException
+    {
+      this.watcher().subscribe(this.target, this);
+      this.watchMount(this.path());
+    }
+
+    @Override
+    public void onNativeEvent(
+      final Path directory,
+      final WatchEvent<?> event)
+    {
+      if (!directory.equals(this.target)) {
+        return;
+      }
+
+      final var kind = event.kind();
+      if (kind == StandardWatchEventKinds.OVERFLOW) {
+        this.publishOverflow();
+        return;
+      }
+
+      final var name =
+        ((Path) event.context()).toString();
+      final var entry =
+        this.path().resolveEntry(name);
+
+      if (entry.isEmpty()) {
+        LOG.debug("Skipping invalid name {} in {}", name, this.path());
+        return;
+      }
+
+      final var context = entry.get().getFileName();
+
+      if (kind == ENTRY_CREATE) {
+        this.publish(ENTRY_CREATE, context);
+      } else if (kind == ENTRY_DELETE) {
+        this.publish(ENTRY_DELETE, context);
+      } else if (kind == ENTRY_MODIFY) {
+        this.publish(ENTRY_MODIFY, context);
+      }
+    }
+
+    @Override
+    public void onNativeCancelled(
+      final Path directory)
+    {
+      if (directory.equals(this.target)) {
+        this.invalidate();
+      }
+    }
+
+    @Override
+    void onNativeCancel()
+    {
+      this.watcher().unsubscribe(this.target, this);
+    }
   }
 }
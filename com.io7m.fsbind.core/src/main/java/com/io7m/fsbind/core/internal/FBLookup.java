@@ -17,43 +17,56 @@
 
 package com.io7m.fsbind.core.internal;
 
+import com.io7m.fsbind.core.FBMountLookupMode;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.nio.file.AccessDeniedException;
 import java.nio.file.Files;
 import java.nio.file.NoSuchFileException;
-import java.util.LinkedList;
+import java.nio.file.Path;
+import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
 
+/**
+ * The resolution of an absolute path to an object in the filesystem tree.
+ *
+ * Resolution is a single pass over the path components. Virtual directories
+ * are traversed using their child indices. When a mount is reached, the
+ * remaining components are resolved against the base path of the mount in
+ * a single step, and the existence of the resolved path is then checked
+ * against the underlying filesystem according to the filesystem's
+ * {@link FBMountLookupMode}. Mounts with several layers are instead resolved
+ * through the merged index of their layers.
+ *
+ * @see FBMountLayers
+ */
+
 final class FBLookup
 {
   private static final Logger LOG =
     LoggerFactory.getLogger(FBLookup.class);
 
   private final FBFSPathAbsolute target;
-  private final LinkedList<String> pathNow;
-  private final LinkedList<String> pathPartsRemaining;
   private final FBFSTree tree;
-  private FBFSObjectType nodeNow;
+  private final FBNegativeLookupCache missing;
+  private final FBMountLookupMode mode;
 
   FBLookup(
     final FBFSPathAbsolute inTarget)
   {
     this.target =
       Objects.requireNonNull(inTarget, "target");
-    this.pathNow =
-      new LinkedList<>();
-    this.pathPartsRemaining =
-      new LinkedList<>(this.target.components());
     this.tree =
       inTarget.getFileSystem()
         .tree();
-    this.nodeNow =
-      this.tree.root();
-
-    this.pathNow.add(this.pathPartsRemaining.pop());
+    this.missing =
+      inTarget.getFileSystem()
+        .negativeLookupCache();
+    this.mode =
+      inTarget.getFileSystem()
+        .mountLookupMode();
   }
 
   public Optional<FBFSObjectType> lookupOrMissing()
@@ -70,60 +83,262 @@ final class FBLookup
 
   public FBFSObjectType lookup()
     throws NoSuchFileException, AccessDeniedException
+  {
+    return this.lookup(true);
+  }
+
+  /**
+   * Resolve the target path without checking that the resolved path exists
+   * if it lies inside a mounted filesystem. This is intended to be used by
+   * operations that will immediately access the underlying path, and that
+   * will therefore receive an error from the underlying filesystem if the
+   * path does not exist. Paths that are known to be missing are still
+   * rejected, and the path is still prevented from escaping the mount.
+   *
+   * @return The resolved object
+   *
+   * @throws NoSuchFileException   If the path does not exist
+   * @throws AccessDeniedException If the path would escape a mount
+   */
+
+  public FBFSObjectType lookupWithoutMountChecks()
+    throws NoSuchFileException, AccessDeniedException
+  {
+    return this.lookup(false);
+  }
+
+  private FBFSObjectType lookup(
+    final boolean checkMounts)
+    throws NoSuchFileException, AccessDeniedException
   {
     if (LOG.isTraceEnabled()) {
-      LOG.trace("Lookup: {}", this.pathNow);
+      LOG.trace("Lookup: {}", this.target);
     }
 
-    if (this.pathPartsRemaining.isEmpty()) {
-      return this.nodeNow;
+    final var components = this.target.components();
+    final var count = components.size();
+
+    FBFSObjectType node = this.tree.root();
+    for (int index = 1; index < count; ++index) {
+      switch (node) {
+        case final FBFSObjectVirtualDirectory directory -> {
+          node = this.tree.childOf(directory, components.get(index));
+          if (node == null) {
+            throw this.noSuchFile();
+          }
+        }
+        case final FBFSObjectMount mount -> {
+          return this.lookupInMount(
+            mount.layers(),
+            components,
+            index,
+            checkMounts
+          );
+        }
+        case final FBFSObjectReal ignored -> {
+          throw this.noSuchFile();
+        }
+      }
     }
+    return node;
+  }
 
-    final var name = this.pathPartsRemaining.pop();
-    this.pathNow.add(name);
+  private FBFSObjectReal lookupInMount(
+    final FBMountLayers layers,
+    final List<String> components,
+    final int start,
+    final boolean checkMounts)
+    throws NoSuchFileException, AccessDeniedException
+  {
+    if (layers.isUnion()) {
+      return this.lookupInUnion(layers, components, start);
+    }
 
-    return switch (this.nodeNow) {
-      case final FBFSObjectMount mount -> {
-        final var mountRec =
-          mount.mount();
-        final var mountBase =
-          mountRec.basePath();
-        final var path =
-          mountBase.resolve(name);
+    final var mount =
+      layers.first();
+    final var index =
+      mount.index();
 
-        if (!path.startsWith(mountBase)) {
-          throw new AccessDeniedException("Path traversal prevented.");
-        }
+    if (index.isPresent()) {
+      return this.lookupInIndex(
+        layers,
+        index.get(),
+        components,
+        start,
+        checkMounts
+      );
+    }
 
-        if (Files.exists(path)) {
-          this.nodeNow = new FBFSObjectReal(name, path);
-          yield this.lookup();
-        }
+    final var mountBase =
+      mount.basePath();
+    final var path =
+      resolveInMount(mountBase, components, start);
 
-        throw new NoSuchFileException(this.target.toString());
+    if (!checkMounts) {
+      if (this.missing.isMissing(mount, path)) {
+        throw this.noSuchFile();
       }
+      return real(components, path, layers);
+    }
 
-      case final FBFSObjectReal real -> {
-        final var newPath = real.path().resolve(name);
-        if (Files.exists(newPath)) {
-          this.nodeNow = new FBFSObjectReal(name, newPath);
-          yield this.lookup();
+    switch (this.mode) {
+      case CHECK_LEAF_ONLY -> {
+        if (!this.exists(mount, path)) {
+          throw this.noSuchFile();
         }
-
-        throw new NoSuchFileException(this.target.toString());
       }
-
-      case final FBFSObjectVirtualDirectory directory -> {
-        final var outgoing = this.tree.outgoingEdgesOf(directory);
-        for (final var edge : outgoing) {
-          final var childName = edge.child().name();
-          if (childName.equalsIgnoreCase(name)) {
-            this.nodeNow = edge.child();
-            yield this.lookup();
+      case CHECK_EVERY_COMPONENT -> {
+        for (var p = path; p != null && !p.equals(mountBase); p = p.getParent()) {
+          if (!this.exists(mount, p)) {
+            throw this.noSuchFile();
           }
         }
-        throw new NoSuchFileException(this.target.toString());
       }
-    };
+    }
+    return real(components, path, layers);
+  }
+
+  private static FBFSObjectReal real(
+    final List<String> components,
+    final Path path,
+    final FBMountLayers layers)
+  {
+    return new FBFSObjectReal(
+      components.getLast(),
+      path,
+      layers,
+      Optional.empty()
+    );
+  }
+
+  /**
+   * Resolve a path inside an indexed mount. The existence of the path is
+   * determined entirely by the index, unless the path lies at or beneath a
+   * link that could not be indexed, in which case the path is checked
+   * against the mounted filesystem.
+   */
+
+  private FBFSObjectReal lookupInIndex(
+    final FBMountLayers layers,
+    final FBMountIndex index,
+    final List<String> components,
+    final int start,
+    final boolean checkMounts)
+    throws NoSuchFileException, AccessDeniedException
+  {
+    final var entry = index.find(components, start);
+    if (entry == null) {
+      throw this.noSuchFile();
+    }
+
+    final var mount =
+      layers.first();
+    final var path =
+      resolveInMount(mount.basePath(), components, start);
+
+    if (!entry.isIndexed()) {
+      if (checkMounts && !this.exists(mount, path)) {
+        throw this.noSuchFile();
+      }
+      return real(components, path, layers);
+    }
+
+    return new FBFSObjectReal(
+      components.getLast(),
+      path,
+      layers,
+      Optional.of(entry)
+    );
+  }
+
+  /**
+   * Resolve a path inside a mount with several layers. The layer that
+   * provides the path is found in the merged index of the parent directory,
+   * and so no layer is probed for the existence of the path itself.
+   */
+
+  private FBFSObjectReal lookupInUnion(
+    final FBMountLayers layers,
+    final List<String> components,
+    final int start)
+    throws NoSuchFileException, AccessDeniedException
+  {
+    final var count =
+      components.size();
+    final var directory =
+      layers.directory(components.subList(start, count - 1));
+    final var owner =
+      directory.owners().get(components.get(count - 1));
+
+    if (owner == null) {
+      throw this.noSuchFile();
+    }
+
+    final var path =
+      resolveInMount(owner.basePath(), components, start);
+    final var indexed =
+      owner.index()
+        .map(index -> index.find(components, start))
+        .filter(FBMountIndex.Entry::isIndexed);
+
+    return new FBFSObjectReal(components.getLast(), path, layers, indexed);
+  }
+
+  private static Path resolveInMount(
+    final Path mountBase,
+    final List<String> components,
+    final int start)
+    throws AccessDeniedException
+  {
+    final var path =
+      mountBase.resolve(joinFrom(
+        components,
+        start,
+        mountBase.getFileSystem().getSeparator()
+      ));
+
+    if (!path.normalize().startsWith(mountBase.normalize())) {
+      throw new AccessDeniedException("Path traversal prevented.");
+    }
+    return path;
+  }
+
+  private static String joinFrom(
+    final List<String> components,
+    final int start,
+    final String separator)
+  {
+    final var count = components.size();
+    if (start == count - 1) {
+      return components.get(start);
+    }
+
+    final var builder = new StringBuilder(64);
+    for (int index = start; index < count; ++index) {
+      if (index > start) {
+        builder.append(separator);
+      }
+      builder.append(components.get(index));
+    }
+    return builder.toString();
+  }
+
+  private boolean exists(
+    final FBMount mount,
+    final Path path)
+  {
+    if (this.missing.isMissing(mount, path)) {
+      return false;
+    }
+    if (Files.exists(path)) {
+      return true;
+    }
+    this.missing.markMissing(mount, path);
+    return false;
+  }
+
+  private NoSuchFileException noSuchFile()
+  {
+    return new NoSuchFileException(this.target.toString());
   }
 }
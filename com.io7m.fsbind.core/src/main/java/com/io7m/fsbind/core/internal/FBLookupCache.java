@@ -0,0 +1,297 @@
+/*
+ * Copyright © 2025 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.fsbind.core.internal;
+
+import com.io7m.fsbind.core.FBLookupCacheStatistics;
+import net.jcip.annotations.GuardedBy;
+import net.jcip.annotations.ThreadSafe;
+
+import java.nio.file.AccessDeniedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded cache of resolved paths.
+ *
+ * Entries are tagged with the generation of the filesystem tree at the time
+ * the lookup was performed. Any structural change to the tree increments the
+ * generation, and entries with an older generation are treated as missing.
+ *
+ * In addition to the shared table, the most recent result for each path
+ * instance is memoized on the path itself, so that repeated operations on
+ * the same path instance do not need to consult the table at all.
+ *
+ * When the table is full, entries are evicted using the CLOCK algorithm:
+ * entries are held in a ring in insertion order, and each hit marks its
+ * entry as referenced. Eviction sweeps the ring from the oldest entry,
+ * giving referenced entries a second chance (clearing the mark and moving
+ * them to the back of the ring) and evicting the first entry that is
+ * unreferenced or belongs to an older generation. Frequently used paths
+ * therefore survive a working set larger than the table.
+ */
+
+@ThreadSafe
+final class FBLookupCache
+{
+  private final FBFSTree tree;
+  private final int maximumSize;
+  private final ConcurrentHashMap<List<String>, Entry> entries;
+  private final Object evictionLock;
+  @GuardedBy("evictionLock")
+  private final ArrayDeque<Entry> ring;
+  private final LongAdder hits;
+  private final LongAdder misses;
+
+  private static final class Entry
+  {
+    private final List<String> key;
+    private volatile FBFSPathBinding binding;
+    private volatile boolean referenced;
+
+    Entry(
+      final List<String> inKey,
+      final FBFSPathBinding inBinding)
+    {
+      this.key = inKey;
+      this.binding = inBinding;
+    }
+  }
+
+  FBLookupCache(
+    final FBFSTree inTree,
+    final int inMaximumSize)
+  {
+    this.tree =
+      Objects.requireNonNull(inTree, "tree");
+    this.maximumSize =
+      Math.max(0, inMaximumSize);
+    this.entries =
+      new ConcurrentHashMap<>();
+    this.evictionLock =
+      new Object();
+    this.ring =
+      new ArrayDeque<>();
+    this.hits =
+      new LongAdder();
+    this.misses =
+      new LongAdder();
+  }
+
+  /**
+   * Resolve the given path, using a cached result if one exists for the
+   * current tree generation. Cached objects that live inside mounted
+   * filesystems are checked for existence before being returned, as the
+   * contents of mounted filesystems can change without the tree changing.
+   *
+   * @param path The path
+   *
+   * @return The resolved object
+   *
+   * @throws NoSuchFileException   If the path does not exist
+   * @throws AccessDeniedException If the path would escape a mount
+   */
+
+  FBFSObjectType lookup(
+    final FBFSPathAbsolute path)
+    throws NoSuchFileException, AccessDeniedException
+  {
+    return this.lookup(path, true);
+  }
+
+  /**
+   * Resolve the given path, using a cached result if one exists for the
+   * current tree generation. Objects that live inside mounted filesystems
+   * are not checked for existence.
+   *
+   * @param path The path
+   *
+   * @return The resolved object
+   *
+   * @throws NoSuchFileException   If the path does not exist
+   * @throws AccessDeniedException If the path would escape a mount
+   * @see FBLookup#lookupWithoutMountChecks()
+   */
+
+  FBFSObjectType lookupWithoutMountChecks(
+    final FBFSPathAbsolute path)
+    throws NoSuchFileException, AccessDeniedException
+  {
+    return this.lookup(path, false);
+  }
+
+  private FBFSObjectType lookup(
+    final FBFSPathAbsolute path,
+    final boolean checkMounts)
+    throws NoSuchFileException, AccessDeniedException
+  {
+    if (this.maximumSize == 0) {
+      return lookupUncached(path, checkMounts);
+    }
+
+    final var generation =
+      this.tree.generation();
+
+    /*
+     * Try the binding memoized on the path instance first, and then the
+     * shared table. Either is usable if it was created in the current
+     * generation and (if required) the object still exists.
+     */
+
+    final var bound = path.binding();
+    if (bound != null && bound.generation() == generation) {
+      if (!checkMounts || isStillPresent(bound.object())) {
+        this.hits.increment();
+        return bound.object();
+      }
+    }
+
+    final var key =
+      path.components();
+    final var entry =
+      this.entries.get(key);
+
+    if (entry != null) {
+      final var existing = entry.binding;
+      final var usable =
+        existing.generation() == generation
+        && existing != bound
+        && (!checkMounts || isStillPresent(existing.object()));
+
+      if (usable) {
+        this.hits.increment();
+        entry.referenced = true;
+        path.setBinding(existing);
+        return existing.object();
+      }
+    }
+
+    this.misses.increment();
+    final var object = lookupUncached(path, checkMounts);
+    if (!isCacheable(object)) {
+      return object;
+    }
+
+    final var binding = new FBFSPathBinding(generation, object);
+    this.store(key, binding);
+    path.setBinding(binding);
+    return object;
+  }
+
+  /*
+   * Entries that already exist are updated in place, so that the ring
+   * holds exactly one element for each entry in the table.
+   */
+
+  private void store(
+    final List<String> key,
+    final FBFSPathBinding binding)
+  {
+    synchronized (this.evictionLock) {
+      final var existing = this.entries.get(key);
+      if (existing != null) {
+        existing.binding = binding;
+        existing.referenced = true;
+        return;
+      }
+
+      while (this.entries.size() >= this.maximumSize) {
+        this.evictOne(binding.generation());
+      }
+
+      final var entry = new Entry(key, binding);
+      this.entries.put(entry.key, entry);
+      this.ring.addLast(entry);
+    }
+  }
+
+  @GuardedBy("evictionLock")
+  private void evictOne(
+    final long generation)
+  {
+    while (true) {
+      final var candidate = this.ring.pollFirst();
+      final var stale =
+        candidate.binding.generation() != generation;
+
+      if (candidate.referenced && !stale) {
+        candidate.referenced = false;
+        this.ring.addLast(candidate);
+        continue;
+      }
+
+      this.entries.remove(candidate.key, candidate);
+      return;
+    }
+  }
+
+  /*
+   * The layer that provides an object inside a mount with several layers
+   * can change without the tree changing, and so such objects are always
+   * resolved again through the merged index of the mount, which is checked
+   * for changes in the layers.
+   */
+
+  private static boolean isCacheable(
+    final FBFSObjectType object)
+  {
+    return !(object instanceof final FBFSObjectReal real
+             && real.layers().isUnion());
+  }
+
+  private static FBFSObjectType lookupUncached(
+    final FBFSPathAbsolute path,
+    final boolean checkMounts)
+    throws NoSuchFileException, AccessDeniedException
+  {
+    final var lookup = new FBLookup(path);
+    if (checkMounts) {
+      return lookup.lookup();
+    }
+    return lookup.lookupWithoutMountChecks();
+  }
+
+  private static boolean isStillPresent(
+    final FBFSObjectType object)
+  {
+    return switch (object) {
+      case final FBFSObjectReal real -> {
+        yield real.indexed().isPresent() || Files.exists(real.path());
+      }
+      case final FBFSObjectMount ignored -> true;
+      case final FBFSObjectVirtualDirectory ignored -> true;
+    };
+  }
+
+  /**
+   * @return The current cache statistics
+   */
+
+  FBLookupCacheStatistics statistics()
+  {
+    return new FBLookupCacheStatistics(
+      this.hits.sum(),
+      this.misses.sum(),
+      this.entries.size()
+    );
+  }
+}
@@ -20,10 +20,13 @@ package com.io7m.fsbind.core.internal;
 import com.io7m.jaffirm.core.Preconditions;
 
 import java.nio.file.Path;
+import java.util.Optional;
 
 record FBMount(
   FBFSPathAbsolute mountPoint,
-  Path basePath)
+  Path basePath,
+  int priority,
+  Optional<FBMountIndex> index)
 {
   FBMount
   {
@@ -0,0 +1,471 @@
+/*
+ * Copyright © 2025 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.fsbind.core.internal;
+
+import net.jcip.annotations.Immutable;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * An in-memory index of the names, types, sizes, and times of every file
+ * and directory inside a mounted filesystem, built once when the filesystem
+ * is mounted. Lookups, existence checks, attribute reads, and listings under
+ * an indexed mount are answered from the index without accessing the
+ * mounted filesystem, and so the content of the mounted filesystem is
+ * assumed not to change while mounted.
+ *
+ * The index is built by a parallel walk of the mounted directory tree, with
+ * each subdirectory indexed as a separate task. Symbolic links are followed,
+ * as they are when the mounted filesystem is accessed directly: the index
+ * holds the attributes of the target of each link, and indexes the contents
+ * of linked directories. Entries for links are marked, so that attributes
+ * requested without following links can be read from the mounted
+ * filesystem. A link whose target does not exist, or a link to a
+ * directory that encloses the link, is recorded without being indexed, and
+ * paths at or beneath such a link are resolved against the mounted
+ * filesystem.
+ */
+
+@Immutable
+final class FBMountIndex
+{
+  private final Entry root;
+  private final int size;
+
+  private FBMountIndex(
+    final Entry inRoot,
+    final int inSize)
+  {
+    this.root = Objects.requireNonNull(inRoot, "root");
+    this.size = inSize;
+  }
+
+  /**
+   * Index the given directory and everything beneath it.
+   *
+   * @param base The directory
+   *
+   * @return The index
+   *
+   * @throws IOException On errors
+   */
+
+  static FBMountIndex build(
+    final Path base)
+    throws IOException
+  {
+    /*
+     * The base directory itself may be reached through a symbolic link,
+     * as it would be when the mounted filesystem is accessed directly, and
+     * so the link is followed for the base directory only.
+     */
+
+    final var attributes =
+      Files.readAttributes(base, BasicFileAttributes.class);
+    final var ancestors =
+      attributes.isDirectory()
+        ? new Ancestors(base.toRealPath(), null)
+        : null;
+
+    try {
+      final var task =
+        new IndexTask(base, attributes, false, true, ancestors);
+      final var root = ForkJoinPool.commonPool().invoke(task);
+      return new FBMountIndex(root, root.count());
+    } catch (final UncheckedIOException e) {
+      throw e.getCause();
+    }
+  }
+
+  /**
+   * @return The number of entries in the index, including the root
+   */
+
+  int size()
+  {
+    return this.size;
+  }
+
+  /**
+   * @return The entry for the base directory of the mount
+   */
+
+  Entry root()
+  {
+    return this.root;
+  }
+
+  /**
+   * Find the entry for a path. If the path is at or beneath an entry that
+   * is not indexed, that entry is returned, and the path must be resolved
+   * against the mounted filesystem.
+   *
+   * @param components The path components
+   * @param start      The index of the first component relative to the
+   *                   base directory of the mount
+   *
+   * @return The entry, or {@code null} if no such entry exists
+   *
+   * @see Entry#isIndexed()
+   */
+
+  Entry find(
+    final List<String> components,
+    final int start)
+  {
+    var entry = this.root;
+    final var count = components.size();
+    for (int index = start; index < count; ++index) {
+      if (!entry.isIndexed()) {
+        return entry;
+      }
+      entry = entry.child(components.get(index));
+      if (entry == null) {
+        return null;
+      }
+    }
+    return entry;
+  }
+
+  /**
+   * The real paths of the directories enclosing a directory being indexed,
+   * including the directory itself. A linked directory whose real path is
+   * already present would be indexed without end.
+   */
+
+  private record Ancestors(
+    Path real,
+    Ancestors parent)
+  {
+    boolean contains(
+      final Path path)
+    {
+      for (var current = this; current != null; current = current.parent) {
+        if (current.real.equals(path)) {
+          return true;
+        }
+      }
+      return false;
+    }
+  }
+
+  private static final class IndexTask
+    extends RecursiveTask<Entry>
+  {
+    private final Path path;
+    private final BasicFileAttributes attributes;
+    private final boolean link;
+    private final boolean indexed;
+    private final Ancestors ancestors;
+
+    IndexTask(
+      final Path inPath,
+      final BasicFileAttributes inAttributes,
+      final boolean inLink,
+      final boolean inIndexed,
+      final Ancestors inAncestors)
+    {
+      this.path = inPath;
+      this.attributes = inAttributes;
+      this.link = inLink;
+      this.indexed = inIndexed;
+      this.ancestors = inAncestors;
+    }
+
+    boolean isIndexedDirectory()
+    {
+      return this.indexed && this.attributes.isDirectory();
+    }
+
+    @Override
+    protected Entry compute()
+    {
+      if (!this.isIndexedDirectory()) {
+        return new Entry(
+          this.attributes,
+          Entry.NO_NAMES,
+          Entry.NO_ENTRIES,
+          this.link,
+          this.indexed
+        );
+      }
+
+      final var children = new ArrayList<Child>();
+      try (var stream = Files.newDirectoryStream(this.path)) {
+        for (final var child : stream) {
+          final var name = child.getFileName().toString();
+          children.add(new Child(name, this.taskFor(child, name)));
+        }
+      } catch (final IOException e) {
+        throw new UncheckedIOException(e);
+      }
+
+      final var directories = new ArrayList<IndexTask>(children.size());
+      for (final var child : children) {
+        if (child.task.isIndexedDirectory()) {
+          directories.add(child.task);
+        }
+      }
+      ForkJoinTask.invokeAll(directories);
+
+      children.sort(
+        Comparator.comparing(Child::name, FBMountLayers.NAME_ORDER)
+      );
+
+      final var count = children.size();
+      final var sortedNames = new String[count];
+      final var entries = new Entry[count];
+      for (int index = 0; index < count; ++index) {
+        final var child = children.get(index);
+        sortedNames[index] = child.name;
+        entries[index] = child.task.isIndexedDirectory()
+          ? child.task.join()
+          : child.task.compute();
+      }
+      return new Entry(this.attributes, sortedNames, entries, this.link, true);
+    }
+
+    private IndexTask taskFor(
+      final Path child,
+      final String name)
+      throws IOException
+    {
+      final var direct =
+        Files.readAttributes(
+          child,
+          BasicFileAttributes.class,
+          LinkOption.NOFOLLOW_LINKS
+        );
+
+      if (!direct.isSymbolicLink()) {
+        final var childAncestors =
+          direct.isDirectory()
+            ? new Ancestors(this.ancestors.real().resolve(name), this.ancestors)
+            : null;
+        return new IndexTask(child, direct, false, true, childAncestors);
+      }
+
+      final BasicFileAttributes followed;
+      try {
+        followed = Files.readAttributes(child, BasicFileAttributes.class);
+      } catch (final IOException e) {
+        return new IndexTask(child, direct, true, false, null);
+      }
+
+      if (!followed.isDirectory()) {
+        return new IndexTask(child, followed, true, true, null);
+      }
+
+      final var real = child.toRealPath();
+      if (this.ancestors.contains(real)) {
+        return new IndexTask(child, followed, true, false, null);
+      }
+      return new IndexTask(
+        child,
+        followed,
+        true,
+        true,
+        new Ancestors(real, this.ancestors)
+      );
+    }
+  }
+
+  private record Child(
+    String name,
+    IndexTask task)
+  {
+
+  }
+
+  /**
+   * An indexed file or directory. The children of a directory are held in
+   * parallel arrays sorted by name. The attributes are those of the target
+   * of any symbolic links, and so an entry never reports that it is a
+   * symbolic link.
+   */
+
+  @Immutable
+  static final class Entry
+    implements BasicFileAttributes
+  {
+    private static final String[] NO_NAMES = new String[0];
+    private static final Entry[] NO_ENTRIES = new Entry[0];
+
+    private static final byte KIND_FILE = 0;
+    private static final byte KIND_DIRECTORY = 1;
+    private static final byte KIND_OTHER = 2;
+
+    private final FileTime lastModifiedTime;
+    private final FileTime lastAccessTime;
+    private final FileTime creationTime;
+    private final long size;
+    private final Object fileKey;
+    private final byte kind;
+    private final boolean link;
+    private final boolean indexed;
+    private final String[] names;
+    private final Entry[] entries;
+
+    Entry(
+      final BasicFileAttributes attributes,
+      final String[] inNames,
+      final Entry[] inEntries,
+      final boolean inLink,
+      final boolean inIndexed)
+    {
+      this.lastModifiedTime = attributes.lastModifiedTime();
+      this.lastAccessTime = attributes.lastAccessTime();
+      this.creationTime = attributes.creationTime();
+      this.size = attributes.size();
+      this.fileKey = attributes.fileKey();
+      this.names = inNames;
+      this.entries = inEntries;
+      this.link = inLink;
+      this.indexed = inIndexed;
+
+      if (attributes.isDirectory()) {
+        this.kind = KIND_DIRECTORY;
+      } else if (attributes.isRegularFile()) {
+        this.kind = KIND_FILE;
+      } else {
+        this.kind = KIND_OTHER;
+      }
+    }
+
+    /**
+     * @param name The name
+     *
+     * @return The child with the given name, or {@code null}
+     */
+
+    Entry child(
+      final String name)
+    {
+      final var index =
+        Arrays.binarySearch(this.names, name, FBMountLayers.NAME_ORDER);
+      return index >= 0 ? this.entries[index] : null;
+    }
+
+    /**
+     * @return A read-only view of the names of the children of this entry,
+     * in listing order
+     */
+
+    List<String> names()
+    {
+      return Collections.unmodifiableList(Arrays.asList(this.names));
+    }
+
+    /**
+     * @return {@code true} if this entry is a symbolic link
+     */
+
+    boolean isLink()
+    {
+      return this.link;
+    }
+
+    /**
+     * @return {@code true} if this entry, and everything beneath it, is
+     * indexed
+     */
+
+    boolean isIndexed()
+    {
+      return this.indexed;
+    }
+
+    int count()
+    {
+      var total = 1;
+      for (final var entry : this.entries) {
+        total += entry.count();
+      }
+      return total;
+    }
+
+    @Override
+    public FileTime lastModifiedTime()
+    {
+      return this.lastModifiedTime;
+    }
+
+    @Override
+    public FileTime lastAccessTime()
+    {
+      return this.lastAccessTime;
+    }
+
+    @Override
+    public FileTime creationTime()
+    {
+      return this.creationTime;
+    }
+
+    @Override
+    public boolean isRegularFile()
+    {
+      return this.kind == KIND_FILE;
+    }
+
+    @Override
+    public boolean isDirectory()
+    {
+      return this.kind == KIND_DIRECTORY;
+    }
+
+    @Override
+    public boolean isSymbolicLink()
+    {
+      return false;
+    }
+
+    @Override
+    public boolean isOther()
+    {
+      return this.kind == KIND_OTHER;
+    }
+
+    @Override
+    public long size()
+    {
+      return this.size;
+    }
+
+    @Override
+    public Object fileKey()
+    {
+      return this.fileKey;
+    }
+  }
+}
@@ -0,0 +1,457 @@
+/*
+ * Copyright © 2025 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.fsbind.core.internal;
+
+import net.jcip.annotations.ThreadSafe;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.NotDirectoryException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The layers of a mount. A mount created with
+ * {@link com.io7m.fsbind.core.FBMountMode#REPLACE} has a single layer, and
+ * further layers are added by {@link com.io7m.fsbind.core.FBMountMode#UNION}
+ * mounts. Layers are held in search order: descending priority, and mount
+ * order for layers of equal priority. Instances are immutable; adding or
+ * removing a layer produces a new instance.
+ *
+ * Paths inside a mount with several layers are resolved through a merged
+ * index rather than by probing each layer in turn. The index is built one
+ * directory at a time, on demand, by listing the directory once in every
+ * layer and recording which layer provides each name. A name that is not
+ * a directory in some layer hides any directory of the same name in lower
+ * layers, so the contents of a directory come only from the layer that
+ * provides its name and from the layers below it, down to the first layer
+ * in which the name is not a directory.
+ *
+ * Each directory in the index records the modification time of the
+ * directory in every layer that was consulted when it was listed, and is
+ * listed again if any of those times has changed (or if the directory has
+ * appeared or disappeared in a layer) when it is next used. Finding a
+ * directory therefore costs one attribute read per consulted layer for the
+ * directory and each of its ancestors, but directories are only listed
+ * again when they have changed. File times have a coarse resolution on
+ * many filesystems, and so a directory can change without its modification
+ * time changing if it was modified shortly before it was listed; such a
+ * directory is listed again each time it is used until its modification
+ * time is older than {@link #SETTLE_TIME}. Layers that were indexed when
+ * mounted are snapshots, and are never consulted again.
+ */
+
+@ThreadSafe
+final class FBMountLayers
+{
+  private static final Logger LOG =
+    LoggerFactory.getLogger(FBMountLayers.class);
+
+  /**
+   * The order in which names inside mounts are listed: case-insensitive,
+   * with names that differ only in case in natural order.
+   */
+
+  static final Comparator<String> NAME_ORDER =
+    String.CASE_INSENSITIVE_ORDER.thenComparing(Comparator.naturalOrder());
+
+  /**
+   * The age that the modification time of a directory must reach before
+   * an unchanged modification time is taken to mean that the directory is
+   * unchanged.
+   */
+
+  static final Duration SETTLE_TIME =
+    Duration.ofSeconds(2L);
+
+  private static final FBMountMergedDirectory EMPTY =
+    new FBMountMergedDirectory(
+      Map.of(),
+      List.of(),
+      List.of(),
+      null,
+      List.of(),
+      List.of()
+    );
+
+  private final List<FBMount> layers;
+  private final ConcurrentHashMap<List<String>, FBMountMergedDirectory> index;
+
+  private FBMountLayers(
+    final List<FBMount> inLayers)
+  {
+    this.layers =
+      List.copyOf(inLayers);
+    this.index =
+      new ConcurrentHashMap<>();
+  }
+
+  /**
+   * @param mount The only layer
+   *
+   * @return A set of layers containing only {@code mount}
+   */
+
+  static FBMountLayers of(
+    final FBMount mount)
+  {
+    return new FBMountLayers(List.of(mount));
+  }
+
+  /**
+   * @return The layers in search order
+   */
+
+  List<FBMount> layers()
+  {
+    return this.layers;
+  }
+
+  /**
+   * @return The layer searched first
+   */
+
+  FBMount first()
+  {
+    return this.layers.getFirst();
+  }
+
+  /**
+   * @return {@code true} if there is more than one layer
+   */
+
+  boolean isUnion()
+  {
+    return this.layers.size() > 1;
+  }
+
+  /**
+   * @param mount The new layer
+   *
+   * @return These layers with {@code mount} added after every existing
+   * layer of the same or higher priority
+   */
+
+  FBMountLayers with(
+    final FBMount mount)
+  {
+    Objects.requireNonNull(mount, "mount");
+
+    final var newLayers = new ArrayList<FBMount>(this.layers.size() + 1);
+    var added = false;
+    for (final var layer : this.layers) {
+      if (!added && layer.priority() < mount.priority()) {
+        newLayers.add(mount);
+        added = true;
+      }
+      newLayers.add(layer);
+    }
+    if (!added) {
+      newLayers.add(mount);
+    }
+    return new FBMountLayers(newLayers);
+  }
+
+  /**
+   * @param mount The layer to remove
+   *
+   * @return These layers without {@code mount}
+   */
+
+  FBMountLayers without(
+    final FBMount mount)
+  {
+    final var newLayers = new ArrayList<>(this.layers);
+    newLayers.remove(mount);
+    return new FBMountLayers(newLayers);
+  }
+
+  /**
+   * Find the merged contents of a directory.
+   *
+   * @param relative The path components of the directory, relative to the
+   *                 mount point
+   *
+   * @return The merged directory, which is empty if the directory does not
+   * exist in any layer
+   */
+
+  FBMountMergedDirectory directory(
+    final List<String> relative)
+  {
+    /*
+     * A directory can only exist if its parent provides its name, so the
+     * parent is consulted first. This avoids listing directories in every
+     * layer when resolving paths that do not exist, and means that every
+     * ancestor is checked for changes before a directory is.
+     */
+
+    final List<FBMount> candidates;
+    final FBMount owner;
+    final var size = relative.size();
+    if (size > 0) {
+      final var parent = this.directory(relative.subList(0, size - 1));
+      owner = parent.owners().get(relative.get(size - 1));
+      if (owner == null) {
+        this.index.remove(relative);
+        return EMPTY;
+      }
+      candidates = parent.layers();
+    } else {
+      owner = this.first();
+      candidates = this.layers;
+    }
+
+    final var existing = this.index.get(relative);
+    if (existing != null && existing.isCurrent(candidates, owner)) {
+      return existing;
+    }
+
+    final var loaded = load(relative, candidates, owner);
+    this.index.put(List.copyOf(relative), loaded);
+    return loaded;
+  }
+
+  /**
+   * Load a directory from the layers in which its parent is visible,
+   * beginning with the layer that provides its name. A layer in which the
+   * name is not a directory hides the same name in every lower layer, and
+   * so the search ends at the first such layer.
+   */
+
+  private static FBMountMergedDirectory load(
+    final List<String> relative,
+    final List<FBMount> candidates,
+    final FBMount owner)
+  {
+    final var owners = new HashMap<String, FBMount>();
+    final var visible = new ArrayList<FBMount>(candidates.size());
+    final var stamps = new ArrayList<FBMountStamp>(candidates.size());
+
+    final var start = candidates.indexOf(owner);
+    for (int index = start; index < candidates.size(); ++index) {
+      final var layer = candidates.get(index);
+      final var kind = loadLayer(relative, layer, owners, stamps);
+      if (kind == EntryKind.NOT_DIRECTORY) {
+        break;
+      }
+      if (kind == EntryKind.DIRECTORY) {
+        visible.add(layer);
+      }
+    }
+
+    final var names = new ArrayList<>(owners.keySet());
+    names.sort(NAME_ORDER);
+    return new FBMountMergedDirectory(
+      Map.copyOf(owners),
+      List.copyOf(names),
+      List.copyOf(visible),
+      owner,
+      candidates,
+      List.copyOf(stamps)
+    );
+  }
+
+  private static EntryKind loadLayer(
+    final List<String> relative,
+    final FBMount layer,
+    final Map<String, FBMount> owners,
+    final List<FBMountStamp> stamps)
+  {
+    final var index = layer.index();
+    if (index.isPresent()) {
+      final var entry = index.get().find(relative, 0);
+      if (entry == null) {
+        return EntryKind.MISSING;
+      }
+      if (entry.isIndexed()) {
+        if (!entry.isDirectory()) {
+          return EntryKind.NOT_DIRECTORY;
+        }
+        for (final var name : entry.names()) {
+          owners.putIfAbsent(name, layer);
+        }
+        return EntryKind.DIRECTORY;
+      }
+    }
+
+    var directory = layer.basePath();
+    for (final var name : relative) {
+      directory = directory.resolve(name);
+    }
+
+    /*
+     * The directory is stamped before it is listed, so that a change made
+     * while it is being listed is seen as a change when it is next used.
+     */
+
+    final var stamp = FBMountStamp.of(directory);
+    stamps.add(stamp);
+    if (stamp.kind() != EntryKind.DIRECTORY) {
+      return stamp.kind();
+    }
+
+    try (var stream = Files.newDirectoryStream(directory)) {
+      for (final var entry : stream) {
+        owners.putIfAbsent(entry.getFileName().toString(), layer);
+      }
+      return EntryKind.DIRECTORY;
+    } catch (final NoSuchFileException e) {
+      return EntryKind.MISSING;
+    } catch (final NotDirectoryException e) {
+      return EntryKind.NOT_DIRECTORY;
+    } catch (final IOException e) {
+      LOG.debug("Unable to list {}: ", directory, e);
+      return EntryKind.MISSING;
+    }
+  }
+
+  private enum EntryKind
+  {
+    MISSING,
+    DIRECTORY,
+    NOT_DIRECTORY
+  }
+
+  /**
+   * The state of a directory in a layer at the time it was listed.
+   *
+   * @param directory The directory
+   * @param kind      The kind of entry
+   * @param modified  The modification time, if the entry exists
+   * @param settled   {@code true} if an unchanged modification time means
+   *                  that the directory is unchanged
+   */
+
+  private record FBMountStamp(
+    Path directory,
+    EntryKind kind,
+    FileTime modified,
+    boolean settled)
+  {
+    static FBMountStamp of(
+      final Path directory)
+    {
+      final var now = Instant.now();
+      try {
+        final var attributes =
+          Files.readAttributes(directory, BasicFileAttributes.class);
+        final var modified =
+          attributes.lastModifiedTime();
+
+        if (!attributes.isDirectory()) {
+          return new FBMountStamp(
+            directory,
+            EntryKind.NOT_DIRECTORY,
+            modified,
+            true
+          );
+        }
+
+        final var settled =
+          modified.toInstant().isBefore(now.minus(SETTLE_TIME));
+        return new FBMountStamp(
+          directory,
+          EntryKind.DIRECTORY,
+          modified,
+          settled
+        );
+      } catch (final NoSuchFileException e) {
+        return new FBMountStamp(directory, EntryKind.MISSING, null, true);
+      } catch (final IOException e) {
+        LOG.debug("Unable to read attributes of {}: ", directory, e);
+        return new FBMountStamp(directory, EntryKind.MISSING, null, true);
+      }
+    }
+
+    boolean isCurrent()
+    {
+      if (!this.settled) {
+        return false;
+      }
+      final var now = of(this.directory);
+      return this.kind == now.kind
+             && Objects.equals(this.modified, now.modified);
+    }
+  }
+
+  /**
+   * The merged contents of a directory inside a mount with several layers.
+   *
+   * @param owners     The layer that provides each name
+   * @param names      The names in listing order
+   * @param layers     The layers in which the directory is visible, in
+   *                   search order
+   * @param owner      The layer that provided the name of the directory
+   * @param candidates The layers in which the parent directory is visible
+   * @param stamps     The state of the directory in each layer consulted
+   */
+
+  record FBMountMergedDirectory(
+    Map<String, FBMount> owners,
+    List<String> names,
+    List<FBMount> layers,
+    FBMount owner,
+    List<FBMount> candidates,
+    List<FBMountStamp> stamps)
+  {
+    /**
+     * @param newCandidates The layers in which the parent is now visible
+     * @param newOwner      The layer that now provides the name
+     *
+     * @return {@code true} if the directory is unchanged
+     */
+
+    boolean isCurrent(
+      final List<FBMount> newCandidates,
+      final FBMount newOwner)
+    {
+      if (!Objects.equals(this.owner, newOwner)) {
+        return false;
+      }
+      if (!this.candidates.equals(newCandidates)) {
+        return false;
+      }
+      for (final var stamp : this.stamps) {
+        if (!stamp.isCurrent()) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+
+  @Override
+  public String toString()
+  {
+    return "[FBMountLayers %s]".formatted(this.layers);
+  }
+}
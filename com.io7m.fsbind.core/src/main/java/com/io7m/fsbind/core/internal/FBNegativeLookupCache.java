@@ -0,0 +1,124 @@
+/*
+ * Copyright © 2025 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.fsbind.core.internal;
+
+import net.jcip.annotations.ThreadSafe;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A bounded cache of paths that are known not to exist inside mounted
+ * filesystems. Entries expire after a configurable duration, and the entire
+ * cache is flushed whenever the mount table changes.
+ */
+
+@ThreadSafe
+final class FBNegativeLookupCache
+{
+  private final int maximumSize;
+  private final long durationNanos;
+  private final ConcurrentHashMap<Key, Long> entries;
+
+  FBNegativeLookupCache(
+    final int inMaximumSize,
+    final Duration inDuration)
+  {
+    Objects.requireNonNull(inDuration, "duration");
+
+    this.maximumSize =
+      Math.max(0, inMaximumSize);
+    this.durationNanos =
+      Math.max(0L, inDuration.toNanos());
+    this.entries =
+      new ConcurrentHashMap<>();
+  }
+
+  /**
+   * @param mount The mount
+   * @param path  The path within the mounted filesystem
+   *
+   * @return {@code true} if the path is known not to exist
+   */
+
+  boolean isMissing(
+    final FBMount mount,
+    final Path path)
+  {
+    if (this.maximumSize == 0) {
+      return false;
+    }
+
+    final var key = new Key(mount, path);
+    final var expires = this.entries.get(key);
+    if (expires == null) {
+      return false;
+    }
+    if (System.nanoTime() - expires < 0L) {
+      return true;
+    }
+    this.entries.remove(key, expires);
+    return false;
+  }
+
+  /**
+   * Record the given path as missing.
+   *
+   * @param mount The mount
+   * @param path  The path within the mounted filesystem
+   */
+
+  void markMissing(
+    final FBMount mount,
+    final Path path)
+  {
+    if (this.maximumSize == 0 || this.durationNanos == 0L) {
+      return;
+    }
+
+    final var now = System.nanoTime();
+    if (this.entries.size() >= this.maximumSize) {
+      this.entries.values().removeIf(expires -> now - expires >= 0L);
+      if (this.entries.size() >= this.maximumSize) {
+        this.entries.clear();
+      }
+    }
+    this.entries.put(
+      new Key(mount, path),
+      Long.valueOf(now + this.durationNanos)
+    );
+  }
+
+  /**
+   * Discard all entries.
+   */
+
+  void clear()
+  {
+    this.entries.clear();
+  }
+
+  private record Key(
+    FBMount mount,
+    Path path)
+  {
+
+  }
+}
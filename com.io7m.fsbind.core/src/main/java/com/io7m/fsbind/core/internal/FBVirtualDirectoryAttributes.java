@@ -24,37 +24,18 @@ import java.util.Objects;
 final class FBVirtualDirectoryAttributes
   implements BasicFileAttributes
 {
-  private volatile FileTime lastModifiedTime =
-    FileTime.fromMillis(0L);
-  private volatile FileTime lastAccessTime =
-    FileTime.fromMillis(0L);
-  private volatile FileTime creationTime =
-    FileTime.fromMillis(0L);
+  private final FileTime lastModifiedTime;
+  private final FileTime lastAccessTime;
+  private final FileTime creationTime;
 
-  FBVirtualDirectoryAttributes()
+  FBVirtualDirectoryAttributes(
+    final FileTime time)
   {
+    Objects.requireNonNull(time, "time");
 
-  }
-
-  void setCreationTime(
-    final FileTime t)
-  {
-    this.creationTime =
-      Objects.requireNonNull(t, "creationTime");
-  }
-
-  void setLastModifiedTime(
-    final FileTime t)
-  {
-    this.lastModifiedTime =
-      Objects.requireNonNull(t, "lastModifiedTime");
-  }
-
-  void setLastAccessTime(
-    final FileTime t)
-  {
-    this.lastAccessTime =
-      Objects.requireNonNull(t, "lastAccessTime");
+    this.creationTime = time;
+    this.lastModifiedTime = time;
+    this.lastAccessTime = time;
   }
 
   @Override
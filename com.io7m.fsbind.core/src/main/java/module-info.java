@@ -30,7 +30,6 @@ module com.io7m.fsbind.core
   requires com.io7m.jaffirm.core;
   requires com.io7m.jcip.annotations;
   requires com.io7m.jmulticlose.core;
-  requires org.jgrapht.core;
   requires org.slf4j;
 
   provides FileSystemProvider
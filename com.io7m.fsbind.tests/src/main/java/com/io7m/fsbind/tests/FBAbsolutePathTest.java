@@ -431,4 +431,95 @@ public class FBAbsolutePathTest
       );
     }
   }
+
+  @Test
+  public void testAbsoluteDerivedEqual()
+    throws Exception
+  {
+    try (final var fs = createFS()) {
+      final var p = fs.getPath(fs.getSeparator(), "a", "b", "c");
+      final var q = fs.getPath(fs.getSeparator(), "a")
+        .resolve(fs.getPath("b", "c", "d"))
+        .getParent();
+
+      assertEquals(p, q);
+      assertEquals(p.hashCode(), q.hashCode());
+      assertEquals(p.toString(), q.toString());
+      assertEquals("/a/b/c", q.toString());
+      assertEquals(fs.getPath("c"), q.getFileName());
+      assertEquals(fs.getPath("b", "c"), q.subpath(2, 4));
+      assertEquals(
+        fs.getPath("b", "c"),
+        fs.getPath(fs.getSeparator(), "a").relativize(q)
+      );
+    }
+  }
+
+  @Test
+  public void testAbsoluteSubpathInvalid()
+    throws Exception
+  {
+    try (final var fs = createFS()) {
+      final var p = fs.getPath(fs.getSeparator(), "a", "b", "c");
+      assertThrows(IllegalArgumentException.class, () -> {
+        p.subpath(0, 2);
+      });
+      assertThrows(IllegalArgumentException.class, () -> {
+        p.subpath(2, 2);
+      });
+      assertThrows(IndexOutOfBoundsException.class, () -> {
+        p.subpath(2, 5);
+      });
+      assertThrows(IndexOutOfBoundsException.class, () -> {
+        p.getName(3);
+      });
+    }
+  }
+
+  @Test
+  public void testAbsoluteHashCaseInsensitive()
+    throws Exception
+  {
+    try (final var fs = createFS()) {
+      final var p = fs.getPath(fs.getSeparator(), "a", "Straße", "ǅ");
+      final var q = fs.getPath(fs.getSeparator(), "A", "STRAßE", "ǆ");
+      assertEquals(p, q);
+      assertEquals(p.hashCode(), q.hashCode());
+      assertEquals(0, p.compareTo(q));
+    }
+  }
+
+  @Test
+  public void testAbsoluteOrderedComponentwise()
+    throws Exception
+  {
+    try (final var fs = createFS()) {
+      final var a = fs.getPath(fs.getSeparator(), "a");
+      final var ab = fs.getPath(fs.getSeparator(), "a", "B");
+      final var aDash = fs.getPath(fs.getSeparator(), "a-b");
+      final var b = fs.getPath(fs.getSeparator(), "b");
+
+      assertEquals(
+        List.of(a, ab, aDash, b),
+        Stream.of(b, aDash, ab, a).sorted().toList()
+      );
+    }
+  }
+
+  @Test
+  public void testAbsoluteSameFile()
+    throws Exception
+  {
+    try (final var fs = createFS()) {
+      try (final var fsOther = createFSOther()) {
+        final var p = fs.getPath(fs.getSeparator(), "a");
+        final var q = fs.getPath(fs.getSeparator(), "A");
+        final var r = fsOther.getPath(fs.getSeparator(), "a");
+        final var provider = fs.provider();
+        assertTrue(provider.isSameFile(p, q));
+        assertFalse(provider.isSameFile(p, r));
+        assertFalse(provider.isSameFile(p, fs.getPath("a")));
+      }
+    }
+  }
 }
@@ -19,8 +19,11 @@ package com.io7m.fsbind.tests;
 
 import com.io7m.fsbind.core.FBFilesystem;
 import com.io7m.fsbind.core.FBFilesystemProvider;
+import com.io7m.fsbind.core.FBMountLookupMode;
+import com.io7m.fsbind.core.FBMountMode;
 import com.io7m.fsbind.core.FBMountRequest;
 import com.io7m.fsbind.core.FBMountedFilesystem;
+import com.io7m.fsbind.core.FBWatchModifier;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DynamicTest;
 import org.junit.jupiter.api.Test;
@@ -35,17 +38,32 @@ import java.net.URI;
 import java.nio.channels.FileChannel;
 import java.nio.file.AccessDeniedException;
 import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystem;
 import java.nio.file.FileSystemException;
 import java.nio.file.FileSystemNotFoundException;
 import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.NoSuchFileException;
+import java.nio.file.NotDirectoryException;
 import java.nio.file.Path;
 import java.nio.file.ReadOnlyFileSystemException;
 import java.nio.file.StandardOpenOption;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.FileTime;
 import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Stream;
 
@@ -55,7 +73,10 @@ import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -108,6 +129,50 @@ public final class FBFilesystemTest
     }
   }
 
+  @Test
+  public void testCreateConcurrentSame()
+    throws Exception
+  {
+    final var executor = Executors.newFixedThreadPool(8);
+    try {
+      final var tasks = new ArrayList<Callable<FileSystem>>();
+      for (int index = 0; index < 32; ++index) {
+        tasks.add(() -> FileSystems.newFileSystem(FSBIND, Map.of()));
+      }
+
+      final var results = executor.invokeAll(tasks);
+      final var first = results.get(0).get();
+      try (first) {
+        for (final var result : results) {
+          assertSame(first, result.get());
+        }
+        assertSame(first, FileSystems.getFileSystem(FSBIND));
+      }
+    } finally {
+      executor.shutdown();
+    }
+
+    assertThrows(FileSystemNotFoundException.class, () -> {
+      FileSystems.getFileSystem(FSBIND);
+    });
+  }
+
+  @Test
+  public void testCreateCloseRecreate()
+    throws Exception
+  {
+    final var fs0 = createFS();
+    fs0.close();
+
+    try (final var fs1 = createFS()) {
+      assertNotSame(fs0, fs1);
+      assertTrue(fs1.isOpen());
+
+      fs0.close();
+      assertSame(fs1, FileSystems.getFileSystem(FSBIND));
+    }
+  }
+
   private record PathParameters(
     String first,
     String... rest)
@@ -122,7 +187,11 @@ public final class FBFilesystemTest
       new PathParameters("/"),
       new PathParameters("/", "A"),
       new PathParameters("/", "A", "B"),
-      new PathParameters("A", "B")
+      new PathParameters("A", "B"),
+      new PathParameters("/z"),
+      new PathParameters("/a/b/c.txt"),
+      new PathParameters("a/b/c.txt"),
+      new PathParameters(".a/..b/c...")
     ).map(this::testPathValid);
   }
 
@@ -144,12 +213,72 @@ public final class FBFilesystemTest
       });
   }
 
+  @Test
+  public void testGetPathParsed()
+    throws Exception
+  {
+    try (final var fs = createFS()) {
+      final var p = fs.getPath("/textures/ui/button.png");
+      assertTrue(p.isAbsolute());
+      assertEquals(fs.getPath("/", "textures", "ui", "button.png"), p);
+      assertEquals("/textures/ui/button.png", p.toString());
+      assertEquals(3, p.getNameCount());
+      assertEquals(fs.getPath("/"), fs.getPath("/").getRoot());
+
+      final var q = fs.getPath("ui/button.png");
+      assertFalse(q.isAbsolute());
+      assertEquals(fs.getPath("ui", "button.png"), q);
+      assertEquals(p, fs.getPath("/textures").resolve(q));
+      assertEquals(p, fs.getPath("/textures").resolve("ui/button.png"));
+    }
+  }
+
+  @Test
+  public void testGetPathURI()
+    throws Exception
+  {
+    try (final var fs = createFS()) {
+      final var p = fs.getPath("/", "a", "b c");
+      assertEquals(fs.getPath("/a/b"), Path.of(URI.create("fsbind:x:/a/b")));
+      assertEquals(fs.getPath("/"), Path.of(URI.create("fsbind:x:/")));
+
+      final var u = p.toUri();
+      assertSame(u, p.toUri());
+      assertEquals(p, Path.of(u));
+      assertEquals(p, fs.provider().getPath(u));
+
+      assertThrows(FileSystemNotFoundException.class, () -> {
+        Path.of(URI.create("fsbind:nonexistent:/a"));
+      });
+      assertThrows(IllegalArgumentException.class, () -> {
+        fs.provider().getPath(URI.create("fsbind:x:a/b"));
+      });
+      assertThrows(IllegalArgumentException.class, () -> {
+        fs.provider().getPath(URI.create("fsbind:x"));
+      });
+      assertThrows(IllegalArgumentException.class, () -> {
+        fs.provider().getPath(URI.create("file:/a/b"));
+      });
+    }
+
+    assertThrows(FileSystemNotFoundException.class, () -> {
+      Path.of(URI.create("fsbind:x:/a/b"));
+    });
+  }
+
   @TestFactory
   public Stream<DynamicTest> testGetPathInvalid()
   {
     return Stream.of(
       new PathParameters(""),
-      new PathParameters("/z"),
+      new PathParameters("//"),
+      new PathParameters("a//b"),
+      new PathParameters("a/"),
+      new PathParameters("/a/"),
+      new PathParameters("/a/./b"),
+      new PathParameters("/a/../b"),
+      new PathParameters("a/.../b"),
+      new PathParameters("/z", "a"),
       new PathParameters("/", "/"),
       new PathParameters("/", "."),
       new PathParameters("/", ".."),
@@ -236,6 +365,232 @@ public final class FBFilesystemTest
     }
   }
 
+  @Test
+  public void testListSnapshotLazy()
+    throws Exception
+  {
+    try (final var fs = createFS()) {
+      Files.createDirectories(fs.getPath("/", "a"));
+      Files.createDirectories(fs.getPath("/", "b"));
+      Files.createDirectories(fs.getPath("/", "c"));
+
+      final var accepted = new ArrayList<Path>();
+      final DirectoryStream.Filter<Path> filter = path -> {
+        accepted.add(path);
+        return !path.getFileName().toString().equals("b");
+      };
+
+      try (final var stream =
+             Files.newDirectoryStream(fs.getPath("/"), filter)) {
+        assertEquals(List.of(), accepted);
+
+        Files.createDirectories(fs.getPath("/", "d"));
+        Files.delete(fs.getPath("/", "a"));
+
+        final var iterator = stream.iterator();
+        assertEquals(fs.getPath("/", "a"), iterator.next());
+        assertEquals(1, accepted.size());
+        assertEquals(fs.getPath("/", "c"), iterator.next());
+        assertFalse(iterator.hasNext());
+        assertEquals(3, accepted.size());
+
+        assertThrows(IllegalStateException.class, stream::iterator);
+      }
+    }
+  }
+
+  @Test
+  public void testListUnsorted()
+    throws Exception
+  {
+    try (final var fs = (FBFilesystem) FileSystems.newFileSystem(
+      FSBIND,
+      Map.of(
+        FBFilesystemProvider.environmentDirectoryListingSortedKey(),
+        Boolean.FALSE
+      ))) {
+
+      final var expected = new ArrayList<String>();
+      for (int index = 0; index < 100; ++index) {
+        final var name = "f%03d".formatted(Integer.valueOf(index));
+        Files.createDirectories(fs.getPath("/", name));
+        expected.add(name);
+      }
+
+      final var names =
+        new ArrayList<>(
+          Files.list(fs.getPath("/"))
+            .map(Path::getFileName)
+            .map(Path::toString)
+            .toList()
+        );
+
+      names.sort(String::compareTo);
+      assertEquals(expected, names);
+    }
+  }
+
+  private static List<String> namesOf(
+    final List<Path> paths)
+  {
+    return paths.stream()
+      .map(Path::getFileName)
+      .map(Path::toString)
+      .toList();
+  }
+
+  @Test
+  public void testListSortedAfterChanges()
+    throws Exception
+  {
+    try (final var fs = createFS()) {
+      Files.createDirectories(fs.getPath("/", "c"));
+      Files.createDirectories(fs.getPath("/", "A"));
+      Files.createDirectories(fs.getPath("/", "b"));
+      Files.move(fs.getPath("/", "c"), fs.getPath("/", "0"));
+      Files.createDirectories(fs.getPath("/", "D"));
+      Files.delete(fs.getPath("/", "b"));
+
+      assertEquals(
+        List.of("0", "A", "D"),
+        Files.list(fs.getPath("/"))
+          .map(Path::getFileName)
+          .map(Path::toString)
+          .toList()
+      );
+    }
+  }
+
+  @Test
+  public void testListPage()
+    throws Exception
+  {
+    try (final var fs = createFS()) {
+      final var root = fs.getPath("/");
+      for (int index = 0; index < 10; ++index) {
+        Files.createDirectories(fs.getPath("/", "d" + index));
+      }
+
+      assertEquals(
+        List.of("d0", "d1", "d2", "d3"),
+        namesOf(fs.listPage(root, Optional.empty(), 4))
+      );
+      assertEquals(
+        List.of("d4", "d5", "d6", "d7"),
+        namesOf(fs.listPage(root, Optional.of("D3"), 4))
+      );
+      assertEquals(
+        List.of("d8", "d9"),
+        namesOf(fs.listPage(root, Optional.of("d7"), 4))
+      );
+      assertEquals(
+        List.of("d5", "d6"),
+        namesOf(fs.listPage(root, Optional.of("d45"), 2))
+      );
+      assertEquals(
+        List.of(),
+        namesOf(fs.listPage(root, Optional.of("d9"), 4))
+      );
+      assertEquals(
+        List.of(),
+        namesOf(fs.listPage(root, Optional.empty(), 0))
+      );
+
+      fs.freeze();
+
+      assertEquals(
+        List.of("d4", "d5", "d6", "d7"),
+        namesOf(fs.listPage(root, Optional.of("D3"), 4))
+      );
+      assertEquals(
+        List.of("d5", "d6"),
+        namesOf(fs.listPage(root, Optional.of("d45"), 2))
+      );
+      assertEquals(
+        List.of("d8", "d9"),
+        namesOf(fs.listPage(root, Optional.of("d7"), 400))
+      );
+
+      assertThrows(IllegalArgumentException.class, () -> {
+        fs.listPage(root, Optional.empty(), -1);
+      });
+      assertThrows(NoSuchFileException.class, () -> {
+        fs.listPage(fs.getPath("/", "nonexistent"), Optional.empty(), 1);
+      });
+    }
+  }
+
+  @Test
+  public void testListPageMounted(
+    final @TempDir Path mountDir)
+    throws Exception
+  {
+    Files.createDirectories(mountDir.resolve("z"));
+    Files.createDirectories(mountDir.resolve("x/w"));
+    Files.createDirectories(mountDir.resolve("y"));
+
+    try (final var fs = createFS()) {
+      final var dir = fs.getPath("/", "a");
+      Files.createDirectories(dir);
+      fs.mount(new FBMountRequest(mountDir, dir));
+
+      assertEquals(
+        List.of("x", "y"),
+        namesOf(fs.listPage(dir, Optional.empty(), 2))
+      );
+      assertEquals(
+        List.of("y", "z"),
+        namesOf(fs.listPage(dir, Optional.of("x"), 2))
+      );
+      assertEquals(
+        dir.resolve("y"),
+        fs.listPage(dir, Optional.of("x"), 1).get(0)
+      );
+      assertEquals(
+        List.of(dir.resolve("x"), dir.resolve("y"), dir.resolve("z")),
+        Files.list(dir).sorted().toList()
+      );
+      assertEquals(
+        List.of(dir.resolve("x/w")),
+        Files.list(dir.resolve("x")).toList()
+      );
+    }
+  }
+
+  @Test
+  public void testListPageMountedMixedCase(
+    final @TempDir Path mountDir)
+    throws Exception
+  {
+    Files.createDirectories(mountDir.resolve("b"));
+    Files.createDirectories(mountDir.resolve("B"));
+    Files.createDirectories(mountDir.resolve("a"));
+    Files.createDirectories(mountDir.resolve("A"));
+
+    try (final var fs = createFS()) {
+      final var dir = fs.getPath("/", "m");
+      Files.createDirectories(dir);
+      fs.mount(new FBMountRequest(mountDir, dir));
+
+      assertEquals(
+        List.of("A", "a"),
+        namesOf(fs.listPage(dir, Optional.empty(), 2))
+      );
+      assertEquals(
+        List.of("a", "B"),
+        namesOf(fs.listPage(dir, Optional.of("A"), 2))
+      );
+      assertEquals(
+        List.of("B", "b"),
+        namesOf(fs.listPage(dir, Optional.of("a"), 2))
+      );
+      assertEquals(
+        List.of("b"),
+        namesOf(fs.listPage(dir, Optional.of("B"), 2))
+      );
+    }
+  }
+
   @Test
   public void testListRootCreateDeleteNotEmpty()
     throws Exception
@@ -334,6 +689,48 @@ public final class FBFilesystemTest
     }
   }
 
+  @Test
+  public void testMountZipCheckLeafOnly()
+    throws Exception
+  {
+    final var zip =
+      this.resource("nested.zip");
+    final var zipFileUri =
+      zip.toUri();
+    final var zipUri =
+      URI.create("jar:file:" + zipFileUri.getPath());
+
+    final var env =
+      Map.<String, Object>of(
+        FBFilesystemProvider.environmentMountLookupModeKey(),
+        FBMountLookupMode.CHECK_LEAF_ONLY
+      );
+
+    try (final var zipfs = FileSystems.newFileSystem(zipUri, Map.of(), null)) {
+      try (final var fs = (FBFilesystem) FileSystems.newFileSystem(FSBIND, env)) {
+        final var dir = fs.getPath("/", "a");
+        Files.createDirectories(dir);
+
+        fs.mount(new FBMountRequest(
+          zipfs.getRootDirectories().iterator().next(),
+          dir
+        ));
+
+        final var aTxt = dir.resolve("x").resolve("a.txt");
+        assertEquals("Hello X A\n", Files.readString(aTxt));
+
+        assertThrows(NoSuchFileException.class, () -> {
+          Files.readString(dir.resolve("q").resolve("a.txt"));
+        });
+        assertThrows(NoSuchFileException.class, () -> {
+          Files.readString(aTxt.resolve("b.txt"));
+        });
+        assertTrue(Files.isDirectory(dir.resolve("y")));
+        assertFalse(Files.exists(dir.resolve("q")));
+      }
+    }
+  }
+
   @Test
   public void testMountZipReadOnly()
     throws Exception
@@ -411,6 +808,72 @@ public final class FBFilesystemTest
     }
   }
 
+  @Test
+  public void testMountMissingUsesFsbindPath(
+    final @TempDir Path mountDir)
+    throws Exception
+  {
+    try (final var fs = createFS()) {
+      final var dir = fs.getPath("/", "a");
+      final var f = dir.resolve("x").resolve("a.txt");
+      Files.createDirectories(dir);
+      fs.mount(new FBMountRequest(mountDir, dir));
+
+      assertEquals(
+        f.toString(),
+        assertThrows(NoSuchFileException.class, () -> {
+          Files.getLastModifiedTime(f);
+        }).getFile()
+      );
+      assertEquals(
+        f.toString(),
+        assertThrows(NoSuchFileException.class, () -> {
+          Files.newByteChannel(f);
+        }).getFile()
+      );
+      assertEquals(
+        f.toString(),
+        assertThrows(NoSuchFileException.class, () -> {
+          FileChannel.open(f);
+        }).getFile()
+      );
+    }
+  }
+
+  @Test
+  public void testMountBelowFileUsesFsbindPath(
+    final @TempDir Path mountDir)
+    throws Exception
+  {
+    Files.writeString(mountDir.resolve("file.txt"), "File");
+
+    try (final var fs = createFS()) {
+      final var dir = fs.getPath("/", "a");
+      final var f = dir.resolve("file.txt").resolve("x");
+      Files.createDirectories(dir);
+      fs.mount(new FBMountRequest(mountDir, dir));
+
+      assertEquals(
+        f.toString(),
+        assertThrows(NoSuchFileException.class, () -> {
+          Files.getLastModifiedTime(f);
+        }).getFile()
+      );
+      assertEquals(
+        f.toString(),
+        assertThrows(NoSuchFileException.class, () -> {
+          Files.newByteChannel(f);
+        }).getFile()
+      );
+      assertEquals(
+        f.toString(),
+        assertThrows(NoSuchFileException.class, () -> {
+          FileChannel.open(f);
+        }).getFile()
+      );
+    }
+  }
+
   @Test
   public void testMountUnmount()
     throws Exception
@@ -453,12 +916,473 @@ public final class FBFilesystemTest
   }
 
   @Test
-  @Timeout(value = 5L, unit = TimeUnit.SECONDS)
-  public void testWatchFileModified(
-    final @TempDir Path mountDir)
+  public void testMountOverMount(
+    final @TempDir Path mountDir0,
+    final @TempDir Path mountDir1)
     throws Exception
   {
-    Files.writeString(mountDir.resolve("a.txt"), "Hello!");
+    Files.createDirectories(mountDir0.resolve("x"));
+    Files.createDirectories(mountDir1.resolve("y"));
+
+    try (final var fs = createFS()) {
+      final var dir = fs.getPath("/", "a");
+      Files.createDirectories(dir.resolve("v"));
+
+      fs.mount(new FBMountRequest(mountDir0, dir));
+      assertTrue(Files.isDirectory(dir.resolve("x")));
+      assertFalse(Files.exists(dir.resolve("v")));
+
+      assertThrows(FileSystemException.class, () -> {
+        fs.mount(new FBMountRequest(mountDir1, dir.resolve("x")));
+      });
+
+      fs.mount(new FBMountRequest(mountDir1, dir));
+      assertTrue(Files.isDirectory(dir.resolve("y")));
+      assertFalse(Files.exists(dir.resolve("x")));
+
+      fs.unmount(dir);
+      assertTrue(Files.isDirectory(dir.resolve("x")));
+
+      fs.unmount(dir);
+      assertTrue(Files.isDirectory(dir.resolve("v")));
+      assertFalse(Files.exists(dir.resolve("x")));
+    }
+  }
+  @Test
+  public void testMountUnion(
+    final @TempDir Path mountDir0,
+    final @TempDir Path mountDir1,
+    final @TempDir Path mountDir2)
+    throws Exception
+  {
+    Files.createDirectories(mountDir0.resolve("x"));
+    Files.writeString(mountDir0.resolve("x").resolve("a.txt"), "Low A");
+    Files.writeString(mountDir0.resolve("x").resolve("b.txt"), "Low B");
+    Files.writeString(mountDir0.resolve("c.txt"), "Low C");
+
+    Files.createDirectories(mountDir1.resolve("x"));
+    Files.writeString(mountDir1.resolve("x").resolve("a.txt"), "High A");
+    Files.writeString(mountDir1.resolve("d.txt"), "High D");
+
+    Files.createDirectories(mountDir2.resolve("x"));
+    Files.writeString(mountDir2.resolve("x").resolve("a.txt"), "Equal A");
+    Files.writeString(mountDir2.resolve("c.txt"), "Equal C");
+
+    try (final var fs = createFS()) {
+      final var dir = fs.getPath("/", "a");
+      Files.createDirectories(dir.resolve("v"));
+
+      fs.mount(new FBMountRequest(mountDir0, dir, FBMountMode.UNION, 0));
+      fs.mount(new FBMountRequest(mountDir1, dir, FBMountMode.UNION, 10));
+      fs.mount(new FBMountRequest(mountDir2, dir, FBMountMode.UNION, 0));
+
+      assertEquals("High A", Files.readString(dir.resolve("x/a.txt")));
+      assertEquals("Low B", Files.readString(dir.resolve("x/b.txt")));
+      assertEquals("Low C", Files.readString(dir.resolve("c.txt")));
+      assertEquals("High D", Files.readString(dir.resolve("d.txt")));
+      assertFalse(Files.exists(dir.resolve("v")));
+      assertFalse(Files.exists(dir.resolve("x/e.txt")));
+      assertFalse(Files.exists(dir.resolve("y/e.txt")));
+
+      assertEquals(
+        List.of("c.txt", "d.txt", "x"),
+        Files.list(dir)
+          .map(Path::getFileName)
+          .map(Path::toString)
+          .toList()
+      );
+      assertEquals(
+        List.of("a.txt", "b.txt"),
+        Files.list(dir.resolve("x"))
+          .map(Path::getFileName)
+          .map(Path::toString)
+          .toList()
+      );
+      assertEquals(
+        List.of("b.txt"),
+        namesOf(fs.listPage(dir.resolve("x"), Optional.of("a.txt"), 10))
+      );
+      assertEquals(
+        dir.resolve("x/b.txt"),
+        Files.list(dir.resolve("x")).toList().get(1)
+      );
+
+      assertEquals(
+        List.of(
+          new FBMountedFilesystem(dir, mountDir0, 0),
+          new FBMountedFilesystem(dir, mountDir1, 10),
+          new FBMountedFilesystem(dir, mountDir2, 0)
+        ),
+        fs.mountedFilesystems()
+      );
+
+      fs.unmount(new FBMountedFilesystem(dir, mountDir1, 10));
+      assertEquals("Low A", Files.readString(dir.resolve("x/a.txt")));
+      assertFalse(Files.exists(dir.resolve("d.txt")));
+
+      fs.unmount(new FBMountedFilesystem(dir, mountDir0, 0));
+      assertEquals("Equal A", Files.readString(dir.resolve("x/a.txt")));
+      assertEquals("Equal C", Files.readString(dir.resolve("c.txt")));
+      assertFalse(Files.exists(dir.resolve("x/b.txt")));
+
+      assertThrows(FileSystemException.class, () -> {
+        fs.unmount(new FBMountedFilesystem(dir, mountDir0, 0));
+      });
+
+      fs.unmount(new FBMountedFilesystem(dir, mountDir2, 0));
+      assertTrue(Files.isDirectory(dir.resolve("v")));
+      assertEquals(List.of(), fs.mountedFilesystems());
+    }
+  }
+
+  @Test
+  public void testMountIndexed(
+    final @TempDir Path mountDir)
+    throws Exception
+  {
+    Files.createDirectories(mountDir.resolve("x/y"));
+    Files.writeString(mountDir.resolve("x/y/a.txt"), "Hello!");
+    Files.writeString(mountDir.resolve("x/B.txt"), "Hi");
+
+    try (final var fs = createFS()) {
+      final var dir = fs.getPath("/", "a");
+      Files.createDirectories(dir);
+      fs.mount(new FBMountRequest(mountDir, dir, FBMountMode.REPLACE, 0, true));
+
+      assertTrue(Files.isDirectory(dir.resolve("x/y")));
+      assertTrue(Files.isRegularFile(dir.resolve("x/y/a.txt")));
+      assertEquals(6L, Files.size(dir.resolve("x/y/a.txt")));
+      assertEquals("Hello!", Files.readString(dir.resolve("x/y/a.txt")));
+      assertFalse(Files.exists(dir.resolve("x/z")));
+      assertFalse(Files.exists(dir.resolve("x/y/a.txt/z")));
+
+      assertEquals(
+        List.of(dir.resolve("x/B.txt"), dir.resolve("x/y")),
+        Files.list(dir.resolve("x")).toList()
+      );
+      assertEquals(
+        List.of("y"),
+        namesOf(fs.listPage(dir.resolve("x"), Optional.of("b.txt"), 10))
+      );
+      assertThrows(NotDirectoryException.class, () -> {
+        Files.list(dir.resolve("x/B.txt"));
+      });
+
+      /*
+       * Changes to the mounted directory are not observed, as the index
+       * answers every lookup.
+       */
+
+      Files.writeString(mountDir.resolve("x/c.txt"), "New");
+      Files.writeString(mountDir.resolve("x/y/a.txt"), "Longer text");
+      assertFalse(Files.exists(dir.resolve("x/c.txt")));
+      assertEquals(6L, Files.size(dir.resolve("x/y/a.txt")));
+    }
+  }
+
+  @Test
+  public void testMountIndexedThroughLink(
+    final @TempDir Path mountDir)
+    throws Exception
+  {
+    final var target = mountDir.resolve("target");
+    Files.createDirectories(target.resolve("x"));
+    Files.writeString(target.resolve("x/a.txt"), "Hello!");
+    final var link =
+      Files.createSymbolicLink(mountDir.resolve("link"), target);
+
+    try (final var fs = createFS()) {
+      final var dir = fs.getPath("/", "a");
+      Files.createDirectories(dir);
+      fs.mount(new FBMountRequest(link, dir, FBMountMode.REPLACE, 0, true));
+
+      assertTrue(Files.isDirectory(dir.resolve("x")));
+      assertEquals("Hello!", Files.readString(dir.resolve("x/a.txt")));
+      assertEquals(
+        List.of(dir.resolve("x")),
+        Files.list(dir).toList()
+      );
+    }
+  }
+
+  @Test
+  public void testMountIndexedLinksMatchUnindexed(
+    final @TempDir Path mountDir)
+    throws Exception
+  {
+    Files.createDirectories(mountDir.resolve("x/y"));
+    Files.writeString(mountDir.resolve("x/y/a.txt"), "Hello!");
+    Files.createSymbolicLink(
+      mountDir.resolve("x/file-link"),
+      mountDir.resolve("x/y/a.txt")
+    );
+    Files.createSymbolicLink(
+      mountDir.resolve("dir-link"),
+      mountDir.resolve("x/y")
+    );
+    Files.createSymbolicLink(
+      mountDir.resolve("x/y/loop"),
+      mountDir.resolve("x")
+    );
+    Files.createSymbolicLink(
+      mountDir.resolve("dangling"),
+      mountDir.resolve("nonexistent")
+    );
+
+    final var paths = List.of(
+      "x/file-link",
+      "dir-link",
+      "dir-link/a.txt",
+      "dir-link/loop",
+      "dir-link/loop/y/a.txt",
+      "dir-link/loop/y/loop/file-link",
+      "dangling",
+      "dir-link/missing"
+    );
+
+    try (final var fs = createFS()) {
+      final var plain = fs.getPath("/", "plain");
+      final var indexed = fs.getPath("/", "indexed");
+      Files.createDirectories(plain);
+      Files.createDirectories(indexed);
+      fs.mount(new FBMountRequest(mountDir, plain));
+      fs.mount(
+        new FBMountRequest(mountDir, indexed, FBMountMode.REPLACE, 0, true)
+      );
+
+      for (final var name : paths) {
+        final var p = plain.resolve(name);
+        final var i = indexed.resolve(name);
+        assertEquals(Files.exists(p), Files.exists(i), name);
+        assertEquals(Files.isRegularFile(p), Files.isRegularFile(i), name);
+        assertEquals(Files.isDirectory(p), Files.isDirectory(i), name);
+        assertEquals(Files.isSymbolicLink(p), Files.isSymbolicLink(i), name);
+        if (Files.isRegularFile(p)) {
+          assertEquals(Files.readString(p), Files.readString(i), name);
+          assertEquals(Files.size(p), Files.size(i), name);
+        }
+        if (Files.isDirectory(p)) {
+          assertEquals(
+            namesOf(Files.list(p).sorted().toList()),
+            namesOf(Files.list(i).sorted().toList()),
+            name
+          );
+        }
+      }
+
+      assertTrue(Files.isRegularFile(indexed.resolve("x/file-link")));
+      assertTrue(Files.isSymbolicLink(indexed.resolve("x/file-link")));
+      assertEquals(
+        "Hello!",
+        Files.readString(indexed.resolve("dir-link/a.txt"))
+      );
+    }
+  }
+
+  @Test
+  public void testMountIndexedRejectedBeforeIndexing(
+    final @TempDir Path mountDir)
+    throws Exception
+  {
+    /*
+     * The base of each rejected mount does not exist, so indexing it would
+     * fail with NoSuchFileException; the rejection is reported instead.
+     */
+
+    final var missing = mountDir.resolve("missing");
+    Files.createDirectories(mountDir.resolve("x"));
+
+    try (final var fs = createFS()) {
+      final var dir = fs.getPath("/", "a");
+      Files.createDirectories(dir);
+      fs.mount(new FBMountRequest(mountDir, dir));
+
+      final var ex = assertThrows(FileSystemException.class, () -> {
+        fs.mount(new FBMountRequest(
+          missing,
+          dir.resolve("x"),
+          FBMountMode.REPLACE,
+          0,
+          true
+        ));
+      });
+      assertFalse(ex instanceof NoSuchFileException);
+
+      fs.freeze();
+      assertThrows(ReadOnlyFileSystemException.class, () -> {
+        fs.mount(new FBMountRequest(
+          missing,
+          dir,
+          FBMountMode.REPLACE,
+          0,
+          true
+        ));
+      });
+    }
+  }
+
+  @Test
+  public void testMountUnionIndexed(
+    final @TempDir Path mountDir0,
+    final @TempDir Path mountDir1)
+    throws Exception
+  {
+    Files.createDirectories(mountDir0.resolve("x"));
+    Files.writeString(mountDir0.resolve("x/a.txt"), "Low A");
+    Files.writeString(mountDir0.resolve("x/b.txt"), "Low B");
+    Files.createDirectories(mountDir1.resolve("x"));
+    Files.writeString(mountDir1.resolve("x/a.txt"), "High A");
+
+    try (final var fs = createFS()) {
+      final var dir = fs.getPath("/", "a");
+      Files.createDirectories(dir);
+      fs.mount(new FBMountRequest(mountDir0, dir, FBMountMode.UNION, 0, true));
+      fs.mount(new FBMountRequest(mountDir1, dir, FBMountMode.UNION, 1, false));
+
+      assertEquals("High A", Files.readString(dir.resolve("x/a.txt")));
+      assertEquals("Low B", Files.readString(dir.resolve("x/b.txt")));
+      assertEquals(5L, Files.size(dir.resolve("x/b.txt")));
+      assertEquals(
+        List.of("a.txt", "b.txt"),
+        Files.list(dir.resolve("x"))
+          .map(Path::getFileName)
+          .map(Path::toString)
+          .toList()
+      );
+    }
+  }
+
+  @Test
+  public void testMountUnionFileHidesDirectory(
+    final @TempDir Path mountDir0,
+    final @TempDir Path mountDir1,
+    final @TempDir Path mountDir2)
+    throws Exception
+  {
+    Files.createDirectories(mountDir0.resolve("x"));
+    Files.writeString(mountDir0.resolve("x/a.txt"), "Low A");
+    Files.createDirectories(mountDir0.resolve("d/e"));
+    Files.writeString(mountDir0.resolve("d/f.txt"), "Low F");
+    Files.writeString(mountDir0.resolve("d/e/g.txt"), "Low G");
+
+    Files.writeString(mountDir1.resolve("d"), "Middle D");
+
+    Files.writeString(mountDir2.resolve("x"), "High X");
+    Files.createDirectories(mountDir2.resolve("d/e"));
+
+    try (final var fs = createFS()) {
+      final var dir = fs.getPath("/", "a");
+      Files.createDirectories(dir);
+      fs.mount(new FBMountRequest(mountDir0, dir, FBMountMode.UNION, 0, true));
+      fs.mount(new FBMountRequest(mountDir1, dir, FBMountMode.UNION, 1));
+      fs.mount(new FBMountRequest(mountDir2, dir, FBMountMode.UNION, 2));
+
+      assertTrue(Files.isRegularFile(dir.resolve("x")));
+      assertEquals("High X", Files.readString(dir.resolve("x")));
+      assertFalse(Files.exists(dir.resolve("x/a.txt")));
+      assertThrows(NotDirectoryException.class, () -> {
+        Files.list(dir.resolve("x"));
+      });
+
+      assertTrue(Files.isDirectory(dir.resolve("d/e")));
+      assertFalse(Files.exists(dir.resolve("d/f.txt")));
+      assertFalse(Files.exists(dir.resolve("d/e/g.txt")));
+      assertEquals(
+        List.of(dir.resolve("d/e")),
+        Files.list(dir.resolve("d")).toList()
+      );
+      assertEquals(
+        List.of(),
+        Files.list(dir.resolve("d/e")).toList()
+      );
+    }
+  }
+
+  @Test
+  public void testMountUnionLayerChanged(
+    final @TempDir Path mountDir0,
+    final @TempDir Path mountDir1)
+    throws Exception
+  {
+    Files.createDirectories(mountDir0.resolve("x"));
+    Files.writeString(mountDir0.resolve("x/a.txt"), "Low A");
+    Files.writeString(mountDir0.resolve("x/b.txt"), "Low B");
+    Files.createDirectories(mountDir1.resolve("x"));
+
+    try (final var fs = createFS()) {
+      final var dir = fs.getPath("/", "a");
+      Files.createDirectories(dir);
+      fs.mount(new FBMountRequest(mountDir0, dir, FBMountMode.UNION, 0));
+      fs.mount(new FBMountRequest(mountDir1, dir, FBMountMode.UNION, 1));
+
+      assertEquals(
+        List.of(dir.resolve("x/a.txt"), dir.resolve("x/b.txt")),
+        Files.list(dir.resolve("x")).toList()
+      );
+
+      Files.writeString(mountDir1.resolve("x/c.txt"), "High C");
+      Files.delete(mountDir0.resolve("x/b.txt"));
+
+      assertEquals("High C", Files.readString(dir.resolve("x/c.txt")));
+      assertFalse(Files.exists(dir.resolve("x/b.txt")));
+      assertEquals(
+        List.of(dir.resolve("x/a.txt"), dir.resolve("x/c.txt")),
+        Files.list(dir.resolve("x")).toList()
+      );
+
+      Files.createDirectories(mountDir0.resolve("y"));
+      Files.writeString(mountDir0.resolve("y/d.txt"), "Low D");
+      assertEquals("Low D", Files.readString(dir.resolve("y/d.txt")));
+
+      Files.writeString(mountDir1.resolve("y"), "High Y");
+      assertTrue(Files.isRegularFile(dir.resolve("y")));
+      assertFalse(Files.exists(dir.resolve("y/d.txt")));
+    }
+  }
+
+  @Test
+  public void testMountUnionOverReplace(
+    final @TempDir Path mountDir0,
+    final @TempDir Path mountDir1,
+    final @TempDir Path mountDir2)
+    throws Exception
+  {
+    Files.createDirectories(mountDir0.resolve("x"));
+    Files.createDirectories(mountDir1.resolve("y"));
+    Files.createDirectories(mountDir2.resolve("z"));
+
+    try (final var fs = createFS()) {
+      final var dir = fs.getPath("/", "a");
+      Files.createDirectories(dir.resolve("v"));
+
+      fs.mount(new FBMountRequest(mountDir0, dir));
+      fs.mount(new FBMountRequest(mountDir1, dir, FBMountMode.UNION, -1));
+      assertTrue(Files.isDirectory(dir.resolve("x")));
+      assertTrue(Files.isDirectory(dir.resolve("y")));
+
+      fs.mount(new FBMountRequest(mountDir2, dir));
+      assertTrue(Files.isDirectory(dir.resolve("z")));
+      assertFalse(Files.exists(dir.resolve("x")));
+      assertFalse(Files.exists(dir.resolve("y")));
+
+      fs.unmount(dir);
+      assertTrue(Files.isDirectory(dir.resolve("x")));
+      assertTrue(Files.isDirectory(dir.resolve("y")));
+
+      fs.unmount(dir);
+      assertTrue(Files.isDirectory(dir.resolve("v")));
+      assertEquals(List.of(), fs.mountedFilesystems());
+    }
+  }
+
+
+  @Test
+  @Timeout(value = 5L, unit = TimeUnit.SECONDS)
+  public void testWatchFileModified(
+    final @TempDir Path mountDir)
+    throws Exception
+  {
+    Files.writeString(mountDir.resolve("a.txt"), "Hello!");
 
     try (final var fs = createFS()) {
       final var dir = fs.getPath("/", "z");
@@ -604,32 +1528,1011 @@ public final class FBFilesystemTest
   }
 
   @Test
-  public void testDirectoryRename()
+  @Timeout(value = 5L, unit = TimeUnit.SECONDS)
+  public void testWatchNativeFileModified(
+    final @TempDir Path mountDir)
     throws Exception
   {
-    try (final var fs = createFS()) {
-      final var p = fs.getPath("/", "a");
-      final var q = fs.getPath("/", "b");
-      final var r = fs.getPath("/", "c");
+    Files.writeString(mountDir.resolve("a.txt"), "Hello!");
 
-      Files.createDirectory(p);
-      Files.createDirectory(r);
+    try (final var fs = (FBFilesystem) FileSystems.newFileSystem(
+      FSBIND,
+      Map.of(
+        FBFilesystemProvider.environmentWatchServiceDurationKey(),
+        Duration.ofHours(1L),
+        FBFilesystemProvider.environmentWatchServiceNativeKey(),
+        Boolean.TRUE
+      ))) {
 
-      assertTrue(Files.isDirectory(p));
-      assertFalse(Files.exists(q));
-      assertTrue(Files.isDirectory(r));
+      final var dir = fs.getPath("/", "z");
+      final var f = dir.resolve("a.txt");
+      Files.createDirectories(dir);
+      fs.mount(new FBMountRequest(mountDir, dir));
 
-      Files.move(p, q);
+      try (final var watch = fs.newWatchService()) {
+        final var key = f.register(watch, ENTRY_MODIFY);
+        Files.writeString(mountDir.resolve("a.txt"), "Goodbye!");
 
-      assertFalse(Files.exists(p));
-      assertTrue(Files.isDirectory(q));
-      assertTrue(Files.isDirectory(r));
+        final var wk = watch.take();
+        assertSame(key, wk);
+        assertEquals(f, wk.watchable());
 
-      assertThrows(FileSystemException.class, () -> {
-        Files.move(q, r);
-      });
-      assertTrue(Files.isDirectory(q));
-      assertTrue(Files.isDirectory(r));
+        final var events = wk.pollEvents();
+        assertEquals(ENTRY_MODIFY, events.get(0).kind());
+        assertEquals(f, events.get(0).context());
+        assertTrue(wk.reset());
+      }
+    }
+  }
+
+  @Test
+  @Timeout(value = 5L, unit = TimeUnit.SECONDS)
+  public void testWatchNativeDirectoryEntryCreated(
+    final @TempDir Path mountDir)
+    throws Exception
+  {
+    Files.createDirectories(mountDir.resolve("d"));
+
+    try (final var fs = (FBFilesystem) FileSystems.newFileSystem(
+      FSBIND,
+      Map.of(
+        FBFilesystemProvider.environmentWatchServiceDurationKey(),
+        Duration.ofHours(1L),
+        FBFilesystemProvider.environmentWatchServiceNativeKey(),
+        Boolean.TRUE
+      ))) {
+
+      final var dir = fs.getPath("/", "z");
+      final var d = dir.resolve("d");
+      final var e = d.resolve("e.txt");
+      Files.createDirectories(dir);
+      fs.mount(new FBMountRequest(mountDir, dir));
+
+      try (final var watch = fs.newWatchService()) {
+        final var keyD = d.register(watch, ENTRY_CREATE);
+        final var keyE = e.register(watch, ENTRY_CREATE);
+        Files.writeString(mountDir.resolve("d").resolve("e.txt"), "Hello!");
+
+        final var received = new HashMap<Path, WatchEvent.Kind<?>>();
+        while (received.size() < 2) {
+          final var wk = watch.take();
+          for (final var event : wk.pollEvents()) {
+            received.put((Path) event.context(), event.kind());
+          }
+          wk.reset();
+        }
+
+        assertEquals(ENTRY_CREATE, received.get(fs.getPath("e.txt")));
+        assertEquals(ENTRY_CREATE, received.get(e));
+
+        keyD.cancel();
+        keyE.cancel();
+        assertFalse(keyD.isValid());
+        assertFalse(keyE.reset());
+      }
+    }
+  }
+
+  @Test
+  @Timeout(value = 5L, unit = TimeUnit.SECONDS)
+  public void testWatchNativeInvalidatedByMountChanges(
+    final @TempDir Path mountDir0,
+    final @TempDir Path mountDir1)
+    throws Exception
+  {
+    Files.writeString(mountDir0.resolve("a.txt"), "Hello!");
+
+    try (final var fs = (FBFilesystem) FileSystems.newFileSystem(
+      FSBIND,
+      Map.of(
+        FBFilesystemProvider.environmentWatchServiceDurationKey(),
+        Duration.ofHours(1L),
+        FBFilesystemProvider.environmentWatchServiceNativeKey(),
+        Boolean.TRUE
+      ))) {
+
+      final var dir = fs.getPath("/", "z");
+      final var f = dir.resolve("a.txt");
+      Files.createDirectories(dir);
+      fs.mount(new FBMountRequest(mountDir0, dir));
+
+      try (final var watch = fs.newWatchService()) {
+        final var keyDir = dir.register(watch, ENTRY_CREATE);
+        final var keyFile = f.register(watch, ENTRY_MODIFY);
+        assertTrue(keyDir.isValid());
+        assertTrue(keyFile.isValid());
+
+        fs.mount(new FBMountRequest(mountDir1, dir));
+        assertFalse(keyDir.isValid());
+        assertFalse(keyFile.isValid());
+
+        final var signalled = new HashSet<WatchKey>();
+        signalled.add(watch.take());
+        signalled.add(watch.take());
+        assertEquals(Set.of(keyDir, keyFile), signalled);
+
+        final var keyAgain = dir.register(watch, ENTRY_CREATE);
+        assertTrue(keyAgain.isValid());
+        fs.unmount(dir);
+        assertFalse(keyAgain.isValid());
+        assertSame(keyAgain, watch.take());
+        assertFalse(keyAgain.reset());
+      }
+    }
+  }
+
+  @Test
+  @Timeout(value = 10L, unit = TimeUnit.SECONDS)
+  public void testWatchPolledScheduled(
+    final @TempDir Path mountDir)
+    throws Exception
+  {
+    for (int index = 0; index < 500; ++index) {
+      Files.writeString(mountDir.resolve("f%03d.txt".formatted(index)), "x");
+    }
+
+    try (final var fs = (FBFilesystem) FileSystems.newFileSystem(
+      FSBIND,
+      Map.of(
+        FBFilesystemProvider.environmentWatchServiceDurationKey(),
+        Duration.ofMillis(250L),
+        FBFilesystemProvider.environmentWatchServiceNativeKey(),
+        Boolean.FALSE
+      ))) {
+
+      final var dir = fs.getPath("/", "z");
+      Files.createDirectories(dir);
+      fs.mount(new FBMountRequest(mountDir, dir));
+
+      try (final var watch = fs.newWatchService()) {
+        for (int index = 0; index < 500; ++index) {
+          dir.resolve("f%03d.txt".formatted(index))
+            .register(watch, ENTRY_MODIFY, ENTRY_DELETE);
+        }
+
+        final var statistics = fs.watchStatistics();
+        assertEquals(500, statistics.keys());
+        assertEquals(25, statistics.slots());
+        assertEquals(Duration.ofMillis(10L), statistics.tickPeriod());
+
+        Files.setLastModifiedTime(
+          mountDir.resolve("f123.txt"),
+          FileTime.fromMillis(0L)
+        );
+        Files.delete(mountDir.resolve("f456.txt"));
+
+        final var received = new HashMap<Path, WatchEvent.Kind<?>>();
+        while (received.size() < 2) {
+          final var wk = watch.take();
+          for (final var event : wk.pollEvents()) {
+            received.put((Path) event.context(), event.kind());
+          }
+          assertTrue(wk.reset());
+        }
+
+        assertEquals(ENTRY_MODIFY, received.get(dir.resolve("f123.txt")));
+        assertEquals(ENTRY_DELETE, received.get(dir.resolve("f456.txt")));
+
+        /*
+         * Statistics are updated when a tick completes, which may be after
+         * the events of the tick have been delivered.
+         */
+
+        while (fs.watchStatistics().events() < 2L) {
+          Thread.sleep(10L);
+        }
+
+        final var after = fs.watchStatistics();
+        assertTrue(after.ticks() > 0L);
+        assertTrue(after.checks() >= 2L);
+      }
+
+      assertEquals(0, fs.watchStatistics().keys());
+    }
+  }
+
+  @Test
+  @Timeout(value = 10L, unit = TimeUnit.SECONDS)
+  public void testWatchPolledStopsWhenIdle(
+    final @TempDir Path mountDir)
+    throws Exception
+  {
+    Files.writeString(mountDir.resolve("a.txt"), "x");
+
+    try (final var fs = (FBFilesystem) FileSystems.newFileSystem(
+      FSBIND,
+      Map.of(
+        FBFilesystemProvider.environmentWatchServiceDurationKey(),
+        Duration.ofMillis(100L),
+        FBFilesystemProvider.environmentWatchServiceNativeKey(),
+        Boolean.FALSE
+      ))) {
+
+      final var dir = fs.getPath("/", "z");
+      Files.createDirectories(dir);
+      fs.mount(new FBMountRequest(mountDir, dir));
+
+      try (final var watch = fs.newWatchService()) {
+        final var key =
+          dir.resolve("a.txt").register(watch, ENTRY_MODIFY);
+
+        while (fs.watchStatistics().ticks() < 2L) {
+          Thread.sleep(10L);
+        }
+
+        /*
+         * A tick in progress when the last key is removed may still
+         * complete, but no further ticks are made.
+         */
+
+        key.cancel();
+        assertEquals(0, fs.watchStatistics().keys());
+        Thread.sleep(50L);
+        final var ticksThen = fs.watchStatistics().ticks();
+        Thread.sleep(200L);
+        assertEquals(ticksThen, fs.watchStatistics().ticks());
+
+        /*
+         * Adding a key starts the scheduler again.
+         */
+
+        dir.resolve("a.txt").register(watch, ENTRY_MODIFY);
+        while (fs.watchStatistics().ticks() <= ticksThen) {
+          Thread.sleep(10L);
+        }
+      }
+    }
+  }
+
+  @Test
+  @Timeout(value = 5L, unit = TimeUnit.SECONDS)
+  public void testWatchDirectoryVirtual()
+    throws Exception
+  {
+    try (final var fs = (FBFilesystem) FileSystems.newFileSystem(
+      FSBIND,
+      Map.of(
+        FBFilesystemProvider.environmentWatchServiceDurationKey(),
+        Duration.ofHours(1L)
+      ))) {
+
+      final var a = fs.getPath("/", "a");
+      final var b = a.resolve("b");
+      Files.createDirectories(a);
+
+      try (final var watch = fs.newWatchService()) {
+        final var key = a.register(watch, ENTRY_CREATE, ENTRY_DELETE);
+
+        Files.createDirectories(b);
+        assertEquals(
+          List.of("ENTRY_CREATE b"),
+          eventsOf(watch.take())
+        );
+        assertTrue(key.reset());
+
+        Files.delete(b);
+        assertEquals(
+          List.of("ENTRY_DELETE b"),
+          eventsOf(watch.take())
+        );
+        assertTrue(key.reset());
+
+        Files.delete(a);
+        assertSame(key, watch.take());
+        assertFalse(key.isValid());
+        assertFalse(key.reset());
+      }
+    }
+  }
+
+  @Test
+  @Timeout(value = 5L, unit = TimeUnit.SECONDS)
+  public void testWatchDirectoryVirtualPushed(
+    final @TempDir Path mountDir)
+    throws Exception
+  {
+    try (final var fs = (FBFilesystem) FileSystems.newFileSystem(
+      FSBIND,
+      Map.of(
+        FBFilesystemProvider.environmentWatchServiceDurationKey(),
+        Duration.ofHours(1L)
+      ))) {
+
+      final var a = fs.getPath("/", "a");
+      final var b = a.resolve("b");
+      final var c = a.resolve("c");
+      Files.createDirectories(b);
+
+      try (final var watch = fs.newWatchService()) {
+        final var key =
+          a.register(watch, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY);
+
+        Files.move(b, c);
+        assertEquals(
+          List.of("ENTRY_DELETE b", "ENTRY_CREATE c"),
+          eventsOf(watch.take())
+        );
+        assertTrue(key.reset());
+
+        fs.mount(new FBMountRequest(mountDir, c));
+        assertEquals(
+          List.of("ENTRY_MODIFY c"),
+          eventsOf(watch.take())
+        );
+        assertTrue(key.reset());
+
+        fs.unmount(c);
+        assertEquals(
+          List.of("ENTRY_MODIFY c"),
+          eventsOf(watch.take())
+        );
+        assertTrue(key.reset());
+        assertEquals(0, fs.watchStatistics().keys());
+      }
+    }
+  }
+
+  @Test
+  @Timeout(value = 5L, unit = TimeUnit.SECONDS)
+  public void testWatchDirectoryVirtualMountedOver(
+    final @TempDir Path mountDir)
+    throws Exception
+  {
+    try (final var fs = (FBFilesystem) FileSystems.newFileSystem(
+      FSBIND,
+      Map.of(
+        FBFilesystemProvider.environmentWatchServiceDurationKey(),
+        Duration.ofHours(1L)
+      ))) {
+
+      final var a = fs.getPath("/", "a");
+      final var b = a.resolve("b");
+      final var c = b.resolve("c");
+      Files.createDirectories(c);
+
+      try (final var watch = fs.newWatchService()) {
+        final var keyA = a.register(watch, ENTRY_CREATE, ENTRY_MODIFY);
+        final var keyB = b.register(watch, ENTRY_CREATE);
+        final var keyC = c.register(watch, ENTRY_CREATE);
+
+        fs.mount(new FBMountRequest(mountDir, b));
+        assertTrue(keyA.isValid());
+        assertFalse(keyB.isValid());
+        assertFalse(keyC.isValid());
+
+        final var signalled = new HashSet<WatchKey>();
+        while (signalled.size() < 3) {
+          signalled.add(watch.take());
+        }
+        assertEquals(Set.of(keyA, keyB, keyC), signalled);
+        assertEquals(List.of("ENTRY_MODIFY b"), eventsOf(keyA));
+        assertFalse(keyB.reset());
+        assertFalse(keyC.reset());
+
+        /*
+         * The directories are reachable again once unmounted, and can be
+         * watched again.
+         */
+
+        fs.unmount(b);
+        final var keyAgain = c.register(watch, ENTRY_CREATE);
+        Files.createDirectories(c.resolve("d"));
+        assertSame(keyAgain, watch.take());
+        assertEquals(List.of("ENTRY_CREATE d"), eventsOf(keyAgain));
+      }
+    }
+  }
+
+  @Test
+  @Timeout(value = 5L, unit = TimeUnit.SECONDS)
+  public void testWatchDirectoryMountedPolled(
+    final @TempDir Path mountDir)
+    throws Exception
+  {
+    Files.writeString(mountDir.resolve("m.txt"), "Hello!");
+    Files.writeString(mountDir.resolve("d.txt"), "Hello!");
+
+    try (final var fs = (FBFilesystem) FileSystems.newFileSystem(
+      FSBIND,
+      Map.of(
+        FBFilesystemProvider.environmentWatchServiceDurationKey(),
+        Duration.ofMillis(50L),
+        FBFilesystemProvider.environmentWatchServiceNativeKey(),
+        Boolean.FALSE
+      ))) {
+
+      final var dir = fs.getPath("/", "z");
+      Files.createDirectories(dir);
+      fs.mount(new FBMountRequest(mountDir, dir));
+
+      try (final var watch = fs.newWatchService()) {
+        final var key =
+          dir.register(watch, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY);
+
+        Files.writeString(mountDir.resolve("c.txt"), "Hello!");
+        assertEquals(
+          List.of("ENTRY_CREATE c.txt"),
+          eventsOf(watch.take())
+        );
+        assertTrue(key.reset());
+
+        Files.setLastModifiedTime(
+          mountDir.resolve("m.txt"),
+          FileTime.fromMillis(0L)
+        );
+        assertEquals(
+          List.of("ENTRY_MODIFY m.txt"),
+          eventsOf(watch.take())
+        );
+        assertTrue(key.reset());
+
+        Files.delete(mountDir.resolve("d.txt"));
+        assertEquals(
+          List.of("ENTRY_DELETE d.txt"),
+          eventsOf(watch.take())
+        );
+        assertTrue(key.reset());
+      }
+    }
+  }
+
+  @Test
+  @Timeout(value = 10L, unit = TimeUnit.SECONDS)
+  public void testWatchTree(
+    final @TempDir Path mountDir)
+    throws Exception
+  {
+    Files.createDirectories(mountDir.resolve("x").resolve("y"));
+    Files.writeString(mountDir.resolve("x").resolve("y").resolve("f.txt"), "");
+
+    try (final var fs = (FBFilesystem) FileSystems.newFileSystem(
+      FSBIND,
+      Map.of(
+        FBFilesystemProvider.environmentWatchServiceDurationKey(),
+        Duration.ofMillis(50L)
+      ))) {
+
+      final var dir = fs.getPath("/", "z");
+      Files.createDirectories(dir);
+      fs.mount(new FBMountRequest(mountDir, dir));
+
+      try (final var watch = fs.newWatchService()) {
+        final var key =
+          dir.register(
+            watch,
+            new WatchEvent.Kind<?>[]{ENTRY_CREATE, ENTRY_DELETE},
+            FBWatchModifier.FILE_TREE
+          );
+
+        assertEquals(1, fs.watchStatistics().keys());
+
+        final var newDir = mountDir.resolve("x").resolve("n");
+        Files.createDirectories(newDir.resolve("m"));
+        Files.writeString(newDir.resolve("m").resolve("g.txt"), "");
+        assertEquals(
+          Set.of("ENTRY_CREATE x/n", "ENTRY_CREATE x/n/m",
+                 "ENTRY_CREATE x/n/m/g.txt"),
+          eventsUntil(watch, 3)
+        );
+        assertTrue(key.reset());
+
+        Files.delete(mountDir.resolve("x").resolve("y").resolve("f.txt"));
+        Files.delete(mountDir.resolve("x").resolve("y"));
+        assertEquals(
+          Set.of("ENTRY_DELETE x/y", "ENTRY_DELETE x/y/f.txt"),
+          eventsUntil(watch, 2)
+        );
+        assertTrue(key.reset());
+      }
+    }
+  }
+
+  @Test
+  @Timeout(value = 10L, unit = TimeUnit.SECONDS)
+  public void testWatchTreeUnchangedDirectoriesNotListed(
+    final @TempDir Path mountDir)
+    throws Exception
+  {
+    final var x = mountDir.resolve("x");
+    final var y = x.resolve("y");
+    Files.createDirectories(y);
+    Files.writeString(y.resolve("f.txt"), "");
+
+    final var old =
+      FileTime.from(Instant.now().minus(Duration.ofHours(1L)));
+    for (final var directory : List.of(y, x, mountDir)) {
+      Files.setLastModifiedTime(directory, old);
+    }
+
+    try (final var fs = (FBFilesystem) FileSystems.newFileSystem(
+      FSBIND,
+      Map.of(
+        FBFilesystemProvider.environmentWatchServiceDurationKey(),
+        Duration.ofSeconds(1L)
+      ))) {
+
+      final var dir = fs.getPath("/", "z");
+      Files.createDirectories(dir);
+      fs.mount(new FBMountRequest(mountDir, dir));
+
+      try (final var watch = fs.newWatchService()) {
+        final var keyIncremental =
+          dir.register(
+            watch,
+            new WatchEvent.Kind<?>[]{ENTRY_CREATE},
+            FBWatchModifier.FILE_TREE
+          );
+        final var keyFull =
+          dir.register(
+            watch,
+            new WatchEvent.Kind<?>[]{ENTRY_CREATE, ENTRY_MODIFY},
+            FBWatchModifier.FILE_TREE
+          );
+
+        /*
+         * Restoring the modification time of "y" hides the new file from
+         * a key that only lists directories that have changed. A key
+         * watching for modifications lists every directory.
+         */
+
+        Files.writeString(y.resolve("g.txt"), "");
+        Files.setLastModifiedTime(y, old);
+        Files.writeString(x.resolve("h.txt"), "");
+
+        final var createdX = "ENTRY_CREATE x/h.txt";
+        final var createdY = "ENTRY_CREATE x/y/g.txt";
+        final var received = new HashMap<WatchKey, List<String>>();
+        received.put(keyIncremental, new ArrayList<>());
+        received.put(keyFull, new ArrayList<>());
+        while (!received.get(keyIncremental).contains(createdX)
+               || !received.get(keyFull).contains(createdX)
+               || !received.get(keyFull).contains(createdY)) {
+          final var key = watch.take();
+          received.get(key).addAll(eventsOf(key));
+          key.reset();
+        }
+
+        assertEquals(List.of(createdX), received.get(keyIncremental));
+      }
+    }
+  }
+
+  @Test
+  @Timeout(value = 10L, unit = TimeUnit.SECONDS)
+  public void testWatchInvalidNamesSkipped(
+    final @TempDir Path mountDir)
+    throws Exception
+  {
+    try (final var fs = (FBFilesystem) FileSystems.newFileSystem(
+      FSBIND,
+      Map.of(
+        FBFilesystemProvider.environmentWatchServiceDurationKey(),
+        Duration.ofMillis(50L),
+        FBFilesystemProvider.environmentWatchServiceNativeKey(),
+        Boolean.FALSE
+      ))) {
+
+      final var dir = fs.getPath("/", "z");
+      Files.createDirectories(dir);
+      fs.mount(new FBMountRequest(mountDir, dir));
+
+      try (final var watch = fs.newWatchService()) {
+        final var keyDirectory =
+          dir.register(watch, ENTRY_CREATE);
+        final var keyTree =
+          dir.register(
+            watch,
+            new WatchEvent.Kind<?>[]{ENTRY_CREATE},
+            FBWatchModifier.FILE_TREE
+          );
+
+        /*
+         * "..." is a valid name on the underlying filesystem, but not a
+         * valid fsbind path component.
+         */
+
+        Files.createDirectories(mountDir.resolve("..."));
+        Files.writeString(mountDir.resolve("...").resolve("a.txt"), "");
+        Files.writeString(mountDir.resolve("c.txt"), "");
+
+        final var created = "ENTRY_CREATE c.txt";
+        final var received = new HashMap<WatchKey, List<String>>();
+        received.put(keyDirectory, new ArrayList<>());
+        received.put(keyTree, new ArrayList<>());
+        while (!received.get(keyDirectory).contains(created)
+               || !received.get(keyTree).contains(created)) {
+          final var key = watch.take();
+          received.get(key).addAll(eventsOf(key));
+          key.reset();
+        }
+
+        assertEquals(List.of(created), received.get(keyDirectory));
+        assertEquals(List.of(created), received.get(keyTree));
+      }
+
+      assertEquals(
+        List.of(dir.resolve("c.txt")),
+        Files.list(dir).toList()
+      );
+      assertEquals(
+        List.of(dir.resolve("c.txt")),
+        fs.listPage(dir, Optional.empty(), 10)
+      );
+    }
+  }
+
+  @Test
+  @Timeout(value = 10L, unit = TimeUnit.SECONDS)
+  public void testWatchUnionHiddenDirectory(
+    final @TempDir Path mountDir0,
+    final @TempDir Path mountDir1,
+    final @TempDir Path mountDir2)
+    throws Exception
+  {
+    Files.createDirectories(mountDir0.resolve("d"));
+    Files.writeString(mountDir1.resolve("d"), "Middle D");
+    Files.createDirectories(mountDir2.resolve("d"));
+
+    try (final var fs = (FBFilesystem) FileSystems.newFileSystem(
+      FSBIND,
+      Map.of(
+        FBFilesystemProvider.environmentWatchServiceDurationKey(),
+        Duration.ofMillis(50L)
+      ))) {
+
+      final var dir = fs.getPath("/", "z");
+      Files.createDirectories(dir);
+      fs.mount(new FBMountRequest(mountDir0, dir, FBMountMode.UNION, 0));
+      fs.mount(new FBMountRequest(mountDir1, dir, FBMountMode.UNION, 1));
+      fs.mount(new FBMountRequest(mountDir2, dir, FBMountMode.UNION, 2));
+
+      try (final var watch = fs.newWatchService()) {
+        final var key = dir.resolve("d").register(watch, ENTRY_CREATE);
+
+        /*
+         * The directory in the lowest layer is hidden by the file in the
+         * middle layer, so entries created in it are never observed.
+         */
+
+        Files.writeString(mountDir0.resolve("d/hidden.txt"), "");
+        Files.writeString(mountDir2.resolve("d/visible.txt"), "");
+
+        final var received = new ArrayList<String>();
+        while (!received.contains("ENTRY_CREATE visible.txt")) {
+          final var wk = watch.take();
+          received.addAll(eventsOf(wk));
+          wk.reset();
+        }
+
+        assertEquals(List.of("ENTRY_CREATE visible.txt"), received);
+        assertTrue(key.isValid());
+      }
+    }
+  }
+
+  @Test
+  public void testWatchTreeNotDirectory()
+    throws Exception
+  {
+    try (final var fs = createFS()) {
+      try (final var watch = fs.newWatchService()) {
+        assertThrows(NotDirectoryException.class, () -> {
+          fs.getPath("/", "nonexistent")
+            .register(
+              watch,
+              new WatchEvent.Kind<?>[]{ENTRY_CREATE},
+              FBWatchModifier.FILE_TREE
+            );
+        });
+      }
+    }
+  }
+
+  private static Set<String> eventsUntil(
+    final WatchService watch,
+    final int count)
+    throws InterruptedException
+  {
+    final var events = new HashSet<String>();
+    while (events.size() < count) {
+      final var key = watch.take();
+      events.addAll(eventsOf(key));
+      key.reset();
+    }
+    return events;
+  }
+
+  private static List<String> eventsOf(
+    final WatchKey key)
+  {
+    return key.pollEvents()
+      .stream()
+      .map(e -> "%s %s".formatted(e.kind(), e.context()))
+      .toList();
+  }
+
+  @Test
+  public void testDirectoryRename()
+    throws Exception
+  {
+    try (final var fs = createFS()) {
+      final var p = fs.getPath("/", "a");
+      final var q = fs.getPath("/", "b");
+      final var r = fs.getPath("/", "c");
+
+      Files.createDirectory(p);
+      Files.createDirectory(r);
+
+      assertTrue(Files.isDirectory(p));
+      assertFalse(Files.exists(q));
+      assertTrue(Files.isDirectory(r));
+
+      Files.move(p, q);
+
+      assertFalse(Files.exists(p));
+      assertTrue(Files.isDirectory(q));
+      assertTrue(Files.isDirectory(r));
+
+      assertThrows(FileSystemException.class, () -> {
+        Files.move(q, r);
+      });
+      assertTrue(Files.isDirectory(q));
+      assertTrue(Files.isDirectory(r));
+    }
+  }
+
+  @Test
+  public void testLookupCacheHits()
+    throws Exception
+  {
+    try (final var fs = createFS()) {
+      final var dir = fs.getPath("/", "a", "b");
+      Files.createDirectories(dir);
+
+      final var before = fs.lookupCacheStatistics();
+      assertTrue(Files.isDirectory(dir));
+      assertTrue(Files.isDirectory(dir));
+      final var after = fs.lookupCacheStatistics();
+
+      assertEquals(before.misses() + 1L, after.misses());
+      assertEquals(before.hits() + 1L, after.hits());
+    }
+  }
+
+  @Test
+  public void testLookupCacheOverflowKeepsHotEntries()
+    throws Exception
+  {
+    try (final var fs = (FBFilesystem) FileSystems.newFileSystem(
+      FSBIND,
+      Map.of(
+        FBFilesystemProvider.environmentLookupCacheSizeKey(),
+        Integer.valueOf(64)
+      ))) {
+
+      for (int index = 0; index < 200; ++index) {
+        Files.createDirectories(fs.getPath("/", "d%03d".formatted(index)));
+      }
+      Files.createDirectories(fs.getPath("/", "hot"));
+
+      final var before = fs.lookupCacheStatistics();
+      for (int index = 0; index < 200; ++index) {
+        assertTrue(Files.isDirectory(fs.getPath("/", "hot")));
+        final var name = "d%03d".formatted(index);
+        assertTrue(Files.isDirectory(fs.getPath("/", name)));
+      }
+      final var after = fs.lookupCacheStatistics();
+
+      /*
+       * The frequently used path is looked up once, and then survives
+       * every eviction.
+       */
+
+      assertEquals(before.misses() + 201L, after.misses());
+      assertEquals(before.hits() + 199L, after.hits());
+      assertTrue(after.entries() <= 64);
+      assertTrue(after.entries() > 0);
+    }
+  }
+
+  @Test
+  public void testLookupPathBindingInvalidated()
+    throws Exception
+  {
+    try (final var fs = createFS()) {
+      final var dir = fs.getPath("/", "a");
+      Files.createDirectory(dir);
+
+      final var before = fs.lookupCacheStatistics();
+      final var time0 = Files.getLastModifiedTime(dir);
+      assertEquals(time0, Files.getLastModifiedTime(dir));
+      assertEquals(time0, Files.getLastModifiedTime(dir));
+      final var after = fs.lookupCacheStatistics();
+      assertEquals(before.misses() + 1L, after.misses());
+      assertEquals(before.hits() + 2L, after.hits());
+
+      Files.delete(dir);
+      assertFalse(Files.exists(dir));
+      Thread.sleep(2L);
+      Files.createDirectory(fs.getPath("/", "A"));
+
+      assertTrue(Files.isDirectory(dir));
+      assertNotEquals(time0, Files.getLastModifiedTime(dir));
+    }
+  }
+
+  @Test
+  public void testLookupCacheInvalidated(
+    final @TempDir Path mountDir)
+    throws Exception
+  {
+    Files.writeString(mountDir.resolve("a.txt"), "Hello!");
+
+    try (final var fs = createFS()) {
+      final var a = fs.getPath("/", "a");
+      final var b = a.resolve("b");
+      final var c = fs.getPath("/", "c");
+
+      Files.createDirectory(a);
+      assertFalse(Files.exists(b));
+      Files.createDirectory(b);
+      assertTrue(Files.isDirectory(b));
+      Files.delete(b);
+      assertFalse(Files.exists(b));
+
+      Files.move(a, c);
+      assertFalse(Files.exists(a));
+      assertTrue(Files.isDirectory(c));
+
+      fs.mount(new FBMountRequest(mountDir, c));
+      final var f = c.resolve("a.txt");
+      assertTrue(Files.exists(f));
+      Files.delete(mountDir.resolve("a.txt"));
+      assertFalse(Files.exists(f));
+
+      fs.unmount(c);
+      assertFalse(Files.exists(f));
+    }
+  }
+
+  @Test
+  public void testNegativeLookupCache(
+    final @TempDir Path mountDir)
+    throws Exception
+  {
+    final var env =
+      Map.<String, Object>of(
+        FBFilesystemProvider.environmentNegativeLookupCacheSizeKey(),
+        Integer.valueOf(16),
+        FBFilesystemProvider.environmentNegativeLookupCacheDurationKey(),
+        Duration.ofHours(1L)
+      );
+
+    try (final var fs = (FBFilesystem) FileSystems.newFileSystem(FSBIND, env)) {
+      final var dir = fs.getPath("/", "a");
+      final var f = dir.resolve("a.txt");
+      Files.createDirectory(dir);
+      fs.mount(new FBMountRequest(mountDir, dir));
+
+      assertFalse(Files.exists(f));
+      Files.writeString(mountDir.resolve("a.txt"), "Hello!");
+      assertFalse(Files.exists(f));
+
+      fs.unmount(dir);
+      fs.mount(new FBMountRequest(mountDir, dir));
+      assertTrue(Files.exists(f));
+    }
+  }
+
+  @Test
+  public void testDirectoryCaseInsensitive()
+    throws Exception
+  {
+    try (final var fs = createFS()) {
+      Files.createDirectory(fs.getPath("/", "Hello"));
+      Files.createDirectory(fs.getPath("/", "HELLO"));
+      Files.createDirectory(fs.getPath("/", "hello", "World"));
+
+      assertTrue(Files.isDirectory(fs.getPath("/", "hELLO")));
+      assertTrue(Files.isDirectory(fs.getPath("/", "HELLO", "WORLD")));
+      assertEquals(
+        List.of("Hello"),
+        Files.list(fs.getPath("/"))
+          .map(Path::getFileName)
+          .map(Path::toString)
+          .toList()
+      );
+    }
+  }
+
+  @Test
+  public void testDirectoryRenameConflict()
+    throws Exception
+  {
+    try (final var fs = createFS()) {
+      final var a = fs.getPath("/", "a");
+      final var b = fs.getPath("/", "b");
+
+      Files.createDirectory(a);
+      Files.createDirectory(b);
+      Files.createDirectory(a.resolve("x"));
+      Files.createDirectory(a.resolve("y"));
+
+      assertThrows(FileSystemException.class, () -> {
+        Files.move(a.resolve("x"), b.resolve("Y"));
+      });
+      assertTrue(Files.isDirectory(a.resolve("x")));
+      assertTrue(Files.isDirectory(a.resolve("y")));
+
+      Files.move(a.resolve("x"), a.resolve("Z"));
+      assertEquals(
+        List.of("y", "Z"),
+        Files.list(a)
+          .map(Path::getFileName)
+          .map(Path::toString)
+          .toList()
+      );
+    }
+  }
+
+  @Test
+  public void testFreeze(
+    final @TempDir Path mountDir)
+    throws Exception
+  {
+    Files.writeString(mountDir.resolve("a.txt"), "Hello");
+
+    try (final var fs = createFS()) {
+      final var a = fs.getPath("/", "a");
+      final var m = fs.getPath("/", "m");
+      Files.createDirectory(a);
+      Files.createDirectory(a.resolve("Y"));
+      Files.createDirectory(a.resolve("x"));
+      Files.createDirectory(m);
+      fs.mount(new FBMountRequest(mountDir, m));
+
+      assertFalse(fs.isFrozen());
+      fs.freeze();
+      assertTrue(fs.isFrozen());
+      fs.freeze();
+      assertTrue(fs.isFrozen());
+
+      assertEquals(
+        List.of("x", "Y"),
+        Files.list(a)
+          .map(Path::getFileName)
+          .map(Path::toString)
+          .toList()
+      );
+      assertTrue(Files.isDirectory(a.resolve("X")));
+      assertEquals("Hello", Files.readString(m.resolve("a.txt")));
+
+      final var x = a.resolve("x");
+      assertTrue(Files.isDirectory(x));
+      final var hits = fs.lookupCacheStatistics().hits();
+      assertTrue(Files.isDirectory(x));
+      assertTrue(Files.isDirectory(fs.getPath("/", "a", "x")));
+      assertEquals(hits + 2L, fs.lookupCacheStatistics().hits());
+
+      assertThrows(ReadOnlyFileSystemException.class, () -> {
+        Files.createDirectory(a.resolve("z"));
+      });
+      assertThrows(ReadOnlyFileSystemException.class, () -> {
+        Files.delete(a.resolve("x"));
+      });
+      assertThrows(ReadOnlyFileSystemException.class, () -> {
+        Files.move(a.resolve("x"), a.resolve("z"));
+      });
+      assertThrows(ReadOnlyFileSystemException.class, () -> {
+        fs.unmount(m);
+      });
+      assertThrows(ReadOnlyFileSystemException.class, () -> {
+        fs.mount(new FBMountRequest(mountDir, a.resolve("x")));
+      });
+
+      assertFalse(Files.exists(a.resolve("z")));
+      assertTrue(Files.isDirectory(a.resolve("x")));
+      assertEquals(1, fs.mountedFilesystems().size());
     }
   }
 
@@ -430,4 +430,23 @@ public class FBRelativePathTest
       );
     }
   }
+
+  @Test
+  public void testRelativeDerivedEqual()
+    throws Exception
+  {
+    try (final var fs = createFS()) {
+      final var p = fs.getPath("b", "c");
+      final var q = fs.getPath("a", "b", "c", "d").subpath(1, 3);
+
+      assertEquals(p, q);
+      assertEquals(p.hashCode(), q.hashCode());
+      assertEquals("b/c", q.toString());
+      assertEquals(fs.getPath("c"), q.getFileName());
+      assertEquals(fs.getPath("b"), q.getParent());
+      assertEquals(fs.getPath("c"), q.getName(1));
+      assertTrue(q.endsWith(fs.getPath("C")));
+      assertEquals(fs.getPath("b", "c", "x"), q.resolve(fs.getPath("x")));
+    }
+  }
 }